@@ -0,0 +1,56 @@
+package com.example.clockandtimerapp.alarm;
+
+import android.app.Notification;
+import android.content.Context;
+import android.util.Log;
+
+import androidx.core.app.NotificationCompat;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented timing of a ringing-notification re-post: rebuilding the builder and its
+ * PendingIntents every time (before the template cache) against refreshing the title on a
+ * kept builder (what {@link AlarmRingService} does now). Needs a device; NotificationCompat
+ * and PendingIntent are stubs in local unit tests.
+ */
+@RunWith(AndroidJUnit4.class)
+public class RingingNotificationTimingTest {
+
+    private static final String TAG = "RingingNotifTiming";
+    private static final int ID = 42;
+    private static final int ROUNDS = 200;
+
+    @Test
+    public void reusedBuilderIsCheaperThanRebuilding() {
+        Context ctx = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        for (int i = 0; i < 20; i++) rebuild(ctx, i); // warm up both paths
+        NotificationCompat.Builder kept = AlarmRingService.newRingingBuilder(ctx, ID, "Wake up",
+                AlarmRingService.screenIntent(ctx, ID, "Wake up"));
+        for (int i = 0; i < 20; i++) kept.setContentTitle("Wake up " + i).build();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) assertNotNull(rebuild(ctx, i));
+        long rebuildNs = (System.nanoTime() - start) / ROUNDS;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) assertNotNull(kept.setContentTitle("Wake up " + i).build());
+        long reuseNs = (System.nanoTime() - start) / ROUNDS;
+
+        String report = "re-post: rebuild " + rebuildNs / 1000 + " us, reuse " + reuseNs / 1000 + " us";
+        Log.i(TAG, report);
+        assertTrue(report, reuseNs < rebuildNs);
+    }
+
+    private static Notification rebuild(Context ctx, int i) {
+        String label = "Wake up " + i;
+        return AlarmRingService.newRingingBuilder(ctx, ID, label, AlarmRingService.screenIntent(ctx, ID, label))
+                .setContentTitle(label)
+                .build();
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.clockandtimerapp;
 
+import android.content.pm.ApplicationInfo;
 import android.os.Bundle;
+import android.os.StrictMode;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
@@ -12,6 +14,7 @@ import androidx.fragment.app.FragmentManager;
 import androidx.fragment.app.FragmentTransaction;
 
 import com.example.clockandtimerapp.stopwatch.StopwatchService;
+import com.example.clockandtimerapp.utils.AppStorage;
 import com.google.android.material.appbar.MaterialToolbar;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 
@@ -19,6 +22,7 @@ import com.example.clockandtimerapp.stopwatch.StopwatchFragment;
 import com.example.clockandtimerapp.worldclock.ClockFragment;
 import com.example.clockandtimerapp.chess.ChessTimerFragment;
 import com.example.clockandtimerapp.alarm.AlarmFragment;
+import com.example.clockandtimerapp.alarm.DeliveryLog;
 import com.example.clockandtimerapp.timer.TimerFragment;
 import com.example.clockandtimerapp.timer.pomodoroActivity;
 
@@ -30,7 +34,14 @@ public class MainActivity extends AppCompatActivity {
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        enableStrictModeForDebugBuilds();
         super.onCreate(savedInstanceState);
+
+        // Start loading stored data now so the first fragment finds it in memory
+        AppStorage.warmUp(this);
+        // Registrations that came due while the app was not running and never arrived
+        DeliveryLog.checkMissedAsync(this);
+
         setContentView(R.layout.activity_main);
 
         toolbar = findViewById(R.id.toolbar);
@@ -188,6 +199,16 @@ public class MainActivity extends AppCompatActivity {
                 .commit();
     }
 
+    // Flags any disk access on the UI thread; storage work belongs on AppStorage's thread
+    private void enableStrictModeForDebugBuilds() {
+        if ((getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) == 0) return;
+        StrictMode.setThreadPolicy(new StrictMode.ThreadPolicy.Builder()
+                .detectDiskReads()
+                .detectDiskWrites()
+                .penaltyLog()
+                .build());
+    }
+
     public BottomNavigationView getBottomNavigationView() {
         return bottomNavigationView;
     }
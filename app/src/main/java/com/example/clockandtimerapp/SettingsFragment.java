@@ -2,6 +2,7 @@ package com.example.clockandtimerapp;
 
 import android.app.AlertDialog;
 import android.content.Context; // Added explicit Context import for safety
+import android.net.Uri;
 import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -11,29 +12,47 @@ import android.widget.TextView;
 import android.widget.Toast;
 import android.view.ContextThemeWrapper;
 
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 
 import com.example.clockandtimerapp.worldclock.WorldClockManager;
+import com.example.clockandtimerapp.utils.AppStorage;
 import com.example.clockandtimerapp.utils.TimeFormatPreference;
-import com.google.android.material.snackbar.Snackbar;
+import com.google.android.material.materialswitch.MaterialSwitch;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
 // ALARM MODULE IMPORTS
+import com.example.clockandtimerapp.alarm.AlarmEventJournal;
+import com.example.clockandtimerapp.alarm.AlarmRepository;
+import com.example.clockandtimerapp.alarm.AlarmRingEngine;
 import com.example.clockandtimerapp.alarm.AlarmScheduler;
-import com.example.clockandtimerapp.alarm.AlarmStorage;
+import com.example.clockandtimerapp.alarm.AlarmTransfer;
+import com.example.clockandtimerapp.alarm.DeliveryLog;
+import com.example.clockandtimerapp.alarm.FireLatencyLog;
 import com.example.clockandtimerapp.alarm.model.Alarm;
 
-public class SettingsFragment extends Fragment {
+public class SettingsFragment extends Fragment implements TimeFormatPreference.Listener {
 
     private TextView textTimeFormatSummary;
+    private TextView textCrescendoSummary;
+    private int crescendoSeconds;
+
+    // Choices for the alarm volume ramp, in seconds (0 = off)
+    private static final int[] CRESCENDO_CHOICES = {0, 15, 30, 60};
     private WorldClockManager clockManager;
     // Inside onViewCreated(), add after other click listeners
 
-
+    // Alarm CSV import/export through the system file picker
+    private final ActivityResultLauncher<String[]> importLauncher =
+            registerForActivityResult(new ActivityResultContracts.OpenDocument(), this::importAlarms);
+    private final ActivityResultLauncher<String> exportLauncher =
+            registerForActivityResult(new ActivityResultContracts.CreateDocument(AlarmTransfer.MIME_TYPE), this::exportAlarms);
 
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, ViewGroup container,
@@ -55,24 +74,126 @@ public class SettingsFragment extends Fragment {
         settingResetAppData.setOnClickListener(v -> showResetAppDataDialog());
 
         RelativeLayout settingDeleteAllAlarms = view.findViewById(R.id.setting_delete_all_alarms);
+        RelativeLayout settingImportAlarms = view.findViewById(R.id.setting_import_alarms);
+        RelativeLayout settingExportAlarms = view.findViewById(R.id.setting_export_alarms);
+
+        RelativeLayout settingDispatcherMode = view.findViewById(R.id.setting_dispatcher_mode);
+        MaterialSwitch switchDispatcherMode = view.findViewById(R.id.switch_dispatcher_mode);
+        Context appContext = requireContext().getApplicationContext();
+        settingDispatcherMode.setOnClickListener(v -> {
+            boolean enable = !switchDispatcherMode.isChecked();
+            switchDispatcherMode.setChecked(enable);
+            // Per-alarm registrations want exact alarms; ask here, the move itself has no UI
+            if (!enable) AlarmScheduler.requestExactAlarmPermission(requireContext());
+            AppStorage.write(() -> AlarmScheduler.setDispatcherMode(appContext, enable));
+        });
 
         textTimeFormatSummary = view.findViewById(R.id.text_time_format_summary);
 
-        updateTimeFormatSummary();
+        RelativeLayout settingCrescendo = view.findViewById(R.id.setting_crescendo);
+        textCrescendoSummary = view.findViewById(R.id.text_crescendo_summary);
+        settingCrescendo.setOnClickListener(v -> showCrescendoDialog());
+
+        // Rows stay disabled until their stored values have been read off the main thread
+        settingDispatcherMode.setEnabled(false);
+        settingTimeFormat.setEnabled(false);
+        settingCrescendo.setEnabled(false);
+        AppStorage.read(() -> AlarmScheduler.isDispatcherMode(appContext), enabled -> {
+            if (getView() == null) return;
+            switchDispatcherMode.setChecked(enabled);
+            settingDispatcherMode.setEnabled(true);
+        });
+        AppStorage.read(() -> AlarmRingEngine.getCrescendoSeconds(appContext), seconds -> {
+            if (getView() == null) return;
+            updateCrescendoSummary(seconds);
+            settingCrescendo.setEnabled(true);
+        });
+        AppStorage.load24HourFormat(appContext, is24H -> {
+            if (getView() == null) return;
+            updateTimeFormatSummary(is24H);
+            settingTimeFormat.setEnabled(true);
+        });
 
         settingTimeFormat.setOnClickListener(v -> showTimeFormatDialog());
+        TimeFormatPreference.addListener(this);
 
         settingResetClock.setOnClickListener(v -> showResetClockDialog());
 
         settingDeleteAllAlarms.setOnClickListener(v -> showDeleteAllAlarmsDialog());
+
+        settingImportAlarms.setOnClickListener(v -> importLauncher.launch(AlarmTransfer.IMPORT_MIME_TYPES));
+        settingExportAlarms.setOnClickListener(v -> exportLauncher.launch("alarms.csv"));
+
+        // Diagnostics: wake-to-sound latency of recent firings
+        TextView textFireLatency = view.findViewById(R.id.text_fire_latency);
+        FireLatencyLog.loadSummary(appContext, summary -> {
+            if (getView() == null) return;
+            textFireLatency.setText(summary);
+        });
+
+        // Diagnostics: how late AlarmManager delivered, per delivery mode
+        TextView textDelivery = view.findViewById(R.id.text_alarm_delivery);
+        DeliveryLog.loadSummary(appContext, summary -> {
+            if (getView() == null) return;
+            textDelivery.setText(summary);
+        });
+
+        // Diagnostics: per-alarm fire, snooze and dismiss history
+        TextView textHistory = view.findViewById(R.id.text_alarm_history);
+        AlarmEventJournal.loadSummary(appContext, summary -> {
+            if (getView() == null) return;
+            textHistory.setText(summary);
+        });
     }
 
-    private void updateTimeFormatSummary() {
-        boolean is24H = TimeFormatPreference.is24HourFormat(requireContext());
+    @Override
+    public void onDestroyView() {
+        TimeFormatPreference.removeListener(this);
+        super.onDestroyView();
+    }
+
+    @Override
+    public void onTimeFormatChanged(boolean is24H) {
+        if (getView() != null) updateTimeFormatSummary(is24H);
+    }
+
+    private void updateTimeFormatSummary(boolean is24H) {
         String formatText = is24H ? "24-hour format (HH:mm)" : "12-hour format (h:mm a)";
         textTimeFormatSummary.setText(getString(R.string.currently_set_to, formatText));
     }
 
+    private void updateCrescendoSummary(int seconds) {
+        crescendoSeconds = seconds;
+        textCrescendoSummary.setText(crescendoLabel(seconds));
+    }
+
+    private static String crescendoLabel(int seconds) {
+        return seconds == 0 ? "Off" : "Rise to full volume over " + seconds + " s";
+    }
+
+    private void showCrescendoDialog() {
+        String[] options = new String[CRESCENDO_CHOICES.length];
+        int checkedItem = 0;
+        for (int i = 0; i < CRESCENDO_CHOICES.length; i++) {
+            options[i] = crescendoLabel(CRESCENDO_CHOICES[i]);
+            if (CRESCENDO_CHOICES[i] == crescendoSeconds) checkedItem = i;
+        }
+
+        ContextThemeWrapper themedContext = new ContextThemeWrapper(requireContext(), R.style.AlertDialogDarkTheme);
+        Context appContext = requireContext().getApplicationContext();
+
+        new AlertDialog.Builder(themedContext)
+                .setTitle("Volume Crescendo")
+                .setSingleChoiceItems(options, checkedItem, (dialog, which) -> {
+                    int seconds = CRESCENDO_CHOICES[which];
+                    updateCrescendoSummary(seconds);
+                    AppStorage.write(() -> AlarmRingEngine.setCrescendoSeconds(appContext, seconds));
+                    dialog.dismiss();
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
     private void showTimeFormatDialog() {
         boolean is24H = TimeFormatPreference.is24HourFormat(requireContext());
         String[] options = {"12-hour format (h:mm a)", "24-hour format (HH:mm)"};
@@ -85,16 +206,40 @@ public class SettingsFragment extends Fragment {
                 .setSingleChoiceItems(options, checkedItem, (dialog, which) -> {
                     boolean new24HSetting = (which == 1); // 1 = 24-hour
 
+                    // Open clock screens redraw through their TimeFormatPreference listeners
                     TimeFormatPreference.set24HourFormat(requireContext(), new24HSetting);
-                    updateTimeFormatSummary();
+                    updateTimeFormatSummary(new24HSetting);
                     dialog.dismiss();
-
-                    Snackbar.make(requireView(), "Time format updated. Restart module to see changes.", Snackbar.LENGTH_LONG).show();
                 })
                 .setNegativeButton("Cancel", null)
                 .show();
     }
 
+    private void importAlarms(@Nullable Uri uri) {
+        if (uri == null) return; // picker cancelled
+        Context appContext = requireContext().getApplicationContext();
+        AppStorage.read(() -> {
+            try {
+                return AlarmTransfer.importFrom(appContext, uri).toString();
+            } catch (IOException | SecurityException | IllegalStateException e) {
+                return "Import failed: " + e.getMessage();
+            }
+        }, message -> Toast.makeText(appContext, message, Toast.LENGTH_LONG).show());
+    }
+
+    private void exportAlarms(@Nullable Uri uri) {
+        if (uri == null) return;
+        Context appContext = requireContext().getApplicationContext();
+        AppStorage.read(() -> {
+            try {
+                int count = AlarmTransfer.exportTo(appContext, uri);
+                return "Exported " + count + (count == 1 ? " alarm." : " alarms.");
+            } catch (IOException | SecurityException e) {
+                return "Export failed: " + e.getMessage();
+            }
+        }, message -> Toast.makeText(appContext, message, Toast.LENGTH_LONG).show());
+    }
+
     private void showResetClockDialog() {
         ContextThemeWrapper themedContext = new ContextThemeWrapper(requireContext(), R.style.AlertDialogDarkTheme);
         Context ctx = requireContext();
@@ -122,22 +267,21 @@ public class SettingsFragment extends Fragment {
                 .setTitle("Confirm Deletion")
                 .setMessage("Are you sure you want to remove ALL saved alarms? This action cannot be undone and will cancel all scheduled alarms.")
                 .setPositiveButton("Delete All", (dialog, which) -> {
-
-                    // 1. Load all current alarms
-                    List<Alarm> currentAlarms = AlarmStorage.load(ctx);
-                    int count = currentAlarms.size();
-
-                    // 2. Cancel all scheduled alarms
-                    for (Alarm alarm : currentAlarms) {
-                        AlarmScheduler.cancel(ctx, alarm);
-                    }
-
-                    // 3. Save an empty list, clearing the persistence data
-                    AlarmStorage.save(ctx, new ArrayList<>());
-                    // Note: If you have seeding logic in AlarmFragment, you might want to call
-                    // AlarmStorage.setInitialized(ctx) here to allow the seed to run again later.
-
-                    Toast.makeText(ctx, count + " alarms have been permanently deleted.", Toast.LENGTH_LONG).show();
+                    Context appContext = ctx.getApplicationContext();
+                    AppStorage.read(() -> {
+                        // 1. Read all current alarms from the repository
+                        AlarmRepository repository = AlarmRepository.get(appContext);
+                        List<Alarm> currentAlarms = repository.getAll();
+
+                        // 2. Clear the repository (persisted in the background)
+                        repository.clear();
+
+                        // 3. Cancel all scheduled alarms
+                        AlarmScheduler.cancelAll(appContext, currentAlarms);
+                        // Note: If you have seeding logic in AlarmFragment, you might want to call
+                        // AlarmStorage.setInitialized(ctx) here to allow the seed to run again later.
+                        return currentAlarms.size();
+                    }, count -> Toast.makeText(appContext, count + " alarms have been permanently deleted.", Toast.LENGTH_LONG).show());
                 })
                 .setNegativeButton("Cancel", null)
                 .show();
@@ -156,17 +300,16 @@ public class SettingsFragment extends Fragment {
                         clockManager.saveClocks(new ArrayList<>());
                     }
 
-                    // 2. Clear all Alarms
-                    List<Alarm> alarms = AlarmStorage.load(ctx);
-                    for (Alarm alarm : alarms) {
-                        AlarmScheduler.cancel(ctx, alarm);
-                    }
-                    AlarmStorage.save(ctx, new ArrayList<>());
-
-                    // 3. Reset app preferences (like 12/24 hour format)
-                    TimeFormatPreference.resetToDefault(ctx);
-
-                    Toast.makeText(ctx, "All app data has been reset.", Toast.LENGTH_LONG).show();
+                    // 2. Clear all Alarms and 3. reset app preferences (like 12/24 hour format)
+                    Context appContext = ctx.getApplicationContext();
+                    AppStorage.read(() -> {
+                        AlarmRepository repository = AlarmRepository.get(appContext);
+                        List<Alarm> alarms = repository.getAll();
+                        repository.clear();
+                        AlarmScheduler.cancelAll(appContext, alarms);
+                        TimeFormatPreference.resetToDefault(appContext);
+                        return null;
+                    }, ignored -> Toast.makeText(appContext, "All app data has been reset.", Toast.LENGTH_LONG).show());
                 })
                 .setNegativeButton("Cancel", null)
                 .show();
@@ -0,0 +1,276 @@
+package com.example.clockandtimerapp.alarm;
+
+import com.example.clockandtimerapp.alarm.model.Alarm;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+
+/**
+ * Binary encoding of the alarm store.
+ *
+ * Snapshot layout (big-endian):
+ * <pre>
+ *   int    magic "ALRM"
+ *   short  version
+ *   short  record size in bytes
+ *   int    string count, then each string as writeUTF (labels and ringtone URIs, de-duplicated)
+ *   int    skip list count (version 2+), then each as int id | short n | n ints epochDay
+ *   int    record count, then fixed-width records:
+ *            int id | short minuteOfDay | byte daysMask | byte flags | int labelIndex | int ringtoneIndex
+ *            | short intervalMinutes | short endMinuteOfDay
+ * </pre>
+ * A string index of -1 means null. The string table comes first so records can be
+ * decoded one at a time as they are read. The interval fields were appended to the
+ * record; older 16-byte snapshots read as plain alarms. Skipped dates are variable length,
+ * so they sit in their own table, listed only for alarms that have any.
+ *
+ * Change log entries are one op byte followed by the same fields with strings inline;
+ * OP_PUT omits the interval fields, OP_PUT_RULE appends them and OP_PUT_FULL appends
+ * the skipped dates after those. A truncated last entry (interrupted append) ends the log.
+ */
+final class AlarmBinaryFormat {
+
+    static final int MAGIC = 0x414C524D; // "ALRM"
+    static final int VERSION = 2; // 2: skipped dates
+    static final int RECORD_BYTES = 20;
+    static final int BASE_RECORD_BYTES = 16; // before the interval fields
+
+    static final byte OP_PUT = 1;
+    static final byte OP_DELETE = 2;
+    static final byte OP_PUT_RULE = 3; // OP_PUT plus the interval fields
+    static final byte OP_PUT_FULL = 4; // OP_PUT_RULE plus the skipped dates
+
+    private static final int FLAG_ENABLED = 1;
+    private static final int FLAG_VIBRATE = 1 << 1;
+
+    private static final int NO_STRING = -1;
+    // writeUTF is capped at 65535 bytes; 3 bytes per char is the worst case
+    private static final int MAX_STRING_CHARS = 65535 / 3;
+
+    /** Receives decoded alarms in file order. */
+    interface Sink {
+        void accept(Alarm alarm);
+    }
+
+    private AlarmBinaryFormat() {}
+
+    // ------- snapshot -------
+
+    static void writeSnapshot(DataOutputStream out, Collection<Alarm> alarms) throws IOException {
+        // Intern strings so repeated ringtones are stored once
+        HashMap<String, Integer> index = new HashMap<>();
+        ArrayList<String> strings = new ArrayList<>();
+        int[] labelIdx = new int[alarms.size()];
+        int[] toneIdx = new int[alarms.size()];
+        int i = 0;
+        for (Alarm a : alarms) {
+            labelIdx[i] = intern(a.label, index, strings);
+            toneIdx[i] = intern(a.ringtone, index, strings);
+            i++;
+        }
+
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeShort(RECORD_BYTES);
+        out.writeInt(strings.size());
+        for (String s : strings) out.writeUTF(s);
+
+        int skipping = 0;
+        for (Alarm a : alarms) {
+            if (a.skipDays.length > 0) skipping++;
+        }
+        out.writeInt(skipping);
+        for (Alarm a : alarms) {
+            if (a.skipDays.length == 0) continue;
+            out.writeInt(a.id);
+            writeSkips(out, a.skipDays);
+        }
+
+        out.writeInt(alarms.size());
+        i = 0;
+        for (Alarm a : alarms) {
+            out.writeInt(a.id);
+            out.writeShort(a.hour24 * 60 + a.minute);
+            out.writeByte(a.daysMask);
+            out.writeByte(flags(a));
+            out.writeInt(labelIdx[i]);
+            out.writeInt(toneIdx[i]);
+            out.writeShort(a.intervalMinutes);
+            out.writeShort(a.endHour24 * 60 + a.endMinute);
+            i++;
+        }
+    }
+
+    /**
+     * Streams every record in a snapshot to {@code sink}. Returns the record count.
+     * Throws if the header is not a snapshot this version can read.
+     */
+    static int readSnapshot(DataInputStream in, Sink sink) throws IOException {
+        if (in.readInt() != MAGIC) throw new IOException("Not an alarm snapshot");
+        int version = in.readUnsignedShort();
+        if (version > VERSION) throw new IOException("Unsupported alarm snapshot version " + version);
+        int recordBytes = in.readUnsignedShort();
+        if (recordBytes < BASE_RECORD_BYTES) throw new IOException("Bad record size " + recordBytes);
+
+        String[] strings = new String[in.readInt()];
+        for (int i = 0; i < strings.length; i++) strings[i] = in.readUTF();
+
+        HashMap<Integer, int[]> skips = new HashMap<>();
+        if (version >= 2) {
+            int n = in.readInt();
+            for (int i = 0; i < n; i++) {
+                int id = in.readInt();
+                skips.put(id, readSkips(in));
+            }
+        }
+
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            int id = in.readInt();
+            int minuteOfDay = in.readUnsignedShort();
+            int days = in.readUnsignedByte();
+            int flags = in.readUnsignedByte();
+            String label = string(strings, in.readInt());
+            String tone = string(strings, in.readInt());
+            Alarm a = toAlarm(id, minuteOfDay, days, flags, label, tone);
+            int read = BASE_RECORD_BYTES;
+            if (recordBytes >= RECORD_BYTES) {
+                readInterval(in, a);
+                read = RECORD_BYTES;
+            }
+            // Newer minor versions may append fields to each record
+            if (recordBytes > read) in.skipBytes(recordBytes - read);
+            int[] skipDays = skips.get(id);
+            if (skipDays != null) a.skipDays = skipDays;
+            sink.accept(a);
+        }
+        return count;
+    }
+
+    // ------- change log -------
+
+    static void writePut(DataOutputStream out, Alarm a) throws IOException {
+        // Each alarm gets the shortest entry that holds it, so plain alarms stay readable by older versions
+        boolean full = a.skipDays.length > 0;
+        out.writeByte(full ? OP_PUT_FULL : a.isInterval() ? OP_PUT_RULE : OP_PUT);
+        out.writeInt(a.id);
+        out.writeShort(a.hour24 * 60 + a.minute);
+        out.writeByte(a.daysMask);
+        out.writeByte(flags(a));
+        writeNullableUTF(out, a.label);
+        writeNullableUTF(out, a.ringtone);
+        if (full || a.isInterval()) {
+            out.writeShort(a.intervalMinutes);
+            out.writeShort(a.endHour24 * 60 + a.endMinute);
+        }
+        if (full) writeSkips(out, a.skipDays);
+    }
+
+    static void writeDelete(DataOutputStream out, int id) throws IOException {
+        out.writeByte(OP_DELETE);
+        out.writeInt(id);
+    }
+
+    /**
+     * Applies every complete log entry to {@code into}; returns the number applied.
+     * {@code torn[0]} is set when the log ends in a partial entry.
+     */
+    static int readLog(DataInputStream in, LinkedHashMap<Integer, Alarm> into, boolean[] torn) throws IOException {
+        int count = 0;
+        torn[0] = false;
+        try {
+            while (true) {
+                int op = in.read();
+                if (op < 0) break; // clean end of log
+                if (op == OP_DELETE) {
+                    into.remove(in.readInt());
+                } else if (op == OP_PUT || op == OP_PUT_RULE || op == OP_PUT_FULL) {
+                    int id = in.readInt();
+                    int minuteOfDay = in.readUnsignedShort();
+                    int days = in.readUnsignedByte();
+                    int flags = in.readUnsignedByte();
+                    String label = readNullableUTF(in);
+                    String tone = readNullableUTF(in);
+                    Alarm a = toAlarm(id, minuteOfDay, days, flags, label, tone);
+                    if (op != OP_PUT) readInterval(in, a);
+                    if (op == OP_PUT_FULL) a.skipDays = readSkips(in);
+                    into.put(id, a);
+                } else {
+                    torn[0] = true; // garbage after a torn write
+                    break;
+                }
+                count++;
+            }
+        } catch (EOFException e) {
+            torn[0] = true; // interrupted append; everything before it is valid
+        }
+        return count;
+    }
+
+    // ------- helpers -------
+
+    private static Alarm toAlarm(int id, int minuteOfDay, int days, int flags, String label, String tone) {
+        return new Alarm(id, minuteOfDay / 60, minuteOfDay % 60, label,
+                (flags & FLAG_ENABLED) != 0, tone, (flags & FLAG_VIBRATE) != 0, days);
+    }
+
+    private static void readInterval(DataInputStream in, Alarm a) throws IOException {
+        int every = in.readUnsignedShort();
+        int endMinuteOfDay = in.readUnsignedShort();
+        a.setInterval(every, endMinuteOfDay / 60, endMinuteOfDay % 60);
+    }
+
+    private static void writeSkips(DataOutputStream out, int[] days) throws IOException {
+        out.writeShort(days.length);
+        for (int d : days) out.writeInt(d);
+    }
+
+    private static int[] readSkips(DataInputStream in) throws IOException {
+        int n = in.readUnsignedShort();
+        if (n == 0) return Alarm.NO_SKIPS;
+        int[] days = new int[n];
+        for (int i = 0; i < n; i++) days[i] = in.readInt();
+        return days;
+    }
+
+    private static int flags(Alarm a) {
+        return (a.enabled ? FLAG_ENABLED : 0) | (a.vibrate ? FLAG_VIBRATE : 0);
+    }
+
+    private static int intern(String s, HashMap<String, Integer> index, ArrayList<String> strings) {
+        if (s == null) return NO_STRING;
+        s = clamp(s);
+        Integer i = index.get(s);
+        if (i == null) {
+            i = strings.size();
+            strings.add(s);
+            index.put(s, i);
+        }
+        return i;
+    }
+
+    private static String string(String[] strings, int i) throws IOException {
+        if (i == NO_STRING) return null;
+        if (i < 0 || i >= strings.length) throw new IOException("Bad string index " + i);
+        return strings[i];
+    }
+
+    private static void writeNullableUTF(DataOutputStream out, String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) out.writeUTF(clamp(s));
+    }
+
+    private static String readNullableUTF(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static String clamp(String s) {
+        return s.length() > MAX_STRING_CHARS ? s.substring(0, MAX_STRING_CHARS) : s;
+    }
+}
@@ -0,0 +1,465 @@
+package com.example.clockandtimerapp.alarm;
+
+import com.example.clockandtimerapp.alarm.model.Alarm;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Streaming CSV reader and writer for alarm import/export.
+ *
+ * One alarm per row: {@code time,days,label,enabled,vibrate,ringtone,every,until,skip,groups},
+ * where times are 24-hour "HH:mm" and days is a space-separated list of English day
+ * abbreviations ("Mon Wed Fri"), empty for a one-time alarm. An interval rule sets
+ * {@code every} (minutes) and {@code until}; both are empty for a plain alarm. {@code skip}
+ * lists skipped dates as "yyyy-MM-dd", space-separated, and {@code groups} the alarm's
+ * {@link AlarmGroups} names separated by '|'. Columns are matched by the header row when
+ * there is one, so spreadsheets may reorder or drop the optional ones. Fields use RFC 4180
+ * quoting. The parser keeps only the current row and hands each alarm over as it is read.
+ */
+final class AlarmCsv {
+
+    /** Receives rows as they are parsed. */
+    interface RowHandler {
+        /**
+         * A valid row; {@code alarm.id} is {@link AlarmIdAllocator#NO_ID}. {@code groups}
+         * holds the row's group names, empty if it has none.
+         */
+        void onAlarm(Alarm alarm, List<String> groups);
+
+        /** A row that could not be parsed (1-based line of the row's start). */
+        void onInvalid(int line);
+    }
+
+    static final String HEADER = "time,days,label,enabled,vibrate,ringtone,every,until,skip,groups";
+
+    // Column slots, also the default order when a file has no header
+    private static final int COL_TIME     = 0;
+    private static final int COL_DAYS     = 1;
+    private static final int COL_LABEL    = 2;
+    private static final int COL_ENABLED  = 3;
+    private static final int COL_VIBRATE  = 4;
+    private static final int COL_RINGTONE = 5;
+    private static final int COL_EVERY    = 6;
+    private static final int COL_UNTIL    = 7;
+    private static final int COL_SKIP     = 8;
+    private static final int COL_GROUPS   = 9;
+    private static final String[] COLUMNS = HEADER.split(",");
+
+    // Indexed by Calendar day - 1, matching Alarm.daysMask bits
+    private static final String[] DAY_NAMES = {"Sun", "Mon", "Tue", "Wed", "Thu", "Fri", "Sat"};
+
+    private AlarmCsv() {}
+
+    // ------- writing -------
+
+    /** Writes a header and one row per alarm; {@code groupsById} maps alarm ids to group names. */
+    static void write(Writer out, Iterable<Alarm> alarms,
+                      Map<Integer, ? extends Collection<String>> groupsById) throws IOException {
+        out.write(HEADER);
+        out.write('\n');
+        StringBuilder row = new StringBuilder(64);
+        for (Alarm a : alarms) {
+            row.setLength(0);
+            appendTwoDigits(row, a.hour24);
+            row.append(':');
+            appendTwoDigits(row, a.minute);
+            row.append(',');
+            appendDays(row, a.daysMask);
+            row.append(',');
+            appendField(row, a.label);
+            row.append(',').append(a.enabled);
+            row.append(',').append(a.vibrate);
+            row.append(',');
+            appendField(row, a.ringtone);
+            row.append(',');
+            if (a.isInterval()) {
+                row.append(a.intervalMinutes).append(',');
+                appendTwoDigits(row, a.endHour24);
+                row.append(':');
+                appendTwoDigits(row, a.endMinute);
+            } else {
+                row.append(',');
+            }
+            row.append(',');
+            for (int i = 0; i < a.skipDays.length; i++) {
+                if (i > 0) row.append(' ');
+                appendDate(row, a.skipDays[i]);
+            }
+            row.append(',');
+            Collection<String> groups = groupsById.get(a.id);
+            if (groups != null && !groups.isEmpty()) appendField(row, joinGroups(groups));
+            row.append('\n');
+            out.append(row);
+        }
+        out.flush();
+    }
+
+    private static void appendTwoDigits(StringBuilder sb, int v) {
+        if (v < 10) sb.append('0');
+        sb.append(v);
+    }
+
+    private static String joinGroups(Collection<String> groups) {
+        StringBuilder sb = new StringBuilder();
+        for (String name : groups) {
+            if (sb.length() > 0) sb.append('|');
+            sb.append(name);
+        }
+        return sb.toString();
+    }
+
+    /** "yyyy-MM-dd" for a local epoch day. */
+    private static void appendDate(StringBuilder sb, int epochDay) {
+        // Civil-from-days over 400-year eras (proleptic Gregorian, no Calendar needed)
+        long z = epochDay + 719_468L;
+        long era = Math.floorDiv(z, 146_097L);
+        long doe = z - era * 146_097L;
+        long yoe = (doe - doe / 1460 + doe / 36_524 - doe / 146_096) / 365;
+        long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        long mp = (5 * doy + 2) / 153;
+        int day = (int) (doy - (153 * mp + 2) / 5 + 1);
+        int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        long year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+        sb.append(year).append('-');
+        appendTwoDigits(sb, month);
+        sb.append('-');
+        appendTwoDigits(sb, day);
+    }
+
+    private static void appendDays(StringBuilder sb, int daysMask) {
+        boolean first = true;
+        for (int m = daysMask & Alarm.EVERY_DAY; m != 0; m &= m - 1) {
+            if (!first) sb.append(' ');
+            sb.append(DAY_NAMES[Integer.numberOfTrailingZeros(m)]);
+            first = false;
+        }
+    }
+
+    private static void appendField(StringBuilder sb, String value) {
+        if (value == null) return;
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            sb.append(value);
+            return;
+        }
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') sb.append('"');
+            sb.append(c);
+        }
+        sb.append('"');
+    }
+
+    // ------- reading -------
+
+    /**
+     * Parses {@code in} row by row. Blank lines are skipped; a first row naming a
+     * {@code time} column is taken as the header. The caller closes {@code in}.
+     */
+    static void read(Reader in, RowHandler handler) throws IOException {
+        Tokenizer t = new Tokenizer(in);
+        ArrayList<String> fields = new ArrayList<>(COLUMNS.length);
+        int[] columnOf = {0, 1, 2, 3, 4, 5, 6, 7, 8, 9}; // slot -> field index, -1 if absent
+        boolean firstRow = true;
+
+        while (true) {
+            int line = t.line;
+            if (!t.nextRow(fields)) break;
+            if (fields.size() == 1 && fields.get(0).trim().isEmpty()) continue;
+
+            if (firstRow) {
+                firstRow = false;
+                String first = fields.get(0);
+                if (first.startsWith("\uFEFF")) fields.set(0, first.substring(1)); // spreadsheet BOM
+                if (isHeader(fields)) {
+                    columnOf = mapHeader(fields);
+                    continue;
+                }
+            }
+
+            Alarm a = parseRow(fields, columnOf);
+            if (a != null) {
+                handler.onAlarm(a, parseGroups(field(fields, columnOf, COL_GROUPS)));
+            } else {
+                handler.onInvalid(line);
+            }
+        }
+    }
+
+    private static boolean isHeader(ArrayList<String> fields) {
+        for (String f : fields) {
+            if (COLUMNS[COL_TIME].equalsIgnoreCase(f.trim())) return true;
+        }
+        return false;
+    }
+
+    private static int[] mapHeader(ArrayList<String> header) {
+        int[] columnOf = new int[COLUMNS.length];
+        for (int slot = 0; slot < COLUMNS.length; slot++) {
+            columnOf[slot] = -1;
+            for (int i = 0; i < header.size(); i++) {
+                if (COLUMNS[slot].equalsIgnoreCase(header.get(i).trim())) {
+                    columnOf[slot] = i;
+                    break;
+                }
+            }
+        }
+        return columnOf;
+    }
+
+    /** Builds an alarm from one row, or returns null if a field is malformed. */
+    private static Alarm parseRow(ArrayList<String> fields, int[] columnOf) {
+        int time = parseTime(field(fields, columnOf, COL_TIME));
+        if (time < 0) return null;
+
+        int days = parseDays(field(fields, columnOf, COL_DAYS));
+        if (days < 0) return null;
+
+        int enabled = parseBoolean(field(fields, columnOf, COL_ENABLED), true);
+        int vibrate = parseBoolean(field(fields, columnOf, COL_VIBRATE), false);
+        if (enabled < 0 || vibrate < 0) return null;
+
+        String label = field(fields, columnOf, COL_LABEL);
+        if (label == null || label.isEmpty()) label = "Alarm";
+        String ringtone = field(fields, columnOf, COL_RINGTONE);
+        if (ringtone == null) ringtone = "";
+
+        Alarm a = new Alarm(AlarmIdAllocator.NO_ID, time / 60, time % 60, label, enabled == 1, ringtone, vibrate == 1, days);
+
+        String every = field(fields, columnOf, COL_EVERY);
+        if (every != null && !every.isEmpty()) {
+            int minutes;
+            try {
+                minutes = Integer.parseInt(every);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            int until = parseTime(field(fields, columnOf, COL_UNTIL));
+            if (minutes < 1 || minutes > Alarm.MAX_INTERVAL_MINUTES || until < 0) return null;
+            a.setInterval(minutes, until / 60, until % 60);
+        }
+
+        String skip = field(fields, columnOf, COL_SKIP);
+        if (skip != null && !parseSkips(skip, a)) return null;
+        return a;
+    }
+
+    /** Adds each "yyyy-MM-dd" in a space-separated list to the alarm's skips; false if one is malformed. */
+    private static boolean parseSkips(String s, Alarm a) {
+        int i = 0;
+        int n = s.length();
+        while (i < n) {
+            if (s.charAt(i) == ' ') {
+                i++;
+                continue;
+            }
+            int end = s.indexOf(' ', i);
+            if (end < 0) end = n;
+            int day = parseDate(s, i, end);
+            if (day == Integer.MIN_VALUE) return false;
+            a.skip(day);
+            i = end;
+        }
+        return true;
+    }
+
+    /** Local epoch day for "yyyy-MM-dd" in {@code s[from, to)}, or Integer.MIN_VALUE. */
+    private static int parseDate(String s, int from, int to) {
+        if (to - from != 10 || s.charAt(from + 4) != '-' || s.charAt(from + 7) != '-') return Integer.MIN_VALUE;
+        int century = parseSmallInt(s, from, from + 2);
+        int yearOfCentury = parseSmallInt(s, from + 2, from + 4);
+        int month = parseSmallInt(s, from + 5, from + 7);
+        int day = parseSmallInt(s, from + 8, to);
+        if (century < 0 || yearOfCentury < 0) return Integer.MIN_VALUE;
+        int year = century * 100 + yearOfCentury;
+        if (month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)) return Integer.MIN_VALUE;
+        // Days-from-civil, the inverse of appendDate
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400L);
+        long yoe = y - era * 400;
+        long doy = (153L * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return (int) (era * 146_097L + doe - 719_468L);
+    }
+
+    private static int daysInMonth(int year, int month) {
+        if (month == 2) return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+        return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+    }
+
+    /** Group names from a '|'-separated field; empty names are dropped. */
+    private static List<String> parseGroups(String s) {
+        if (s == null || s.isEmpty()) return Collections.emptyList();
+        ArrayList<String> names = new ArrayList<>();
+        for (String name : s.split("\\|")) {
+            name = name.trim();
+            if (!name.isEmpty() && !names.contains(name)) names.add(name);
+        }
+        return names;
+    }
+
+    /** Minute of day for "H:mm" or "HH:mm", or -1. */
+    private static int parseTime(String time) {
+        if (time == null) return -1;
+        int colon = time.indexOf(':');
+        if (colon < 1) return -1;
+        int hour = parseSmallInt(time, 0, colon);
+        int minute = parseSmallInt(time, colon + 1, time.length());
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59) return -1;
+        return hour * 60 + minute;
+    }
+
+    /** The trimmed field for a column slot, or null if the column or field is missing. */
+    private static String field(ArrayList<String> fields, int[] columnOf, int slot) {
+        int i = columnOf[slot];
+        if (i < 0 || i >= fields.size()) return null;
+        return fields.get(i).trim();
+    }
+
+    /** Parses 1-2 ASCII digits in {@code s[from, to)}, or returns -1. */
+    private static int parseSmallInt(String s, int from, int to) {
+        if (to - from < 1 || to - from > 2) return -1;
+        int v = 0;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            v = v * 10 + (c - '0');
+        }
+        return v;
+    }
+
+    /** Days mask for "Mon Wed Fri" (also comma or '|' separated), 0 if empty, -1 if unknown. */
+    private static int parseDays(String s) {
+        if (s == null || s.isEmpty()) return 0;
+        int mask = 0;
+        int i = 0;
+        int n = s.length();
+        while (i < n) {
+            char c = s.charAt(i);
+            if (c == ' ' || c == ',' || c == '|') {
+                i++;
+                continue;
+            }
+            int end = i;
+            while (end < n && Character.isLetter(s.charAt(end))) end++;
+            if (end - i < 3) return -1;
+            int day = dayIndex(s, i);
+            if (day < 0) return -1;
+            mask |= 1 << day;
+            i = end;
+        }
+        return mask;
+    }
+
+    /** Calendar day - 1 for the three-letter abbreviation at {@code s[from]}, or -1. */
+    private static int dayIndex(String s, int from) {
+        for (int d = 0; d < DAY_NAMES.length; d++) {
+            if (s.regionMatches(true, from, DAY_NAMES[d], 0, 3)) return d;
+        }
+        return -1;
+    }
+
+    /** 1 or 0 for a boolean field, {@code def} when empty or missing, -1 if unrecognised. */
+    private static int parseBoolean(String s, boolean def) {
+        if (s == null || s.isEmpty()) return def ? 1 : 0;
+        switch (s.toLowerCase(Locale.ROOT)) {
+            case "true": case "yes": case "1": case "on":
+                return 1;
+            case "false": case "no": case "0": case "off":
+                return 0;
+            default:
+                return -1;
+        }
+    }
+
+    /** RFC 4180 field splitter over a character stream; quoted fields may span lines. */
+    private static final class Tokenizer {
+        private final Reader in;
+        private final char[] buf = new char[8192];
+        private int pos;
+        private int len;
+        private final StringBuilder field = new StringBuilder(64);
+        int line = 1; // line the next row starts on
+
+        Tokenizer(Reader in) {
+            this.in = in;
+        }
+
+        /** Reads the next row into {@code out}; false at end of input. */
+        boolean nextRow(ArrayList<String> out) throws IOException {
+            out.clear();
+            int c = read();
+            if (c < 0) return false;
+
+            field.setLength(0);
+            boolean quoted = false;
+            boolean wasQuoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c < 0) break; // unterminated quote: take what we have
+                    if (c == '"') {
+                        int next = peek();
+                        if (next == '"') {
+                            read();
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                        }
+                    } else {
+                        if (c == '\n') line++;
+                        field.append((char) c);
+                    }
+                } else if (c == '"' && field.length() == 0 && !wasQuoted) {
+                    quoted = true;
+                    wasQuoted = true;
+                } else if (c == ',') {
+                    out.add(field.toString());
+                    field.setLength(0);
+                    wasQuoted = false;
+                } else if (c == '\n' || c == '\r' || c < 0) {
+                    if (c == '\r' && peek() == '\n') read();
+                    if (c >= 0) line++;
+                    break;
+                } else {
+                    field.append((char) c);
+                }
+                c = read();
+            }
+            out.add(field.toString());
+            return true;
+        }
+
+        private int read() throws IOException {
+            if (pos == len && !fill()) return -1;
+            return buf[pos++];
+        }
+
+        private int peek() throws IOException {
+            if (pos == len && !fill()) return -1;
+            return buf[pos];
+        }
+
+        private boolean fill() throws IOException {
+            len = in.read(buf, 0, buf.length);
+            pos = 0;
+            if (len <= 0) {
+                len = 0;
+                return false;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.clockandtimerapp.alarm;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.util.Log;
+
+import com.example.clockandtimerapp.alarm.model.Alarm;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Single-registration scheduling: every enabled alarm sits in a min-heap ordered by
+ * next trigger time, and only the head is registered with AlarmManager. When it fires
+ * the dispatcher pops everything due in that minute, rings it, and re-arms the new head,
+ * so the number of system registrations stays at one however many alarms exist.
+ */
+final class AlarmDispatcher {
+
+    static final String ACTION_DISPATCH = "com.example.alarm.ACTION_DISPATCH";
+
+    private static final String TAG = "AlarmDispatcher";
+    private static final String EXTRA_TRIGGER_AT = AlarmReceiver.EXTRA_TRIGGER_AT;
+    private static final int REQUEST_CODE = AlarmIdAllocator.NO_ID; // never an alarm's own code
+    private static final long MINUTE_MS = 60_000L;
+
+    private static final TriggerHeap heap = new TriggerHeap();
+
+    // What is currently registered with AlarmManager, to skip redundant re-registrations
+    private static long armedTrigger = -1L;
+    private static int armedId = -1;
+
+    private AlarmDispatcher() {}
+
+    /** Rebuilds the heap from the repository and registers its head. */
+    static synchronized void rearm(Context ctx) {
+        rearm(ctx, -1);
+    }
+
+    /** Same as {@link #rearm(Context)}, ignoring {@code excludeId} (an alarm being cancelled). */
+    static synchronized void rearm(Context ctx, int excludeId) {
+        fillHeap(AlarmRepository.get(ctx).getAll(), System.currentTimeMillis(), excludeId);
+        armHead(ctx);
+    }
+
+    /**
+     * Handles the single dispatch broadcast: rings every alarm due this minute, then re-arms.
+     * Blocking (reads the repository); the receiver calls it on the {@code AppStorage} thread.
+     */
+    static synchronized void onDispatch(Context ctx, Intent intent) {
+        long now = System.currentTimeMillis();
+        long firedAt = intent.getLongExtra(EXTRA_TRIGGER_AT, now);
+        DeliveryLog.delivered(ctx, DeliveryLog.DISPATCH_KEY, firedAt, now);
+        long minuteEnd = firedAt - Math.floorMod(firedAt, MINUTE_MS) + MINUTE_MS;
+
+        List<Alarm> all = AlarmRepository.get(ctx).getAll();
+        // Compute triggers from just before the fire time so the due alarms sort to the top
+        fillHeap(all, Math.min(now, firedAt) - 1, -1);
+
+        ArrayList<Alarm> due = new ArrayList<>();
+        ArrayList<long[]> stamps = new ArrayList<>();
+        ArrayList<Integer> spent = new ArrayList<>();
+        NextTriggerCalculator calc = NextTriggerCalculator.forDefaultZone();
+        while (!heap.isEmpty() && heap.peekTrigger() < minuteEnd) {
+            long trigger = heap.peekTrigger();
+            Alarm a = findById(all, heap.pop());
+            if (a != null) {
+                due.add(a);
+                stamps.add(FireLatencyLog.begin(trigger));
+                if (calc.isLastOccurrence(trigger, a)) spent.add(a.id);
+            }
+        }
+
+        // Fired alarms move on to their next occurrence; one-time alarms turn off
+        long after = Math.max(now, minuteEnd - 1);
+        for (Alarm a : due) {
+            if (!spent.contains(a.id)) heap.push(AlarmScheduler.nextTriggerUtcMillis(after, a), a.id);
+        }
+        if (!spent.isEmpty()) AlarmRepository.get(ctx).setEnabled(new ArrayList<>(), spent);
+        armedTrigger = -1L; // the registration that woke us is consumed
+        armHead(ctx);
+        RingtonePrefetcher.rearmAsync(ctx); // plan the prefetch for the new occurrences
+
+        // One ring at a time: the rest of the minute's alarms ring in turn after the first
+        for (int i = 0; i < due.size(); i++) {
+            Alarm a = due.get(i);
+            AlarmReceiver.ring(ctx, a.id, a.label, a.vibrate, a.ringtone, stamps.get(i), i > 0);
+        }
+        AlarmScheduler.pruneSkippedDates(ctx, now);
+    }
+
+    /** Removes the dispatcher's registration (used when leaving dispatcher mode). */
+    static synchronized void cancelAll(Context ctx) {
+        AlarmManager am = (AlarmManager) ctx.getSystemService(Context.ALARM_SERVICE);
+        am.cancel(buildDispatchIntent(ctx, 0L));
+        DeliveryLog.forget(ctx, DeliveryLog.DISPATCH_KEY);
+        heap.clear();
+        armedTrigger = -1L;
+        armedId = -1;
+    }
+
+    // ------- internals -------
+
+    private static void fillHeap(List<Alarm> alarms, long from, int excludeId) {
+        heap.clear();
+        for (Alarm a : alarms) {
+            if (!a.enabled || a.id == excludeId) continue;
+            heap.push(AlarmScheduler.nextTriggerUtcMillis(from, a), a.id);
+        }
+    }
+
+    private static void armHead(Context ctx) {
+        AlarmManager am = (AlarmManager) ctx.getSystemService(Context.ALARM_SERVICE);
+        if (heap.isEmpty()) {
+            am.cancel(buildDispatchIntent(ctx, 0L));
+            DeliveryLog.forget(ctx, DeliveryLog.DISPATCH_KEY);
+            armedTrigger = -1L;
+            armedId = -1;
+            return;
+        }
+
+        long trigger = heap.peekTrigger();
+        int id = heap.peekId();
+        if (trigger == armedTrigger && id == armedId) return; // already registered
+
+        PendingIntent piTrigger = buildDispatchIntent(ctx, trigger);
+        PendingIntent piShow = AlarmScheduler.buildShowIntent(ctx, id);
+        int mode = DeliveryLog.MODE_DISPATCH;
+        try {
+            am.setAlarmClock(new AlarmManager.AlarmClockInfo(trigger, piShow), piTrigger);
+        } catch (SecurityException e) {
+            // Exact alarms denied (API 31+): better late than never
+            Log.w(TAG, "Exact alarm permission missing, arming inexact dispatch", e);
+            am.setAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, trigger, piTrigger);
+            mode = DeliveryLog.MODE_DISPATCH_INEXACT;
+        }
+        DeliveryLog.expect(ctx, DeliveryLog.DISPATCH_KEY, trigger, mode);
+        armedTrigger = trigger;
+        armedId = id;
+    }
+
+    private static PendingIntent buildDispatchIntent(Context ctx, long triggerAt) {
+        Intent i = new Intent(ctx, AlarmReceiver.class);
+        i.setAction(ACTION_DISPATCH);
+        i.putExtra(EXTRA_TRIGGER_AT, triggerAt);
+        int flags = PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE;
+        return PendingIntent.getBroadcast(ctx, REQUEST_CODE, i, flags);
+    }
+
+    private static Alarm findById(List<Alarm> alarms, int id) {
+        for (Alarm a : alarms) {
+            if (a.id == id) return a;
+        }
+        return null;
+    }
+}
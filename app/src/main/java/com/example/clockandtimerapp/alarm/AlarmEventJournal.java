@@ -0,0 +1,236 @@
+package com.example.clockandtimerapp.alarm;
+
+import android.content.Context;
+
+import com.example.clockandtimerapp.alarm.model.Alarm;
+import com.example.clockandtimerapp.utils.AppStorage;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * History of what alarms did: when they fired, and how long they rang before being
+ * snoozed, dismissed or replaced by another alarm.
+ *
+ * Events are fixed-size records in a ring file of {@link #CAPACITY} slots, memory-mapped
+ * once per process, so logging an event is a few stores into the page cache rather than a
+ * file open and write. The oldest events are overwritten once the ring is full. All access
+ * happens on the {@link AppStorage} IO thread: {@link #log} hands the event over and returns
+ * at once, and the queries deliver on the main thread.
+ */
+public final class AlarmEventJournal {
+
+    // Event types
+    static final int FIRED     = 1; // value: delivery lateness in ms, -1 if unknown
+    static final int SNOOZED   = 2; // value: ms the ring lasted
+    static final int DISMISSED = 3; // value: ms the ring lasted
+    static final int REPLACED  = 4; // value: ms the ring lasted before another alarm took over
+
+    static final int CAPACITY = 4096;
+
+    private static final String FILE_NAME = "alarm_events.bin";
+    private static final int MAGIC = 0x414A4E31; // "AJN1"
+    private static final int HEADER_BYTES = 12;  // int magic, int next slot, int filled slots
+    static final int RECORD_BYTES = 20;          // long time, int alarm id, int type, int value
+    static final int FILE_BYTES = HEADER_BYTES + CAPACITY * RECORD_BYTES;
+
+    private static final long WEEK_MS = 7 * 24 * 60 * 60_000L;
+
+    /** Per-alarm figures over the events still in the journal. */
+    public static final class Stats {
+        public final int alarmId;
+        public final int fired;
+        public final int snoozed;
+        public final int dismissed;
+        public final int replaced;            // rings cut short by another alarm firing
+        public final long avgTimeToDismissMs; // ring time before a dismiss, 0 if never dismissed
+        public final double snoozesPerWeek;   // over the span since the alarm's oldest event
+
+        Stats(int alarmId, int fired, int snoozed, int dismissed, int replaced,
+              long avgTimeToDismissMs, double snoozesPerWeek) {
+            this.alarmId = alarmId;
+            this.fired = fired;
+            this.snoozed = snoozed;
+            this.dismissed = dismissed;
+            this.replaced = replaced;
+            this.avgTimeToDismissMs = avgTimeToDismissMs;
+            this.snoozesPerWeek = snoozesPerWeek;
+        }
+
+        @Override
+        public String toString() {
+            return "fired " + fired + ", snoozed " + snoozed
+                    + String.format(Locale.US, " (%.1f/week)", snoozesPerWeek)
+                    + ", dismissed " + dismissed
+                    + (dismissed > 0 ? " after " + formatDuration(avgTimeToDismissMs) + " on average" : "")
+                    + (replaced > 0 ? ", cut short " + replaced + " by another alarm" : "");
+        }
+    }
+
+    private static MappedByteBuffer map; // IO thread only; null until first use or if mapping failed
+
+    private AlarmEventJournal() {}
+
+    /** Appends an event stamped with the current time; never blocks the caller. */
+    static void log(Context ctx, int alarmId, int type, long value) {
+        final Context app = ctx.getApplicationContext();
+        final long now = System.currentTimeMillis();
+        final int v = (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, value));
+        AppStorage.write(() -> {
+            ByteBuffer buf = mapped(app);
+            if (buf != null) append(buf, now, alarmId, type, v);
+        });
+    }
+
+    /** Statistics for one alarm, delivered on the main thread. */
+    public static void loadStats(Context ctx, int alarmId, AppStorage.Callback<Stats> callback) {
+        final Context app = ctx.getApplicationContext();
+        AppStorage.read(() -> {
+            ByteBuffer buf = mapped(app);
+            return buf == null ? null : stats(buf, alarmId, System.currentTimeMillis());
+        }, callback);
+    }
+
+    /** One line per alarm with events, for the diagnostics screen; delivered on the main thread. */
+    public static void loadSummary(Context ctx, AppStorage.Callback<String> callback) {
+        final Context app = ctx.getApplicationContext();
+        AppStorage.read(() -> {
+            ByteBuffer buf = mapped(app);
+            if (buf == null) return "History unavailable.";
+            ArrayList<Stats> all = statsAll(buf, System.currentTimeMillis());
+            if (all.isEmpty()) return "No alarm history yet.";
+            StringBuilder sb = new StringBuilder();
+            AlarmRepository repo = AlarmRepository.get(app);
+            for (Stats st : all) {
+                Alarm a = repo.find(st.alarmId);
+                if (sb.length() > 0) sb.append("\n\n");
+                sb.append(a == null ? "Deleted alarm" : a.displaySubtitle()).append('\n')
+                  .append("  ").append(st);
+            }
+            return sb.toString();
+        }, callback);
+    }
+
+    // ------- ring file -------
+
+    private static MappedByteBuffer mapped(Context app) {
+        if (map != null) return map;
+        File file = new File(app.getFilesDir(), FILE_NAME);
+        // The mapping stays valid after the channel is closed
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw");
+             FileChannel ch = raf.getChannel()) {
+            MappedByteBuffer m = ch.map(FileChannel.MapMode.READ_WRITE, 0, FILE_BYTES);
+            if (m.getInt(0) != MAGIC) reset(m); // new or foreign file
+            map = m;
+        } catch (IOException ignored) {}
+        return map;
+    }
+
+    static void reset(ByteBuffer buf) {
+        buf.putInt(0, MAGIC);
+        buf.putInt(4, 0);
+        buf.putInt(8, 0);
+    }
+
+    static void append(ByteBuffer buf, long time, int alarmId, int type, int value) {
+        int next = buf.getInt(4);
+        int filled = buf.getInt(8);
+        if (next < 0 || next >= CAPACITY) next = 0;
+        filled = Math.max(0, Math.min(CAPACITY, filled));
+
+        int at = HEADER_BYTES + next * RECORD_BYTES;
+        buf.putLong(at, time);
+        buf.putInt(at + 8, alarmId);
+        buf.putInt(at + 12, type);
+        buf.putInt(at + 16, value);
+
+        // Header last, so a torn write loses at most the event being written
+        buf.putInt(8, Math.min(CAPACITY, filled + 1));
+        buf.putInt(4, (next + 1) % CAPACITY);
+    }
+
+    private static int filled(ByteBuffer buf) {
+        return Math.max(0, Math.min(CAPACITY, buf.getInt(8)));
+    }
+
+    // ------- queries -------
+
+    static Stats stats(ByteBuffer buf, int alarmId, long now) {
+        Tally t = new Tally();
+        int filled = filled(buf);
+        for (int i = 0; i < filled; i++) {
+            int at = HEADER_BYTES + i * RECORD_BYTES;
+            if (buf.getInt(at + 8) == alarmId) t.add(buf, at);
+        }
+        return t.toStats(alarmId, now);
+    }
+
+    /** Stats for every alarm with events, in order of first appearance in the file; one pass. */
+    static ArrayList<Stats> statsAll(ByteBuffer buf, long now) {
+        LinkedHashMap<Integer, Tally> tallies = new LinkedHashMap<>();
+        int filled = filled(buf);
+        for (int i = 0; i < filled; i++) {
+            int at = HEADER_BYTES + i * RECORD_BYTES;
+            int id = buf.getInt(at + 8);
+            Tally t = tallies.get(id);
+            if (t == null) {
+                t = new Tally();
+                tallies.put(id, t);
+            }
+            t.add(buf, at);
+        }
+        ArrayList<Stats> out = new ArrayList<>(tallies.size());
+        for (Map.Entry<Integer, Tally> e : tallies.entrySet()) out.add(e.getValue().toStats(e.getKey(), now));
+        return out;
+    }
+
+    /** Running counts for one alarm while scanning the ring. */
+    private static final class Tally {
+        int fired;
+        int snoozed;
+        int dismissed;
+        int replaced;
+        long dismissMsTotal;
+        long oldest = Long.MAX_VALUE;
+
+        void add(ByteBuffer buf, int at) {
+            oldest = Math.min(oldest, buf.getLong(at));
+            switch (buf.getInt(at + 12)) {
+                case FIRED:
+                    fired++;
+                    break;
+                case SNOOZED:
+                    snoozed++;
+                    break;
+                case DISMISSED:
+                    dismissed++;
+                    dismissMsTotal += Math.max(0, buf.getInt(at + 16));
+                    break;
+                case REPLACED:
+                    replaced++;
+                    break;
+            }
+        }
+
+        Stats toStats(int alarmId, long now) {
+            // At least a week, so a single fresh snooze doesn't read as dozens per week
+            double weeks = oldest == Long.MAX_VALUE ? 1.0 : Math.max(1.0, (now - oldest) / (double) WEEK_MS);
+            return new Stats(alarmId, fired, snoozed, dismissed, replaced,
+                    dismissed == 0 ? 0L : dismissMsTotal / dismissed, snoozed / weeks);
+        }
+    }
+
+    static String formatDuration(long ms) {
+        long s = ms / 1000;
+        if (s < 60) return s + "s";
+        return (s / 60) + "m " + (s % 60) + "s";
+    }
+}
@@ -1,14 +1,15 @@
 package com.example.clockandtimerapp.alarm;
 
+import android.app.AlertDialog;
+import android.app.DatePickerDialog;
 import android.content.Context;
 import android.content.Intent;
-import android.net.Uri;
-import android.os.Build;
 import android.os.Bundle;
-import android.provider.Settings;
+import android.view.ContextThemeWrapper;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.EditText;
 import android.widget.TextView; // Added for empty view
 import android.widget.Toast;
 
@@ -22,18 +23,26 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.clockandtimerapp.R;
 import com.example.clockandtimerapp.alarm.model.Alarm;
+import com.example.clockandtimerapp.alarm.model.AlarmSnapshot;
 import com.example.clockandtimerapp.alarm.ui.AlarmAdapter;
+import com.example.clockandtimerapp.utils.AppStorage;
+import com.example.clockandtimerapp.utils.TimeFormatters;
 
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.List; // Added for explicit List type
+import java.util.Set;
+import java.util.TreeMap;
 
-public class AlarmFragment extends Fragment implements AlarmAdapter.Callbacks {
+public class AlarmFragment extends Fragment implements AlarmAdapter.Callbacks, AlarmRepository.Listener {
 
-    private final ArrayList<Alarm> alarms = new ArrayList<>();
+    // What the list shows; snapshots, so nothing here is edited in place
+    private final ArrayList<AlarmSnapshot> alarms = new ArrayList<>();
+    private AlarmRepository repository;
     private AlarmAdapter adapter;
+    private boolean alarmsLoaded; // false until the first load from storage completes
     private View rootView;
     private TextView noAlarmsMessage; // Added
 
@@ -57,28 +66,37 @@ public class AlarmFragment extends Fragment implements AlarmAdapter.Callbacks {
                     String tone = data.getStringExtra("ringtone");
                     if (tone == null) tone = "";
 
-                    String day = data.getStringExtra("day");
-                    int dayOfWeek = mapDayToCalendar(day);
-
-                    // NEW: DUPLICATE CHECK IMPLEMENTATION
-                    if (AlarmStorage.isDuplicate(requireContext(), hour, minute, dayOfWeek)) {
-                        Toast.makeText(requireContext(),
-                                "Alarm already exists for this time and day.",
-                                Toast.LENGTH_LONG).show();
-                        return; // Do not save or schedule the duplicate alarm
-                    }
-                    // END DUPLICATE CHECK
-
-                    int id = AlarmStorage.nextId(requireContext());
-
-                    // NOTE: Constructor arguments must match Alarm model exactly (id, hour, minute, label, enabled, tone, vibrate, dayOfWeek)
-                    Alarm a = new Alarm(id, hour, minute, label, true, tone, vibrate, dayOfWeek);
-
-                    alarms.add(a);
-                    AlarmStorage.save(requireContext(), alarms);
-                    AlarmScheduler.schedule(requireContext(), a);
-                    adapter.submit(new ArrayList<>(alarms));
-                    updateEmptyView(); // Added
+                    int daysMask = data.getIntExtra("daysMask", 0);
+                    int every = data.getIntExtra("intervalMinutes", 0);
+                    int endHour = data.getIntExtra("endHour24", 0);
+                    int endMinute = data.getIntExtra("endMinute", 0);
+
+                    // The duplicate check reads the repository, and ids come from the allocator,
+                    // which may persist a new block: both run off the main thread
+                    Context appContext = requireContext().getApplicationContext();
+                    AlarmRepository repo = repository;
+                    final String finalTone = tone;
+
+                    // NEW: DUPLICATE CHECK IMPLEMENTATION (interval rules are never duplicates)
+                    AppStorage.read(() -> every > 0 ? null : repo.findConflict(hour, minute, daysMask), conflict -> {
+                        if (conflict != null) {
+                            Toast.makeText(appContext,
+                                    "\"" + conflict.displaySubtitle() + "\" already rings at this time on that day.",
+                                    Toast.LENGTH_LONG).show();
+                            return; // Do not save or schedule the duplicate alarm
+                        }
+                        // END DUPLICATE CHECK
+
+                        AppStorage.read(() -> AlarmStorage.nextId(appContext), id -> {
+                            // NOTE: Constructor arguments must match Alarm model exactly (id, hour, minute, label, enabled, tone, vibrate, daysMask)
+                            Alarm a = new Alarm(id, hour, minute, label, true, finalTone, vibrate, daysMask);
+                            a.setInterval(every, endHour, endMinute); // one record for the whole rule
+
+                            // List/adapter refresh arrives through onAlarmsChanged
+                            repo.add(a);
+                            AlarmScheduler.schedule(appContext, a);
+                        });
+                    });
                 }
             });
 
@@ -105,12 +123,14 @@ public class AlarmFragment extends Fragment implements AlarmAdapter.Callbacks {
                     String tone = data.getStringExtra("ringtone");
                     if (tone == null) tone = "";
 
-                    String day = data.getStringExtra("day");
-                    int dayOfWeek = mapDayToCalendar(day);
+                    int daysMask = data.getIntExtra("daysMask", 0);
+                    int every = data.getIntExtra("intervalMinutes", 0);
+                    int endHour = data.getIntExtra("endHour24", 0);
+                    int endMinute = data.getIntExtra("endMinute", 0);
 
-                    int idx = findIndexById(editId);
-                    if (idx >= 0) {
-                        Alarm a = alarms.get(idx);
+                    AlarmSnapshot current = findById(editId);
+                    if (current != null) {
+                        Alarm a = current.toAlarm();
                         a.hour24 = hour >= 0 ? hour : a.hour24;
                         a.minute = minute >= 0 ? minute : a.minute;
 
@@ -118,30 +138,15 @@ public class AlarmFragment extends Fragment implements AlarmAdapter.Callbacks {
                         a.label = label;
                         a.vibrate = vibrate;
                         a.ringtone = tone;
-                        a.dayOfWeek = dayOfWeek;
+                        a.daysMask = daysMask;
+                        a.setInterval(every, endHour, endMinute);
 
-                        // 1. Save the updated list to storage
-                        AlarmStorage.save(requireContext(), alarms);
+                        // 1. Persist only the edited alarm (the list refreshes via onAlarmsChanged)
+                        repository.update(a);
 
                         // 2. Re-schedule or cancel the alarm
                         AlarmScheduler.cancel(requireContext(), a);
                         if (a.enabled) AlarmScheduler.schedule(requireContext(), a);
-
-                        if (getActivity() != null) {
-                            getActivity().runOnUiThread(() -> {
-                                // 1. Reload the latest data
-                                alarms.clear();
-                                alarms.addAll(AlarmStorage.load(requireContext()));
-
-                                // 2. Submit the new list object to the adapter
-                                adapter.submit(new ArrayList<>(alarms));
-
-                                // Optional (but safe) check if the RecyclerView itself is available
-                                // This ensures the list redraws even if DiffUtil is slow.
-                                adapter.notifyDataSetChanged();
-                                updateEmptyView(); // Added
-                            });
-                        }
                     }
                 }
             });
@@ -170,24 +175,19 @@ public class AlarmFragment extends Fragment implements AlarmAdapter.Callbacks {
             adapter = new AlarmAdapter(this);
             rv.setAdapter(adapter);
 
-            // Load saved alarms
+            // Load saved alarms on the storage thread; the list fills in when they arrive
+            repository = AlarmRepository.get(requireContext());
             alarms.clear();
-            alarms.addAll(AlarmStorage.load(requireContext()));
-
-            // Seed once (first install)
-            if (!AlarmStorage.isInitialized(requireContext())) {
-                if (alarms.isEmpty()) {
-                    int id = AlarmStorage.nextId(requireContext());
-                    Alarm seed = new Alarm(id, 4, 30, "Morning Alarm | Sunday", true, "", false, Calendar.SUNDAY);
-                    alarms.add(seed);
-                    AlarmStorage.save(requireContext(), alarms);
-                }
-                AlarmStorage.setInitialized(requireContext());
-            }
-
-            adapter.submit(new ArrayList<>(alarms));
-            updateEmptyView(); // Added: Initial check
-            checkAndRequestOverlayPermission();
+            alarmsLoaded = false;
+            adapter.submit(new ArrayList<>());
+            updateEmptyView(); // hidden while loading
+            Context appContext = requireContext().getApplicationContext();
+            AppStorage.read(() -> loadOrSeed(appContext), loaded -> {
+                if (getView() == null) return; // view destroyed while loading
+                alarmsLoaded = true;
+                onAlarmsChanged(loaded);
+            });
+            repository.addListener(this);
         } else {
             Toast.makeText(requireContext(), "Error: Alarm List (R.id.alarmList) not found in layout!", Toast.LENGTH_LONG).show();
             return;
@@ -202,13 +202,47 @@ public class AlarmFragment extends Fragment implements AlarmAdapter.Callbacks {
         } else {
             Toast.makeText(requireContext(), "Warning: Add Alarm Button (R.id.fab) not found in layout!", Toast.LENGTH_LONG).show();
         }
+
+        // --- 3. ALARM GROUPS: switch sets of alarms on and off together ---
+        FloatingActionButton fabGroups = view.findViewById(R.id.fabGroups);
+        if (fabGroups != null) fabGroups.setOnClickListener(v -> showGroupsDialog());
+    }
+
+    /** Runs on the storage thread: reads the alarm list, seeding it once on first install. */
+    private List<Alarm> loadOrSeed(Context ctx) {
+        if (!AlarmStorage.isInitialized(ctx)) {
+            if (repository.size() == 0) {
+                int id = AlarmStorage.nextId(ctx);
+                Alarm seed = new Alarm(id, 4, 30, "Morning Alarm | Sunday", true, "", false, Alarm.maskForDay(Calendar.SUNDAY));
+                repository.add(seed);
+            }
+            AlarmStorage.setInitialized(ctx);
+        }
+        return repository.getAll();
     }
+
     @Override
-    public void onToggle(int position, boolean on) {
-        if (position >= 0 && position < alarms.size()) {
-            Alarm a = alarms.get(position);
+    public void onDestroyView() {
+        if (repository != null) repository.removeListener(this);
+        super.onDestroyView();
+    }
+
+    @Override
+    public void onAlarmsChanged(List<Alarm> latest) {
+        if (adapter == null || !alarmsLoaded) return;
+        alarms.clear();
+        for (Alarm a : latest) alarms.add(AlarmSnapshot.of(a));
+        adapter.submit(new ArrayList<>(alarms)); // diffed off the main thread by ListAdapter
+        updateEmptyView();
+    }
+
+    @Override
+    public void onToggle(int alarmId, boolean on) {
+        AlarmSnapshot current = findById(alarmId);
+        if (current != null) {
+            Alarm a = current.toAlarm();
             a.enabled = on;
-            AlarmStorage.save(requireContext(), alarms);
+            repository.update(a);
 
             // Check for permission before scheduling
             if (on) {
@@ -220,20 +254,19 @@ public class AlarmFragment extends Fragment implements AlarmAdapter.Callbacks {
     }
 
     @Override
-    public void onDelete(int position) {
-        if (position >= 0 && position < alarms.size()) {
-            Alarm a = alarms.remove(position);
+    public void onDelete(int alarmId) {
+        AlarmSnapshot current = findById(alarmId);
+        if (current != null) {
+            Alarm a = current.toAlarm();
             AlarmScheduler.cancel(requireContext(), a);
-            AlarmStorage.save(requireContext(), alarms);
-            adapter.submit(new ArrayList<>(alarms));
-            updateEmptyView(); // Added
+            repository.remove(a.id);
         }
     }
 
     @Override
-    public void onEdit(int position) {
-        if (position < 0 || position >= alarms.size()) return;
-        Alarm a = alarms.get(position);
+    public void onEdit(int alarmId) {
+        AlarmSnapshot a = findById(alarmId);
+        if (a == null) return;
 
         // Intent to launch EditAlarmActivity for editing
         Intent i = new Intent(requireContext(), EditAlarmActivity.class);
@@ -244,76 +277,222 @@ public class AlarmFragment extends Fragment implements AlarmAdapter.Callbacks {
         i.putExtra("label", a.label);
         i.putExtra("vibrate", a.vibrate);
         i.putExtra("ringtone", a.ringtone);
-        i.putExtra("day", mapCalendarToDayString(a.dayOfWeek));
+        i.putExtra("daysMask", a.daysMask);
+        i.putExtra("intervalMinutes", a.intervalMinutes);
+        i.putExtra("endHour24", a.endHour24);
+        i.putExtra("endMinute", a.endMinute);
         editExistingLauncher.launch(i);
     }
 
-    private void updateEmptyView() {
-        if (noAlarmsMessage != null) {
-            if (alarms.isEmpty()) {
-                noAlarmsMessage.setVisibility(View.VISIBLE);
-            } else {
-                noAlarmsMessage.setVisibility(View.GONE);
+    // -------------------------------------------------------------------------
+    // SKIPPED DATES
+    // -------------------------------------------------------------------------
+    @Override
+    public void onSkipDates(int alarmId) {
+        AlarmSnapshot current = findById(alarmId);
+        if (current == null) return;
+        String[] actions = current.skipDays.length == 0
+                ? new String[]{"Skip next occurrence", "Skip a date…"}
+                : new String[]{"Skip next occurrence", "Skip a date…", "Clear skipped dates"};
+        new AlertDialog.Builder(themed())
+                .setTitle(current.label)
+                .setItems(actions, (dialog, which) -> {
+                    AlarmSnapshot latest = findById(alarmId);
+                    if (latest == null) return; // deleted meanwhile
+                    Alarm a = latest.toAlarm();
+                    switch (which) {
+                        case 0:
+                            NextTriggerCalculator calc = NextTriggerCalculator.forDefaultZone();
+                            long next = calc.nextFor(System.currentTimeMillis(), a);
+                            skipDate(a, calc.occurrenceDay(next, a));
+                            break;
+                        case 1:
+                            showSkipDatePicker(alarmId);
+                            break;
+                        default:
+                            a.clearSkips();
+                            saveSkips(a);
+                            Toast.makeText(requireContext(), "Skipped dates cleared.", Toast.LENGTH_SHORT).show();
+                            break;
+                    }
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    private void showSkipDatePicker(int alarmId) {
+        Calendar today = Calendar.getInstance();
+        DatePickerDialog picker = new DatePickerDialog(themed(), (view, year, month, day) -> {
+            AlarmSnapshot latest = findById(alarmId);
+            if (latest == null) return;
+            // Epoch days are local dates: count them on the zone-free wall clock
+            Calendar c = Calendar.getInstance(TimeFormatters.zone(TimeFormatters.WALL_CLOCK_ZONE));
+            c.clear();
+            c.set(year, month, day);
+            Alarm a = latest.toAlarm();
+            if (!a.repeatsOn(c.get(Calendar.DAY_OF_WEEK))) {
+                Toast.makeText(requireContext(), "This alarm doesn't ring on that day.", Toast.LENGTH_SHORT).show();
+                return;
             }
-        }
+            skipDate(a, (int) Math.floorDiv(c.getTimeInMillis(), 86_400_000L));
+        }, today.get(Calendar.YEAR), today.get(Calendar.MONTH), today.get(Calendar.DAY_OF_MONTH));
+        picker.getDatePicker().setMinDate(today.getTimeInMillis());
+        picker.show();
     }
 
-    private int findIndexById(int id){
-        for (int i = 0; i < alarms.size(); i++) {
-            if (alarms.get(i).id == id) return i;
-        }
-        return -1;
+    private void skipDate(Alarm a, int epochDay) {
+        a.skip(epochDay);
+        saveSkips(a);
+        Toast.makeText(requireContext(),
+                "Skipping " + TimeFormatters.formatLocalDate("EEE d MMM", epochDay) + ".",
+                Toast.LENGTH_SHORT).show();
+    }
+
+    /** One record write; the re-registration passes over the skipped dates. */
+    private void saveSkips(Alarm a) {
+        repository.update(a);
+        AlarmScheduler.cancel(requireContext(), a);
+        if (a.enabled) AlarmScheduler.schedule(requireContext(), a);
     }
 
-    private int mapDayToCalendar(String day){
-        if (day == null) return -1;
-        switch (day.toLowerCase()) {
-            case "sunday": return Calendar.SUNDAY;
-            case "monday": return Calendar.MONDAY;
-            case "tuesday": return Calendar.TUESDAY;
-            case "wednesday": return Calendar.WEDNESDAY;
-            case "thursday": return Calendar.THURSDAY;
-            case "friday": return Calendar.FRIDAY;
-            case "saturday": return Calendar.SATURDAY;
-            default: return -1;
+    // -------------------------------------------------------------------------
+    // ALARM GROUPS
+    // -------------------------------------------------------------------------
+    private void showGroupsDialog() {
+        // Group membership lives in preferences: read it on the storage thread
+        Context appContext = requireContext().getApplicationContext();
+        AppStorage.read(() -> AlarmGroups.sizes(appContext), sizes -> {
+            if (getView() == null) return; // view destroyed while loading
+            showGroupsDialog(sizes);
+        });
+    }
+
+    private void showGroupsDialog(TreeMap<String, Integer> sizes) {
+        List<String> names = new ArrayList<>(sizes.keySet());
+        String[] items = new String[names.size() + 1];
+        for (int i = 0; i < names.size(); i++) {
+            items[i] = names.get(i) + " (" + sizes.get(names.get(i)) + ")";
         }
+        items[names.size()] = "New group…";
+
+        new AlertDialog.Builder(themed())
+                .setTitle("Alarm groups")
+                .setItems(items, (dialog, which) -> {
+                    if (which == names.size()) {
+                        showGroupNameDialog();
+                    } else {
+                        showGroupActionsDialog(names.get(which));
+                    }
+                })
+                .setNegativeButton("Close", null)
+                .show();
+    }
+
+    private void showGroupActionsDialog(String name) {
+        String[] actions = {"Switch to this group", "Turn all on", "Turn all off", "Choose alarms", "Delete group"};
+        new AlertDialog.Builder(themed())
+                .setTitle(name)
+                .setItems(actions, (dialog, which) -> {
+                    Context ctx = requireContext();
+                    switch (which) {
+                        case 0:
+                            AlarmGroups.apply(ctx, name, true, true, this::reportGroupChange);
+                            break;
+                        case 1:
+                            AlarmGroups.apply(ctx, name, true, false, this::reportGroupChange);
+                            break;
+                        case 2:
+                            AlarmGroups.apply(ctx, name, false, false, this::reportGroupChange);
+                            break;
+                        case 3:
+                            showGroupMembersDialog(name);
+                            break;
+                        default:
+                            Context appContext = ctx.getApplicationContext();
+                            AppStorage.write(() -> AlarmGroups.delete(appContext, name));
+                            break;
+                    }
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
     }
 
-    private String mapCalendarToDayString(int dayOfWeek){
-        switch (dayOfWeek){
-            case Calendar.SUNDAY: return "Sunday";
-            case Calendar.MONDAY: return "Monday";
-            case Calendar.TUESDAY: return "Tuesday";
-            case Calendar.WEDNESDAY: return "Wednesday";
-            case Calendar.THURSDAY: return "Thursday";
-            case Calendar.FRIDAY: return "Friday";
-            case Calendar.SATURDAY: return "Saturday";
-            default: return null;
+    private void showGroupNameDialog() {
+        EditText input = new EditText(themed());
+        input.setHint("e.g. Workweek");
+        input.setSingleLine(true);
+        new AlertDialog.Builder(themed())
+                .setTitle("New group")
+                .setView(input)
+                .setPositiveButton("Next", (dialog, which) -> {
+                    String name = input.getText().toString().trim();
+                    if (name.isEmpty()) return;
+                    showGroupMembersDialog(name);
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    private void showGroupMembersDialog(String name) {
+        if (alarms.isEmpty()) {
+            Toast.makeText(requireContext(), "Add an alarm first.", Toast.LENGTH_SHORT).show();
+            return;
         }
+        Context appContext = requireContext().getApplicationContext();
+        AppStorage.read(() -> AlarmGroups.members(appContext, name), current -> {
+            if (getView() == null) return; // view destroyed while loading
+            showGroupMembersDialog(name, current);
+        });
     }
-    private final ActivityResultLauncher<Intent> overlayPermissionLauncher =
-            registerForActivityResult(new ActivityResultContracts.StartActivityForResult(), result -> {
-                // The user is redirected back here after attempting to grant the permission.
-                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-                    if (!Settings.canDrawOverlays(requireContext())) {
-                        Toast.makeText(requireContext(), "Alarm screen display is disabled.", Toast.LENGTH_LONG).show();
-                    } else {
-                        Toast.makeText(requireContext(), "Overlay permission granted.", Toast.LENGTH_SHORT).show();
+
+    private void showGroupMembersDialog(String name, Set<Integer> current) {
+        Context appContext = requireContext().getApplicationContext();
+        String[] labels = new String[alarms.size()];
+        boolean[] checked = new boolean[alarms.size()];
+        for (int i = 0; i < alarms.size(); i++) {
+            AlarmSnapshot a = alarms.get(i);
+            labels[i] = TimeFormatters.formatWallTime("hh:mm a", a.hour24, a.minute) + "  " + a.label;
+            checked[i] = current.contains(a.id);
+        }
+        new AlertDialog.Builder(themed())
+                .setTitle(name)
+                .setMultiChoiceItems(labels, checked, (dialog, which, isChecked) -> checked[which] = isChecked)
+                .setPositiveButton("Save", (dialog, which) -> {
+                    ArrayList<Integer> ids = new ArrayList<>();
+                    for (int i = 0; i < checked.length; i++) {
+                        if (checked[i]) ids.add(alarms.get(i).id);
                     }
-                }
-            });
+                    AppStorage.write(() -> AlarmGroups.save(appContext, name, ids));
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    private void reportGroupChange(int changed) {
+        if (!isAdded()) return; // the batch still applies; only the toast is dropped
+        String msg = changed == 0 ? "No alarms changed."
+                : changed + (changed == 1 ? " alarm changed." : " alarms changed.");
+        Toast.makeText(requireContext(), msg, Toast.LENGTH_SHORT).show();
+    }
 
-    // Add this helper method
-    private void checkAndRequestOverlayPermission() {
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-            if (!Settings.canDrawOverlays(requireContext())) {
-                // Permission is not granted, request it
-                Intent intent = new Intent(Settings.ACTION_MANAGE_OVERLAY_PERMISSION,
-                        Uri.parse("package:" + requireContext().getPackageName()));
+    private ContextThemeWrapper themed() {
+        return new ContextThemeWrapper(requireContext(), R.style.AlertDialogDarkTheme);
+    }
 
-                // NOTE: The request code is no longer needed with ActivityResultLauncher
-                overlayPermissionLauncher.launch(intent);
+    private void updateEmptyView() {
+        if (noAlarmsMessage != null) {
+            if (alarmsLoaded && alarms.isEmpty()) {
+                noAlarmsMessage.setVisibility(View.VISIBLE);
+            } else {
+                noAlarmsMessage.setVisibility(View.GONE);
             }
         }
     }
-}
\ No newline at end of file
+
+    private AlarmSnapshot findById(int id){
+        for (AlarmSnapshot a : alarms) {
+            if (a.id == id) return a;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.clockandtimerapp.alarm;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import com.example.clockandtimerapp.alarm.model.Alarm;
+import com.example.clockandtimerapp.utils.AppStorage;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Named sets of alarms ("Workweek", "Weekend", "Travel") that are switched on and off
+ * together. Membership is kept beside the alarms, not in them: group name -> alarm ids.
+ * An alarm may be in several groups; ids of deleted alarms are ignored and pruned on the
+ * next save. Turning a group on or off goes through {@link AlarmRepository#setEnabled}
+ * and {@link AlarmScheduler#applyEnabledChanges}, one write and one reconciliation per batch.
+ *
+ * Everything but {@link #apply} reads the preferences or the repository and blocks: call
+ * it on the {@code AppStorage} thread.
+ */
+public final class AlarmGroups {
+
+    private static final String PREFS = "alarm_groups";
+
+    private static TreeMap<String, HashSet<Integer>> cache; // null until first access
+
+    private AlarmGroups() {}
+
+    /** Group names in alphabetical order. */
+    public static synchronized List<String> names(Context ctx) {
+        return new ArrayList<>(loaded(ctx).keySet());
+    }
+
+    /** Member count per group, in name order. */
+    public static synchronized TreeMap<String, Integer> sizes(Context ctx) {
+        TreeMap<String, Integer> out = new TreeMap<>();
+        for (Map.Entry<String, HashSet<Integer>> e : loaded(ctx).entrySet()) {
+            out.put(e.getKey(), e.getValue().size());
+        }
+        return out;
+    }
+
+    /** Copy of a group's alarm ids; empty for an unknown group. */
+    public static synchronized Set<Integer> members(Context ctx, String name) {
+        HashSet<Integer> ids = loaded(ctx).get(name);
+        return ids == null ? new HashSet<>() : new HashSet<>(ids);
+    }
+
+    /** Creates or replaces a group. */
+    public static synchronized void save(Context ctx, String name, Collection<Integer> alarmIds) {
+        HashSet<Integer> ids = new HashSet<>();
+        AlarmRepository repo = AlarmRepository.get(ctx);
+        for (Integer id : alarmIds) {
+            if (repo.find(id) != null) ids.add(id);
+        }
+        loaded(ctx).put(name, ids);
+
+        HashSet<String> stored = new HashSet<>(ids.size() * 2);
+        for (Integer id : ids) stored.add(String.valueOf(id));
+        prefs(ctx).edit().putStringSet(name, stored).apply();
+    }
+
+    /** Adds alarms to a group, creating it if needed. */
+    public static synchronized void addMembers(Context ctx, String name, Collection<Integer> alarmIds) {
+        Set<Integer> ids = members(ctx, name);
+        ids.addAll(alarmIds);
+        save(ctx, name, ids);
+    }
+
+    public static synchronized void delete(Context ctx, String name) {
+        if (loaded(ctx).remove(name) == null) return;
+        prefs(ctx).edit().remove(name).apply();
+    }
+
+    /**
+     * Turns a group's alarms on or off. With {@code exclusive}, alarms that belong only to
+     * other groups are turned off in the same batch (switching profiles). Call on the main
+     * thread: the flips are made on the {@code AppStorage} thread, then scheduled back on
+     * the main thread, where it may prompt for the exact-alarm permission. {@code callback}
+     * gets how many alarms changed state.
+     */
+    public static void apply(Context ctx, String name, boolean enable, boolean exclusive,
+                             AppStorage.Callback<Integer> callback) {
+        final Context app = ctx.getApplicationContext();
+        AppStorage.read(() -> flip(app, name, enable, exclusive), changed -> {
+            AlarmScheduler.applyEnabledChanges(ctx, changed);
+            if (callback != null) callback.onResult(changed.size());
+        });
+    }
+
+    /** The repository half of {@link #apply}; returns the alarms whose state changed. */
+    private static List<Alarm> flip(Context ctx, String name, boolean enable, boolean exclusive) {
+        Set<Integer> mine = members(ctx, name);
+        ArrayList<Integer> others = new ArrayList<>();
+        if (enable && exclusive) {
+            for (String other : names(ctx)) {
+                if (!other.equals(name)) others.addAll(members(ctx, other));
+            }
+        }
+
+        AlarmRepository repo = AlarmRepository.get(ctx);
+        return enable
+                ? repo.setEnabled(mine, others)
+                : repo.setEnabled(new ArrayList<>(), mine);
+    }
+
+    private static TreeMap<String, HashSet<Integer>> loaded(Context ctx) {
+        if (cache == null) {
+            cache = new TreeMap<>();
+            for (Map.Entry<String, ?> e : prefs(ctx).getAll().entrySet()) {
+                if (!(e.getValue() instanceof Set)) continue;
+                HashSet<Integer> ids = new HashSet<>();
+                for (Object v : (Set<?>) e.getValue()) {
+                    try {
+                        ids.add(Integer.parseInt(String.valueOf(v)));
+                    } catch (NumberFormatException ignored) {}
+                }
+                cache.put(e.getKey(), ids);
+            }
+        }
+        return cache;
+    }
+
+    private static SharedPreferences prefs(Context ctx) {
+        return ctx.getApplicationContext().getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.clockandtimerapp.alarm;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+/**
+ * Thread-safe source of alarm ids.
+ *
+ * Ids are reserved from storage in blocks: one synchronous write persists the new
+ * high-water mark, then the ids below it are handed out from memory. A crash can skip
+ * the rest of a block but can never hand out an id twice. Ids stay below
+ * {@link AlarmRequestCodes#MAX_ALARM_ID} so every request code derived from them is unique.
+ */
+public final class AlarmIdAllocator {
+
+    /** Never a valid alarm id; used where an intent carries no id. */
+    public static final int NO_ID = 0;
+
+    static final int BLOCK_SIZE = 32;
+
+    private static final String PREFS = "alarms_prefs";
+    private static final String KEY_HIGH_WATER = "id_high_water"; // highest reserved id
+    private static final String KEY_LEGACY_NEXT_ID = "next_id";
+
+    private static AlarmIdAllocator instance;
+
+    private final SharedPreferences prefs;
+
+    // Guarded by this: next id to hand out and the last id of the current block
+    private int next;
+    private int reservedEnd;
+
+    public static synchronized AlarmIdAllocator get(Context ctx) {
+        if (instance == null) instance = new AlarmIdAllocator(ctx.getApplicationContext());
+        return instance;
+    }
+
+    private AlarmIdAllocator(Context appContext) {
+        prefs = appContext.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        // Older versions kept the next id itself; everything below it may be in use
+        int highWater = prefs.getInt(KEY_HIGH_WATER, prefs.getInt(KEY_LEGACY_NEXT_ID, 1) - 1);
+        next = highWater + 1;
+        reservedEnd = highWater;
+    }
+
+    /** Returns an id no other alarm has been given. */
+    public synchronized int next() {
+        if (next > reservedEnd) reserve(next + BLOCK_SIZE - 1);
+        return next++;
+    }
+
+    /**
+     * Reserves {@code count} consecutive ids with a single write and returns the first,
+     * for bulk inserts that would otherwise persist a new block every {@value #BLOCK_SIZE} ids.
+     */
+    public synchronized int nextRange(int count) {
+        if (count <= 0) throw new IllegalArgumentException("count must be positive");
+        int first = next;
+        int last = first + count - 1;
+        if (last > reservedEnd) reserve(last + BLOCK_SIZE);
+        next = last + 1;
+        return first;
+    }
+
+    /** Makes sure ids up to {@code id} are never handed out (e.g. after loading or importing alarms). */
+    public synchronized void ensureAbove(int id) {
+        if (id < next) return;
+        if (id > reservedEnd) reserve(id);
+        next = id + 1;
+    }
+
+    private void reserve(int end) {
+        if (end > AlarmRequestCodes.MAX_ALARM_ID) {
+            throw new IllegalStateException("Alarm id space exhausted");
+        }
+        // commit(), not apply(): the block must be on disk before any of its ids is used
+        prefs.edit().putInt(KEY_HIGH_WATER, end).remove(KEY_LEGACY_NEXT_ID).commit();
+        reservedEnd = end;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.clockandtimerapp.alarm;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+
+import com.example.clockandtimerapp.utils.AppStorage;
+
+/**
+ * Restores alarm registrations after events that drop or invalidate them: reboot,
+ * app update, and wall-clock or time zone changes. The rebuild runs on the
+ * {@code AppStorage} thread inside the broadcast's goAsync() window.
+ */
+public class AlarmRearmReceiver extends BroadcastReceiver {
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        String action = intent.getAction();
+        if (action == null) return;
+
+        final boolean registrationsLost;
+        final String reason;
+        switch (action) {
+            case Intent.ACTION_BOOT_COMPLETED:
+                registrationsLost = true;
+                reason = "boot";
+                break;
+            case Intent.ACTION_TIMEZONE_CHANGED:
+                NextTriggerCalculator.invalidateDefaultZone();
+                registrationsLost = false;
+                reason = "time zone change";
+                break;
+            case Intent.ACTION_TIME_CHANGED:
+                registrationsLost = false;
+                reason = "clock change";
+                break;
+            case Intent.ACTION_MY_PACKAGE_REPLACED:
+                registrationsLost = false;
+                reason = "app update";
+                break;
+            default:
+                return;
+        }
+
+        final Context appContext = context.getApplicationContext();
+        final PendingResult pending = goAsync();
+        AppStorage.write(() -> {
+            try {
+                AlarmRebuilder.rebuild(appContext, registrationsLost, reason);
+            } finally {
+                pending.finish();
+            }
+        });
+    }
+}
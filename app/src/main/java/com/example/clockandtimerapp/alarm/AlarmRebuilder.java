@@ -0,0 +1,149 @@
+package com.example.clockandtimerapp.alarm;
+
+import android.app.AlarmManager;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.example.clockandtimerapp.alarm.model.Alarm;
+
+import java.text.DateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Bulk re-registration of every enabled alarm after boot, a clock change or a zone change.
+ *
+ * The alarm set is loaded once and every next trigger is computed in a single pass, then
+ * reconciled against {@link AlarmRegistrations}: alarms whose trigger is unchanged are left
+ * alone, changed ones are re-registered and stale ones cancelled. Runs on the {@code AppStorage} thread.
+ * Registrations that came due while lost (powered off) are logged as missed by {@link DeliveryLog}.
+ * The last outcome is kept for the diagnostics screen, see {@link #lastRebuild}.
+ */
+final class AlarmRebuilder {
+
+    private static final String TAG = "AlarmRebuilder";
+
+    private static final String PREFS = "alarm_rebuild";
+    private static final String KEY_AT = "at";
+    private static final String KEY_REASON = "reason";
+    private static final String KEY_RESULT = "result";
+
+    /** Outcome of one rebuild, for logging and diagnostics. */
+    static final class Result {
+        final int enabled;      // enabled alarms considered
+        final int armed;        // registrations made
+        final int unchanged;    // registrations already correct
+        final int cancelled;    // stale registrations removed
+        final long elapsedMs;
+
+        Result(int enabled, int armed, int unchanged, int cancelled, long elapsedMs) {
+            this.enabled = enabled;
+            this.armed = armed;
+            this.unchanged = unchanged;
+            this.cancelled = cancelled;
+            this.elapsedMs = elapsedMs;
+        }
+
+        @Override
+        public String toString() {
+            return "re-armed " + armed + " of " + enabled + " enabled alarms ("
+                    + unchanged + " unchanged, " + cancelled + " cancelled) in " + elapsedMs + " ms";
+        }
+    }
+
+    private AlarmRebuilder() {}
+
+    /**
+     * Call on the {@code AppStorage} thread.
+     *
+     * @param registrationsLost true after a reboot, when AlarmManager holds nothing and
+     *                          every enabled alarm must be registered again
+     * @param reason            what triggered the rebuild, shown in diagnostics
+     */
+    static Result rebuild(Context ctx, boolean registrationsLost, String reason) {
+        long start = SystemClock.elapsedRealtime();
+        AlarmScheduler.pruneSkippedDates(ctx, System.currentTimeMillis());
+        List<Alarm> alarms = AlarmRepository.get(ctx).getAll();
+        int enabled = 0;
+        for (Alarm a : alarms) {
+            if (a.enabled) enabled++;
+        }
+
+        Result result;
+        if (AlarmScheduler.isDispatcherMode(ctx)) {
+            if (registrationsLost) AlarmDispatcher.cancelAll(ctx); // forget the stale in-memory head
+            AlarmDispatcher.rearm(ctx);
+            result = new Result(enabled, enabled == 0 ? 0 : 1, 0, 0, SystemClock.elapsedRealtime() - start);
+        } else {
+            result = reconcile(ctx, alarms, enabled, registrationsLost, start);
+        }
+        WakeupQueue.rebuild(ctx, registrationsLost); // pending snoozes
+        RingtonePrefetcher.rearm(ctx); // the prefetch wake-up is lost on reboot too
+        Log.i(TAG, reason + ": " + result);
+        prefs(ctx).edit()
+                .putLong(KEY_AT, System.currentTimeMillis())
+                .putString(KEY_REASON, reason)
+                .putString(KEY_RESULT, result.toString())
+                .apply();
+        return result;
+    }
+
+    /** One line describing the most recent rebuild; call on the {@code AppStorage} thread. */
+    static String lastRebuild(Context ctx) {
+        SharedPreferences p = prefs(ctx);
+        long at = p.getLong(KEY_AT, 0L);
+        if (at == 0L) return "No rebuild since install.";
+        return "Last rebuild, " + p.getString(KEY_REASON, "") + " at "
+                + DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.SHORT).format(new Date(at))
+                + ": " + p.getString(KEY_RESULT, "");
+    }
+
+    private static SharedPreferences prefs(Context ctx) {
+        return ctx.getApplicationContext().getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+    }
+
+    private static Result reconcile(Context ctx, List<Alarm> alarms, int enabled,
+                                    boolean registrationsLost, long start) {
+        AlarmManager am = (AlarmManager) ctx.getSystemService(Context.ALARM_SERVICE);
+        HashMap<Integer, Long> registered = registrationsLost
+                ? new HashMap<>()
+                : AlarmRegistrations.snapshot(ctx);
+        HashMap<Integer, Long> wanted = new HashMap<>(enabled * 2);
+        HashMap<Integer, Long> expected = new HashMap<>();
+
+        // Single pass over the set: one trigger per enabled alarm
+        long now = System.currentTimeMillis();
+        NextTriggerCalculator calc = NextTriggerCalculator.forDefaultZone();
+        int armed = 0;
+        int unchanged = 0;
+        for (Alarm a : alarms) {
+            if (!a.enabled) continue;
+            long trigger = calc.nextFor(now, a);
+            wanted.put(a.id, trigger);
+
+            Long current = registered.remove(a.id);
+            if (current != null && current == trigger) {
+                unchanged++;
+            } else {
+                int mode = AlarmScheduler.register(ctx, am, a, trigger);
+                expected.put(a.id, DeliveryLog.expectation(trigger, mode));
+                armed++;
+            }
+        }
+
+        // Whatever is left is registered but no longer wanted (deleted or disabled)
+        int cancelled = 0;
+        for (Integer id : registered.keySet()) {
+            AlarmScheduler.unregister(ctx, am, id);
+            cancelled++;
+        }
+
+        // One write for the whole record instead of one per alarm
+        AlarmRegistrations.replaceAll(ctx, wanted);
+        DeliveryLog.expectAll(ctx, expected);
+        return new Result(enabled, armed, unchanged, cancelled, SystemClock.elapsedRealtime() - start);
+    }
+}
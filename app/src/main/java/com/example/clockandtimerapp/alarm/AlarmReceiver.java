@@ -1,39 +1,106 @@
 package com.example.clockandtimerapp.alarm;
 
+import android.app.ForegroundServiceStartNotAllowedException;
 import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
 import android.os.Build;
+import android.util.Log;
 
 import androidx.core.content.ContextCompat;
 
+import com.example.clockandtimerapp.utils.AppStorage;
+
 public class AlarmReceiver extends BroadcastReceiver {
 
+    private static final String TAG = "AlarmReceiver";
+
     private static final String EXTRA_ID       = "id";
     private static final String EXTRA_LABEL    = "label";
     private static final String EXTRA_VIBRATE  = "vibrate";
     private static final String EXTRA_RINGTONE = "ringtone";
+    static final String EXTRA_TRIGGER_AT       = "triggerAt";
 
     @Override
     public void onReceive(Context context, Intent intent) {
-        int id = intent.getIntExtra(EXTRA_ID, 999999);
+        // Dispatcher mode: one broadcast covers every alarm due this minute. It reads the
+        // alarm store, so it runs on the storage thread like the per-alarm path below.
+        if (AlarmDispatcher.ACTION_DISPATCH.equals(intent.getAction())) {
+            Context appContext = context.getApplicationContext();
+            PendingResult pending = goAsync();
+            AppStorage.write(() -> {
+                try {
+                    AlarmDispatcher.onDispatch(appContext, intent);
+                } finally {
+                    pending.finish();
+                }
+            });
+            return;
+        }
+        if (WakeupQueue.ACTION_WAKEUP.equals(intent.getAction())) {
+            Context appContext = context.getApplicationContext();
+            PendingResult pending = goAsync();
+            AppStorage.write(() -> {
+                try {
+                    WakeupQueue.onWakeup(appContext);
+                } finally {
+                    pending.finish();
+                }
+            });
+            return;
+        }
+        if (RingtonePrefetcher.ACTION_PREFETCH.equals(intent.getAction())) {
+            RingtonePrefetcher.onPrefetch(context, goAsync());
+            return;
+        }
+
+        int id = intent.getIntExtra(EXTRA_ID, AlarmIdAllocator.NO_ID);
         String label = intent.getStringExtra(EXTRA_LABEL);
         boolean vibrate = intent.getBooleanExtra(EXTRA_VIBRATE, false);
         String ringtone = intent.getStringExtra(EXTRA_RINGTONE);
+        long triggerAt = intent.getLongExtra(EXTRA_TRIGGER_AT, 0L);
+        long receivedAt = System.currentTimeMillis();
+        long[] stamps = FireLatencyLog.begin(triggerAt);
 
-        // --- NEW BEHAVIOR: Launch the full-screen AlarmRingActivity ---
-        Intent activityIntent = new Intent(context, AlarmRingActivity.class);
+        ring(context, id, label, vibrate, ringtone, stamps);
 
-        // Pass necessary alarm data to the activity
-        activityIntent.putExtra("id", id);
-        activityIntent.putExtra("label", label);
-        activityIntent.putExtra("vibrate", vibrate);
-        activityIntent.putExtra("ringtone", ringtone);
-
-        // Flags to ensure the activity can launch from the BroadcastReceiver and over the lock screen
-        activityIntent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
+        // Log the delivery and register the next occurrence once the ring is under way
+        Context appContext = context.getApplicationContext();
+        PendingResult pending = goAsync();
+        AppStorage.write(() -> {
+            try {
+                DeliveryLog.delivered(appContext, id, triggerAt, receivedAt);
+                AlarmScheduler.rearmAfterFire(appContext, id, triggerAt);
+                AlarmScheduler.pruneSkippedDates(appContext, receivedAt);
+            } finally {
+                pending.finish();
+            }
+        });
+    }
 
-        context.startActivity(activityIntent);
+    /**
+     * Hands the firing to {@link AlarmRingService}, which starts the sound and raises the
+     * ring screen through its full-screen notification. No activity is started from here:
+     * background activity starts are restricted and would only delay the sound.
+     * {@code stamps} are the firing's latency stamps from {@link FireLatencyLog#begin}.
+     */
+    static void ring(Context context, int id, String label, boolean vibrate, String ringtone, long[] stamps) {
+        ring(context, id, label, vibrate, ringtone, stamps, false);
+    }
 
+    /** {@link #ring}; with {@code afterCurrent} the alarm waits its turn behind a ring in progress. */
+    static void ring(Context context, int id, String label, boolean vibrate, String ringtone, long[] stamps,
+                     boolean afterCurrent) {
+        try {
+            ContextCompat.startForegroundService(context,
+                    AlarmRingService.startIntent(context, id, label, vibrate, ringtone, stamps, afterCurrent));
+        } catch (IllegalStateException e) {
+            // API 31+: an inexact (setAndAllowWhileIdle) alarm may not start a foreground
+            // service. The full-screen notification can still be posted; its screen starts the ring.
+            if (Build.VERSION.SDK_INT < Build.VERSION_CODES.S
+                    || !(e instanceof ForegroundServiceStartNotAllowedException)) throw e;
+            Log.w(TAG, "Foreground service start refused, posting the ring screen notification", e);
+            AlarmRingService.postRingFallback(context, id, label, vibrate, ringtone, stamps);
+        }
     }
 }
\ No newline at end of file
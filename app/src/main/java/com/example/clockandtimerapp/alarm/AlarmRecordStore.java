@@ -0,0 +1,273 @@
+package com.example.clockandtimerapp.alarm;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.example.clockandtimerapp.alarm.model.Alarm;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+
+/**
+ * Record-oriented alarm store: a compacted snapshot plus an append-only change log.
+ * A toggle/edit/delete appends one entry for the affected alarm instead of rewriting
+ * the whole list; the log is folded back into the snapshot once it outgrows the live set.
+ *
+ * Both files use {@link AlarmBinaryFormat}. Stores written by older versions as JSON
+ * lines are converted the first time they are opened.
+ *
+ * A file that cannot be read is never overwritten: it is renamed to {@code .bad} and kept,
+ * and the store stops compacting until the next full {@link #rewrite}. Write failures are
+ * logged and reported to the caller, which keeps the change for another attempt.
+ */
+final class AlarmRecordStore {
+
+    private static final String SNAPSHOT_FILE = "alarms.bin";
+    private static final String LOG_FILE      = "alarms.binlog";
+    private static final String BAD_SUFFIX    = ".bad";
+
+    private static final String TAG = "AlarmRecordStore";
+
+    // Previous JSON-lines store, read only for migration
+    private static final String JSON_SNAPSHOT_FILE = "alarms.snapshot";
+    private static final String JSON_LOG_FILE      = "alarms.log";
+    private static final String KEY_DELETED        = "deleted";
+
+    // Never compact below this many log entries, so small lists don't rewrite on every change
+    private static final int COMPACT_MIN_ENTRIES = 64;
+
+    private static AlarmRecordStore instance;
+
+    private final File snapshotFile;
+    private final File logFile;
+    private final File jsonSnapshotFile;
+    private final File jsonLogFile;
+
+    private int logEntries = -1; // unknown until the first replay
+    private int liveCount;
+    private boolean damaged;     // a file failed to read this process; no compaction until a full rewrite
+
+    static synchronized AlarmRecordStore get(Context ctx) {
+        if (instance == null) instance = new AlarmRecordStore(ctx.getApplicationContext().getFilesDir());
+        return instance;
+    }
+
+    private AlarmRecordStore(File dir) {
+        this.snapshotFile = new File(dir, SNAPSHOT_FILE);
+        this.logFile = new File(dir, LOG_FILE);
+        this.jsonSnapshotFile = new File(dir, JSON_SNAPSHOT_FILE);
+        this.jsonLogFile = new File(dir, JSON_LOG_FILE);
+        // Set aside by an earlier process and not yet replaced: the log alone is not the whole set
+        this.damaged = !snapshotFile.exists() && badFile(snapshotFile).exists();
+    }
+
+    /**
+     * False until the first snapshot is written (i.e. legacy data has not been migrated yet).
+     * A snapshot set aside as unreadable still counts, so migration never writes over it.
+     */
+    synchronized boolean exists() {
+        return snapshotFile.exists() || badFile(snapshotFile).exists();
+    }
+
+    /**
+     * Converts a JSON-lines store from an earlier version, if one is present.
+     * Returns false when there is nothing to convert. If the JSON files fail to read, what
+     * was read is converted and both files are kept as {@code .bad} instead of deleted.
+     */
+    synchronized boolean migrateJsonStore() {
+        if (!jsonSnapshotFile.exists()) return false;
+        LinkedHashMap<Integer, Alarm> alarms = new LinkedHashMap<>();
+        IOException failure = null;
+        try {
+            readJsonLines(jsonSnapshotFile, alarms);
+            readJsonLines(jsonLogFile, alarms);
+        } catch (IOException e) {
+            failure = e;
+        }
+        if (failure != null) {
+            // The log only makes sense on top of its snapshot, so both are kept together
+            setAside(jsonSnapshotFile, failure);
+            if (jsonLogFile.exists()) setAside(jsonLogFile, failure);
+        }
+        if (!rewrite(alarms.values())) return false;
+        if (failure == null) {
+            jsonSnapshotFile.delete();
+            jsonLogFile.delete();
+        }
+        return true;
+    }
+
+    /** Replays snapshot + log into the current alarm set, keyed by id in insertion order. */
+    synchronized LinkedHashMap<Integer, Alarm> replay() {
+        final LinkedHashMap<Integer, Alarm> alarms = new LinkedHashMap<>();
+        if (snapshotFile.exists()) {
+            try (DataInputStream in = open(snapshotFile)) {
+                AlarmBinaryFormat.readSnapshot(in, a -> alarms.put(a.id, a));
+            } catch (IOException e) {
+                setAside(snapshotFile, e);
+            }
+        }
+
+        boolean[] torn = new boolean[1];
+        logEntries = 0;
+        if (logFile.exists()) {
+            try (DataInputStream in = open(logFile)) {
+                logEntries = AlarmBinaryFormat.readLog(in, alarms, torn);
+            } catch (IOException e) {
+                // Not a torn tail (readLog handles those): the file itself failed to read
+                setAside(logFile, e);
+                logEntries = 0;
+            }
+        }
+        liveCount = alarms.size();
+
+        // Later appends would land behind the partial entry and be unreadable; fold it away now
+        if (torn[0] && !damaged) rewrite(alarms.values());
+        return alarms;
+    }
+
+    /** Appends an insert/update record for a single alarm; false if the write failed. */
+    synchronized boolean put(Alarm a) {
+        if (logEntries < 0) replay();
+        try (DataOutputStream out = append()) {
+            AlarmBinaryFormat.writePut(out, a);
+        } catch (IOException e) {
+            Log.e(TAG, "Could not append alarm " + a.id, e);
+            return false;
+        }
+        afterAppend();
+        return true;
+    }
+
+    /** Appends insert/update records for several alarms in one file write; false if it failed. */
+    synchronized boolean putAll(Collection<Alarm> alarms) {
+        if (alarms.isEmpty()) return true;
+        if (logEntries < 0) replay();
+        try (DataOutputStream out = append()) {
+            for (Alarm a : alarms) AlarmBinaryFormat.writePut(out, a);
+        } catch (IOException e) {
+            Log.e(TAG, "Could not append " + alarms.size() + " alarms", e);
+            return false;
+        }
+        logEntries += alarms.size() - 1;
+        afterAppend();
+        return true;
+    }
+
+    /** Appends a tombstone for the given id; false if the write failed. */
+    synchronized boolean delete(int id) {
+        if (logEntries < 0) replay();
+        try (DataOutputStream out = append()) {
+            AlarmBinaryFormat.writeDelete(out, id);
+        } catch (IOException e) {
+            Log.e(TAG, "Could not append delete of alarm " + id, e);
+            return false;
+        }
+        afterAppend();
+        return true;
+    }
+
+    /** Replaces the whole store with the given alarms (full snapshot, empty log). */
+    synchronized boolean rewrite(Collection<Alarm> alarms) {
+        File tmp = new File(snapshotFile.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            AlarmBinaryFormat.writeSnapshot(out, alarms);
+        } catch (IOException e) {
+            Log.e(TAG, "Could not write alarm snapshot", e);
+            tmp.delete();
+            return false;
+        }
+        if (!tmp.renameTo(snapshotFile)) {
+            Log.e(TAG, "Could not replace alarm snapshot");
+            tmp.delete();
+            return false;
+        }
+        logFile.delete();
+        logEntries = 0;
+        liveCount = alarms.size();
+        damaged = false; // the store matches the caller's list again; set-aside files are kept
+        return true;
+    }
+
+    // ------- internals -------
+
+    private DataOutputStream append() throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(new FileOutputStream(logFile, true)));
+    }
+
+    private void afterAppend() {
+        logEntries++;
+        if (logEntries > Math.max(COMPACT_MIN_ENTRIES, liveCount)) compact();
+    }
+
+    private void compact() {
+        // A replay after a read failure is incomplete; folding it into a new snapshot would
+        // make the loss permanent. The log just keeps growing until a full rewrite.
+        if (damaged) return;
+        LinkedHashMap<Integer, Alarm> alarms = replay();
+        if (damaged) return;
+        rewrite(new ArrayList<>(alarms.values()));
+    }
+
+    /** Keeps an unreadable file as {@code <name>.bad} so nothing written later replaces it. */
+    private void setAside(File file, IOException cause) {
+        damaged = true;
+        File bad = badFile(file);
+        bad.delete(); // an older bad copy; the newest failure is the one worth keeping
+        boolean kept = file.renameTo(bad);
+        Log.e(TAG, "Unreadable alarm file " + file.getName()
+                + (kept ? ", kept as " + bad.getName() : ", could not set it aside"), cause);
+    }
+
+    private static File badFile(File file) {
+        return new File(file.getPath() + BAD_SUFFIX);
+    }
+
+    private static DataInputStream open(File file) throws IOException {
+        return new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+    }
+
+    /**
+     * Applies every record in a JSON-lines file to {@code into}. A torn last line ends the
+     * file; a read error is thrown, leaving {@code into} with the records read before it.
+     */
+    private static void readJsonLines(File file, LinkedHashMap<Integer, Alarm> into) throws IOException {
+        if (!file.exists()) return;
+        try (BufferedReader r = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = r.readLine()) != null) {
+                if (line.isEmpty()) continue;
+                JSONObject o;
+                try {
+                    o = new JSONObject(line);
+                } catch (JSONException e) {
+                    break; // torn tail from an interrupted append; everything before it is valid
+                }
+                int id = o.optInt("id", -1);
+                if (o.optBoolean(KEY_DELETED, false)) {
+                    into.remove(id);
+                    continue;
+                }
+                Alarm a = AlarmStorage.fromJson(o, id);
+                if (a != null) into.put(a.id, a);
+            }
+        }
+    }
+}
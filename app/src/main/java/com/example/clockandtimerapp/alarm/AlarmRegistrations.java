@@ -0,0 +1,91 @@
+package com.example.clockandtimerapp.alarm;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Record of what the per-alarm (non-dispatcher) path has registered with AlarmManager:
+ * alarm id -> trigger time. AlarmManager cannot be queried, so this is what lets a
+ * rebuild skip alarms whose registration is already correct.
+ */
+final class AlarmRegistrations {
+
+    private static final String PREFS = "alarm_registrations";
+
+    private static HashMap<Integer, Long> cache; // null until first access
+
+    private AlarmRegistrations() {}
+
+    /** Loads the stored record; call on the {@code AppStorage} thread. */
+    static synchronized void warmUp(Context ctx) {
+        loaded(ctx);
+    }
+
+    /** Copy of every recorded registration. */
+    static synchronized HashMap<Integer, Long> snapshot(Context ctx) {
+        return new HashMap<>(loaded(ctx));
+    }
+
+    static synchronized void record(Context ctx, int id, long trigger) {
+        Long old = loaded(ctx).put(id, trigger);
+        if (old != null && old == trigger) return;
+        prefs(ctx).edit().putLong(String.valueOf(id), trigger).apply();
+    }
+
+    static synchronized void forget(Context ctx, int id) {
+        if (loaded(ctx).remove(id) == null) return;
+        prefs(ctx).edit().remove(String.valueOf(id)).apply();
+    }
+
+    /** Records {@code armed} and drops {@code dropped} in one write (used for batch toggles). */
+    static synchronized void update(Context ctx, Map<Integer, Long> armed, Collection<Integer> dropped) {
+        HashMap<Integer, Long> map = loaded(ctx);
+        SharedPreferences.Editor e = prefs(ctx).edit();
+        for (Map.Entry<Integer, Long> entry : armed.entrySet()) {
+            map.put(entry.getKey(), entry.getValue());
+            e.putLong(String.valueOf(entry.getKey()), entry.getValue());
+        }
+        for (Integer id : dropped) {
+            if (map.remove(id) != null) e.remove(String.valueOf(id));
+        }
+        e.apply();
+    }
+
+    /** Replaces the whole record in one write (used after a bulk rebuild). */
+    static synchronized void replaceAll(Context ctx, Map<Integer, Long> registrations) {
+        HashMap<Integer, Long> map = loaded(ctx);
+        map.clear();
+        map.putAll(registrations);
+
+        SharedPreferences.Editor e = prefs(ctx).edit().clear();
+        for (Map.Entry<Integer, Long> entry : registrations.entrySet()) {
+            e.putLong(String.valueOf(entry.getKey()), entry.getValue());
+        }
+        e.apply();
+    }
+
+    static synchronized void clear(Context ctx) {
+        loaded(ctx).clear();
+        prefs(ctx).edit().clear().apply();
+    }
+
+    private static HashMap<Integer, Long> loaded(Context ctx) {
+        if (cache == null) {
+            cache = new HashMap<>();
+            for (Map.Entry<String, ?> e : prefs(ctx).getAll().entrySet()) {
+                try {
+                    if (e.getValue() instanceof Long) cache.put(Integer.parseInt(e.getKey()), (Long) e.getValue());
+                } catch (NumberFormatException ignored) {}
+            }
+        }
+        return cache;
+    }
+
+    private static SharedPreferences prefs(Context ctx) {
+        return ctx.getApplicationContext().getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+    }
+}
@@ -0,0 +1,384 @@
+package com.example.clockandtimerapp.alarm;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.example.clockandtimerapp.alarm.model.Alarm;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Process-wide, in-memory view of the saved alarms.
+ *
+ * Storage is parsed once; reads are served from memory and mutations are
+ * coalesced into a single background write shortly after the last change.
+ * A write that fails leaves its changes pending, and they are retried.
+ * Callers always get copies, so editing a returned {@link Alarm} has no effect
+ * until it is passed back through {@link #update}.
+ */
+public final class AlarmRepository {
+
+    public interface Listener {
+        /** Called on the main thread with a fresh copy of the alarm list. */
+        void onAlarmsChanged(List<Alarm> alarms);
+    }
+
+    // Window in which bursts of toggles/edits are merged into one write
+    private static final long WRITE_DELAY_MS = 250L;
+    private static final long RETRY_DELAY_MS = 5_000L; // after a failed write (e.g. disk full)
+
+    private static AlarmRepository instance;
+
+    private final Context appContext;
+    private final Object lock = new Object();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor();
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    // Guarded by lock
+    private LinkedHashMap<Integer, Alarm> alarms; // null until first access
+    private final AlarmSlotIndex slotIndex = new AlarmSlotIndex();
+    private final HashSet<Integer> dirtyIds = new HashSet<>();
+    private final HashSet<Integer> removedIds = new HashSet<>();
+    private boolean rewriteAll;
+    private boolean writeScheduled;
+
+    public static synchronized AlarmRepository get(Context ctx) {
+        if (instance == null) instance = new AlarmRepository(ctx.getApplicationContext());
+        return instance;
+    }
+
+    private AlarmRepository(Context appContext) {
+        this.appContext = appContext;
+    }
+
+    // ------- reads -------
+
+    public List<Alarm> getAll() {
+        synchronized (lock) {
+            return copyAllLocked();
+        }
+    }
+
+    public Alarm find(int id) {
+        synchronized (lock) {
+            Alarm a = loadedLocked().get(id);
+            return a == null ? null : new Alarm(a);
+        }
+    }
+
+    public int size() {
+        synchronized (lock) {
+            return loadedLocked().size();
+        }
+    }
+
+    /**
+     * Checks if an enabled alarm with the same hour and minute already repeats on any of the given days.
+     * Note: This only checks against currently ENABLED alarms.
+     */
+    public boolean isDuplicate(int hour24, int minute, int daysMask) {
+        synchronized (lock) {
+            loadedLocked();
+            return slotIndex.isDuplicate(hour24, minute, daysMask);
+        }
+    }
+
+    /**
+     * An enabled alarm that {@link #isDuplicate} would report for these settings, as a copy,
+     * or null. Interval rules neither conflict nor are conflicted with.
+     */
+    public Alarm findConflict(int hour24, int minute, int daysMask) {
+        synchronized (lock) {
+            Alarm a = loadedLocked().get(slotIndex.conflictId(hour24, minute, daysMask));
+            return a == null ? null : new Alarm(a);
+        }
+    }
+
+    /**
+     * Ids of the enabled alarms that fire at hour:minute on {@code dayOfWeek}, including
+     * "no specific day" alarms, copied into {@code out}. Returns the total match count.
+     * Interval rules are not included.
+     */
+    public int firingAt(int hour24, int minute, int dayOfWeek, int[] out) {
+        synchronized (lock) {
+            loadedLocked();
+            return slotIndex.firingAt(hour24, minute, dayOfWeek, out);
+        }
+    }
+
+    // ------- writes -------
+
+    public void add(Alarm alarm) {
+        update(alarm);
+    }
+
+    public void update(Alarm alarm) {
+        synchronized (lock) {
+            Alarm copy = new Alarm(alarm);
+            loadedLocked().put(copy.id, copy);
+            slotIndex.put(copy);
+            removedIds.remove(alarm.id);
+            dirtyIds.add(alarm.id);
+            scheduleWriteLocked();
+        }
+        notifyListeners();
+    }
+
+    /**
+     * Adds a batch of new alarms in one step: one id reservation, one storage rewrite and
+     * one change notification. Candidates need no id. A candidate is skipped if an alarm
+     * with the same settings exists or came earlier in the batch, or if it is enabled and
+     * repeats at the same time and day as an enabled alarm (the editor's duplicate rule).
+     *
+     * @return the alarms that were added, with their new ids
+     */
+    public List<Alarm> addAll(List<Alarm> candidates) {
+        return addAll(candidates, null);
+    }
+
+    /**
+     * {@link #addAll(List)}, also reporting where each added alarm came from:
+     * {@code sourceIndex[i]} is set to the candidate index of the i-th alarm returned.
+     * {@code sourceIndex} may be null, else it needs room for every candidate.
+     */
+    public List<Alarm> addAll(List<Alarm> candidates, int[] sourceIndex) {
+        ArrayList<Alarm> added = new ArrayList<>();
+        synchronized (lock) {
+            LinkedHashMap<Integer, Alarm> map = loadedLocked();
+            HashSet<String> seen = new HashSet<>((map.size() + candidates.size()) * 2);
+            for (Alarm a : map.values()) seen.add(contentKey(a));
+
+            // Earlier batch rows, indexed under batch-local ids until real ids are reserved
+            AlarmSlotIndex batchSlots = new AlarmSlotIndex();
+            for (int i = 0; i < candidates.size(); i++) {
+                Alarm c = candidates.get(i);
+                if (!seen.add(contentKey(c))) continue;
+                if (c.enabled && !c.isInterval() && (slotIndex.isDuplicate(c.hour24, c.minute, c.daysMask)
+                        || batchSlots.isDuplicate(c.hour24, c.minute, c.daysMask))) continue;
+                Alarm copy = new Alarm(c);
+                copy.id = added.size() + 1;
+                batchSlots.put(copy);
+                if (sourceIndex != null) sourceIndex[added.size()] = i;
+                added.add(copy);
+            }
+            if (added.isEmpty()) return added;
+
+            int firstId = AlarmIdAllocator.get(appContext).nextRange(added.size());
+            for (Alarm a : added) {
+                a.id += firstId - 1;
+                map.put(a.id, a);
+                slotIndex.put(a);
+            }
+            rewriteAll = true; // one snapshot instead of a log record per alarm
+            scheduleWriteLocked();
+        }
+        notifyListeners();
+
+        ArrayList<Alarm> out = new ArrayList<>(added.size());
+        for (Alarm a : added) out.add(new Alarm(a));
+        return out;
+    }
+
+    /**
+     * Turns a batch of alarms off and on in one step: one storage write and one change
+     * notification. Ids in both collections end up enabled; unknown ids are ignored.
+     *
+     * @return copies of the alarms whose enabled state actually changed, for
+     *         {@link AlarmScheduler#applyEnabledChanges}
+     */
+    public List<Alarm> setEnabled(Collection<Integer> enable, Collection<Integer> disable) {
+        ArrayList<Alarm> changed = new ArrayList<>();
+        synchronized (lock) {
+            LinkedHashMap<Integer, Alarm> map = loadedLocked();
+            HashSet<Integer> on = new HashSet<>(enable);
+            for (Integer id : disable) {
+                if (!on.contains(id)) flipLocked(map.get(id), false, changed);
+            }
+            for (Integer id : on) flipLocked(map.get(id), true, changed);
+            if (changed.isEmpty()) return changed;
+            scheduleWriteLocked();
+        }
+        notifyListeners();
+        return changed;
+    }
+
+    private void flipLocked(Alarm a, boolean enabled, ArrayList<Alarm> changed) {
+        if (a == null || a.enabled == enabled) return;
+        a.enabled = enabled;
+        slotIndex.put(a);
+        dirtyIds.add(a.id);
+        changed.add(new Alarm(a));
+    }
+
+    /**
+     * Drops skipped dates that are before {@code today} (a local epoch day) from every
+     * alarm, in one write. Cheap when nothing has passed: only alarms with skips are looked at.
+     *
+     * @return true if any alarm changed
+     */
+    public boolean pruneSkippedDates(int today) {
+        boolean changed = false;
+        synchronized (lock) {
+            for (Alarm a : loadedLocked().values()) {
+                if (a.skipDays.length == 0 || !a.pruneSkipsBefore(today)) continue;
+                dirtyIds.add(a.id);
+                changed = true;
+            }
+            if (!changed) return false;
+            scheduleWriteLocked();
+        }
+        notifyListeners();
+        return true;
+    }
+
+    public void remove(int id) {
+        synchronized (lock) {
+            if (loadedLocked().remove(id) == null) return;
+            slotIndex.remove(id);
+            dirtyIds.remove(id);
+            removedIds.add(id);
+            scheduleWriteLocked();
+        }
+        notifyListeners();
+    }
+
+    public void clear() {
+        synchronized (lock) {
+            loadedLocked().clear();
+            slotIndex.clear();
+            dirtyIds.clear();
+            removedIds.clear();
+            rewriteAll = true;
+            scheduleWriteLocked();
+        }
+        notifyListeners();
+    }
+
+    // ------- observers -------
+
+    public void addListener(Listener l) {
+        listeners.addIfAbsent(l);
+    }
+
+    public void removeListener(Listener l) {
+        listeners.remove(l);
+    }
+
+    // ------- internals -------
+
+    private LinkedHashMap<Integer, Alarm> loadedLocked() {
+        if (alarms == null) {
+            alarms = new LinkedHashMap<>();
+            int maxId = 0;
+            for (Alarm a : AlarmStorage.load(appContext)) {
+                alarms.put(a.id, a);
+                slotIndex.put(a);
+                maxId = Math.max(maxId, a.id);
+            }
+            // Stored ids must never be handed out again, whatever the allocator last persisted
+            AlarmIdAllocator.get(appContext).ensureAbove(maxId);
+        }
+        return alarms;
+    }
+
+    /** Everything an alarm is configured with except its id, for duplicate detection. */
+    private static String contentKey(Alarm a) {
+        return a.hour24 + ":" + a.minute + ":" + a.daysMask + ":" + a.enabled + ":" + a.vibrate
+                + ":" + a.intervalMinutes + ":" + a.endHour24 + ":" + a.endMinute + ":" + a.label + "\u0000" + (a.ringtone == null ? "" : a.ringtone);
+    }
+
+    private ArrayList<Alarm> copyAllLocked() {
+        ArrayList<Alarm> out = new ArrayList<>(loadedLocked().size());
+        for (Alarm a : alarms.values()) out.add(new Alarm(a));
+        return out;
+    }
+
+    private void scheduleWriteLocked() {
+        scheduleWriteLocked(WRITE_DELAY_MS);
+    }
+
+    private void scheduleWriteLocked(long delayMs) {
+        if (writeScheduled) return;
+        writeScheduled = true;
+        writer.schedule(this::writePending, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void writePending() {
+        ArrayList<Alarm> all = null;
+        ArrayList<Alarm> puts = new ArrayList<>();
+        ArrayList<Integer> deletes;
+        synchronized (lock) {
+            writeScheduled = false;
+            if (rewriteAll) {
+                all = copyAllLocked();
+            } else {
+                for (Integer id : dirtyIds) {
+                    Alarm a = alarms.get(id);
+                    if (a != null) puts.add(new Alarm(a));
+                }
+            }
+            deletes = new ArrayList<>(removedIds);
+            rewriteAll = false;
+            dirtyIds.clear();
+            removedIds.clear();
+        }
+
+        if (all != null) {
+            if (!AlarmStorage.save(appContext, all)) writeFailed(true, null, null);
+            return;
+        }
+        if (!puts.isEmpty() && !AlarmStorage.putAll(appContext, puts)) {
+            writeFailed(false, puts, deletes); // the deletes were not attempted either
+            return;
+        }
+        for (int i = 0; i < deletes.size(); i++) {
+            if (!AlarmStorage.delete(appContext, deletes.get(i))) {
+                writeFailed(false, null, deletes.subList(i, deletes.size()));
+                return;
+            }
+        }
+    }
+
+    /**
+     * Puts what a failed flush did not store back into the pending state, unless a later
+     * change has already superseded it, and retries after a pause. Memory stays ahead of
+     * disk until a flush succeeds; the store logs each failure.
+     */
+    private void writeFailed(boolean all, List<Alarm> puts, List<Integer> deletes) {
+        synchronized (lock) {
+            if (all) {
+                rewriteAll = true;
+            } else {
+                if (puts != null) {
+                    for (Alarm a : puts) {
+                        if (alarms.containsKey(a.id)) dirtyIds.add(a.id); // removed since: the delete covers it
+                    }
+                }
+                if (deletes != null) {
+                    for (Integer id : deletes) {
+                        if (!alarms.containsKey(id)) removedIds.add(id); // re-added since: it is dirty
+                    }
+                }
+            }
+            scheduleWriteLocked(RETRY_DELAY_MS);
+        }
+    }
+
+    private void notifyListeners() {
+        if (listeners.isEmpty()) return;
+        mainHandler.post(() -> {
+            List<Alarm> snapshot = getAll();
+            for (Listener l : listeners) l.onAlarmsChanged(snapshot);
+        });
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.clockandtimerapp.alarm;
+
+/**
+ * PendingIntent request codes and notification ids derived from an alarm id.
+ *
+ * The top byte selects what the code is for and the low 24 bits carry the alarm id,
+ * so codes for different purposes (or different alarms) can never coincide the way
+ * fixed offsets like {@code id + 2000} could.
+ */
+final class AlarmRequestCodes {
+
+    static final int MAX_ALARM_ID = (1 << 24) - 1;
+
+    // Kind 0 is the bare alarm id: the trigger broadcast and the AlarmClockInfo show intent
+    static final int FIRE                 = 0;
+    static final int DISMISS              = 1;
+    static final int SNOOZE               = 2;
+    // 3 and 4 were per-alarm re-notify and snooze wake-ups, now a single WAKEUP; not reused
+    static final int RINGING_NOTIFICATION = 5;
+    static final int SNOOZED_NOTIFICATION = 6;
+    static final int PREFETCH             = 7; // ringtone prefetch wake-up, one for all alarms
+    static final int WAKEUP               = 8; // WakeupQueue head, one for all alarms
+    static final int RING_SCREEN          = 9; // ringing notification's full-screen and tap intent
+
+    private AlarmRequestCodes() {}
+
+    static int of(int kind, int alarmId) {
+        return (kind << 24) | (alarmId & MAX_ALARM_ID);
+    }
+}
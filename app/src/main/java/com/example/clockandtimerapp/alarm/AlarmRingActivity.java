@@ -1,38 +1,54 @@
 package com.example.clockandtimerapp.alarm;
 
-import android.app.NotificationManager;
-import android.content.Context;
+import android.content.ComponentName;
 import android.content.Intent;
+import android.content.ServiceConnection;
 import android.os.Build;
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Looper; // ADDED: Import Looper
-import android.os.VibrationEffect;
-import android.os.Vibrator;
+import android.os.IBinder;
 import android.view.WindowManager;
 import android.widget.Button;
 import android.widget.TextView;
-import android.widget.Toast;
 
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
 
 import com.example.clockandtimerapp.R;
-import com.example.clockandtimerapp.alarm.model.Alarm;
 
-import java.util.Calendar;
-
-public class AlarmRingActivity extends AppCompatActivity {
+/**
+ * Full-screen ring screen. It makes no noise itself: it attaches to {@link AlarmRingService},
+ * forwards Dismiss/Snooze to it, and closes when the ring ends (from here or the notification).
+ * It also closes at once if its alarm is not the one ringing, e.g. when opened from the
+ * status-bar alarm icon ({@link AlarmScheduler#buildShowIntent}).
+ */
+public class AlarmRingActivity extends AppCompatActivity implements AlarmRingService.RingUi {
 
     private int alarmId;
     private String label;
-    private String ringtone;
-    private boolean vibrate;
 
-    private Vibrator vibrator;
+    private AlarmRingService service;
+    private boolean bound;
+    private boolean startedRing; // this screen started the ring (background start was refused)
+
+    private final ServiceConnection connection = new ServiceConnection() {
+        @Override
+        public void onServiceConnected(ComponentName name, IBinder binder) {
+            AlarmRingService s = ((AlarmRingService.RingBinder) binder).service();
+            // Opened from the status-bar alarm icon, or after the ring ended: nothing to act on.
+            // A ring this screen just started may not have reached the service yet.
+            if (!startedRing && s.currentAlarmId() != alarmId) {
+                finish();
+                return;
+            }
+            service = s;
+            service.attachUi(AlarmRingActivity.this);
+        }
 
-    // ADDED: Handler for delayed execution
-    private final Handler handler = new Handler(Looper.getMainLooper());
+        @Override
+        public void onServiceDisconnected(ComponentName name) {
+            service = null;
+        }
+    };
 
     @Override
     protected void onCreate(@Nullable Bundle savedInstanceState) {
@@ -54,10 +70,8 @@ public class AlarmRingActivity extends AppCompatActivity {
 
         // Get alarm details
         Intent i = getIntent();
-        alarmId = i.getIntExtra("id", 0);
+        alarmId = i.getIntExtra("id", AlarmIdAllocator.NO_ID);
         label = i.getStringExtra("label");
-        ringtone = i.getStringExtra("ringtone");
-        vibrate = i.getBooleanExtra("vibrate", false);
 
         TextView tvTitle = findViewById(R.id.tvTitle);
         tvTitle.setText(label == null || label.isEmpty() ? "Alarm" : label);
@@ -65,116 +79,40 @@ public class AlarmRingActivity extends AppCompatActivity {
         Button btnDismiss = findViewById(R.id.btnDismiss);
         Button btnSnooze = findViewById(R.id.btnSnooze);
 
-        // Stop any existing sound just in case
-        AlarmPlayer.stop();
-
-        // =====================================================================
-        // CRITICAL FIX: Use Handler to delay media start until UI is ready
-        // =====================================================================
-        handler.postDelayed(new Runnable() {
-            @Override
-            public void run() {
-                if (vibrate) {
-                    Toast.makeText(AlarmRingActivity.this, "Vibrate ON: Vibration will run", Toast.LENGTH_SHORT).show();
-                    startVibration();
-                } else {
-                    Toast.makeText(AlarmRingActivity.this, "Vibrate OFF: Playing sound", Toast.LENGTH_SHORT).show();
-                    AlarmPlayer.start(AlarmRingActivity.this, ringtone, true); // play sound
-                }
-            }
-        }, 500); // 500ms delay should be sufficient to let the window open
-        // =====================================================================
+        // The receiver could not start the ring from the background: start it from here.
+        // Only on first creation, so a configuration change doesn't restart the sound.
+        if (savedInstanceState == null) startedRing = AlarmRingService.startFromScreen(this, i);
 
+        // Attach to the ring in progress. Binding never starts a ring (only onStartCommand
+        // does); auto-create just makes sure we hear back, and finish, when none is running.
+        bound = bindService(new Intent(this, AlarmRingService.class), connection, BIND_AUTO_CREATE);
+        if (!bound) {
+            finish();
+            return;
+        }
 
         btnDismiss.setOnClickListener(v -> {
-            // Use the handler to clean up any pending start actions
-            handler.removeCallbacksAndMessages(null);
-
-            dismissNotification(this, alarmId);
-            stopVibration();
-            AlarmPlayer.stop();
+            startService(AlarmRingService.actionIntent(this, AlarmRingService.ACTION_DISMISS, alarmId, label));
             finish();
         });
 
         btnSnooze.setOnClickListener(v -> {
-            // Use the handler to clean up any pending start actions
-            handler.removeCallbacksAndMessages(null);
-
-            // Schedule same alarm 5 min later
-            Calendar c = Calendar.getInstance();
-            c.add(Calendar.MINUTE, 5);
-
-            Alarm base = new Alarm(
-                    alarmId,
-                    c.get(Calendar.HOUR_OF_DAY),
-                    c.get(Calendar.MINUTE),
-                    label,
-                    true,
-                    ringtone,
-                    vibrate
-            );
-            AlarmScheduler.schedule(this, base);
-
-            dismissNotification(this, alarmId);
-            stopVibration();
-            AlarmPlayer.stop();
+            startService(AlarmRingService.actionIntent(this, AlarmRingService.ACTION_SNOOZE, alarmId, label));
             finish();
         });
     }
 
     @Override
-    protected void onDestroy() {
-        super.onDestroy();
-        // Ensure all pending handler tasks are removed on destroy
-        handler.removeCallbacksAndMessages(null);
-        stopVibration();
-        AlarmPlayer.stop();
+    public void onRingFinished() {
+        if (!isFinishing()) finish();
     }
 
-    // ... (startVibration, stopVibration, dismissNotification methods remain the same)
-
-    /**
-     * Start vibration only mode.
-     */
-    private void startVibration() {
-        try {
-            vibrator = (Vibrator) getSystemService(Context.VIBRATOR_SERVICE);
-
-            if (vibrator == null || !vibrator.hasVibrator()) {
-                Toast.makeText(this, "Device has no vibrator hardware!", Toast.LENGTH_SHORT).show();
-                return;
-            }
-
-            long[] pattern = new long[]{0, 1000, 500, 1000}; // vibrate 1s, pause 0.5s, repeat
-
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-                VibrationEffect effect = VibrationEffect.createWaveform(pattern, 0);
-                vibrator.vibrate(effect);
-            } else {
-                vibrator.vibrate(pattern, 0);
-            }
-
-        } catch (SecurityException e) {
-            Toast.makeText(this, "VIBRATE permission missing!", Toast.LENGTH_LONG).show();
-            e.printStackTrace();
-        } catch (Exception ex) {
-            ex.printStackTrace();
-        }
-    }
-
-    private void stopVibration() {
-        if (vibrator != null) {
-            try {
-                vibrator.cancel();
-            } catch (Exception ignored) {
-            }
-        }
-    }
-
-    private void dismissNotification(Context ctx, int id) {
-        // Since we are no longer using AlarmRingService/Notifications,
-        // this is mostly a legacy cleanup function.
-        NotificationManager nm = (NotificationManager) ctx.getSystemService(Context.NOTIFICATION_SERVICE);
-        if (nm != null) nm.cancel(id);
+    @Override
+    protected void onDestroy() {
+        if (service != null) service.detachUi(this);
+        if (bound) unbindService(connection);
+        bound = false;
+        service = null;
+        super.onDestroy();
     }
-}
\ No newline at end of file
+}
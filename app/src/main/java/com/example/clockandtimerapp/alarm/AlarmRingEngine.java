@@ -0,0 +1,232 @@
+package com.example.clockandtimerapp.alarm;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.media.AudioAttributes;
+import android.media.MediaPlayer;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.os.VibrationEffect;
+import android.os.Vibrator;
+import android.os.VibratorManager;
+
+import androidx.annotation.Nullable;
+
+import com.example.clockandtimerapp.utils.AppStorage;
+
+import java.io.File;
+
+/**
+ * The one place an alarm makes noise: a single looping player, a single vibration
+ * waveform and an optional volume crescendo, all driven from the main looper.
+ *
+ * Owned by {@link AlarmRingService}; screens and notification actions reach it through the
+ * service, never directly. {@link #stop()} releases the player, cancels the vibration and
+ * drops every pending ramp step, so nothing keeps running after dismiss or snooze.
+ * Which file to play is worked out on the {@code AppStorage} thread, since the tone
+ * cache and the device default tone are disk and provider reads.
+ */
+public final class AlarmRingEngine {
+
+    /** Told once per {@link #start} when the alarm first becomes audible (or felt). */
+    interface Listener {
+        void onAlertStarted();
+    }
+
+    private static final String PREFS = "alarms_prefs";
+    private static final String KEY_CRESCENDO_SECONDS = "crescendo_seconds";
+
+    private static final long RAMP_STEP_MS = 250L;
+    private static final float MIN_VOLUME = 0.05f;
+    private static final long[] VIBRATION_PATTERN = {0, 600, 400};
+
+    private final Context context;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Vibrator vibrator;
+
+    private MediaPlayer player;
+    private int generation; // bumped by stop(), so a tone resolved for an older start is dropped
+    private boolean vibrating;
+    private long rampStart;
+    private long rampMs;
+    private Listener listener;
+
+    private final Runnable rampStep = new Runnable() {
+        @Override
+        public void run() {
+            if (player == null) return;
+            float f = Math.min(1f, (SystemClock.elapsedRealtime() - rampStart) / (float) rampMs);
+            // Loudness is roughly logarithmic, so a squared curve sounds like a steady rise
+            float volume = MIN_VOLUME + (1f - MIN_VOLUME) * f * f;
+            try { player.setVolume(volume, volume); } catch (Throwable ignored) { }
+            if (f < 1f) handler.postDelayed(this, RAMP_STEP_MS);
+        }
+    };
+
+    AlarmRingEngine(Context ctx) {
+        context = ctx.getApplicationContext();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+            VibratorManager vibratorManager = (VibratorManager) context.getSystemService(Context.VIBRATOR_MANAGER_SERVICE);
+            vibrator = vibratorManager.getDefaultVibrator();
+        } else {
+            vibrator = (Vibrator) context.getSystemService(Context.VIBRATOR_SERVICE);
+        }
+    }
+
+    // ------- crescendo setting -------
+
+    /** Seconds over which the alarm tone rises to full volume; 0 plays at full volume at once. */
+    public static int getCrescendoSeconds(Context ctx) {
+        SharedPreferences sp = ctx.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        return sp.getInt(KEY_CRESCENDO_SECONDS, 0);
+    }
+
+    public static void setCrescendoSeconds(Context ctx, int seconds) {
+        SharedPreferences sp = ctx.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        sp.edit().putInt(KEY_CRESCENDO_SECONDS, Math.max(0, seconds)).apply();
+    }
+
+    // ------- ringing -------
+
+    /**
+     * Stops whatever is ringing and starts this alarm's vibration, if asked, at once and
+     * its tone as soon as the storage thread has resolved it.
+     */
+    void start(@Nullable String ringtone, boolean vibrate, @Nullable Listener listener) {
+        stop();
+        this.listener = listener;
+        rampMs = getCrescendoSeconds(context) * 1000L;
+
+        if (vibrate) startVibration();
+
+        final int mine = generation;
+        AppStorage.read(() -> Tone.resolve(context, ringtone), tone -> {
+            if (mine != generation) return; // stopped or restarted meanwhile
+            playResolved(tone);
+        });
+    }
+
+    /** Releases the player and vibrator and cancels the ramp. Safe to call repeatedly. */
+    void stop() {
+        generation++;
+        handler.removeCallbacks(rampStep);
+        releasePlayer();
+        if (vibrating) {
+            try { vibrator.cancel(); } catch (Throwable ignored) { }
+            vibrating = false;
+        }
+        listener = null;
+    }
+
+    // ------- internals -------
+
+    /** A tone's URI and its cached copy, looked up off the main thread. */
+    private static final class Tone {
+        @Nullable final Uri uri;
+        @Nullable final File cached;
+
+        private Tone(@Nullable Uri uri, @Nullable File cached) {
+            this.uri = uri;
+            this.cached = cached;
+        }
+
+        static Tone resolve(Context ctx, @Nullable String ringtone) {
+            Uri uri = RingtoneCache.resolve(ctx, ringtone);
+            return new Tone(uri, RingtoneCache.lookup(ctx, uri));
+        }
+    }
+
+    private void playResolved(Tone tone) {
+        if (tone.uri != null && !playTone(tone.uri, tone.cached) && tone.cached != null) {
+            invalidateCached(tone.uri);
+            playTone(tone.uri, null);
+        }
+        // Silent fallback: the vibration (if any) is the alert
+        if (player == null && vibrating) alertStarted();
+    }
+
+    /** Drops an unplayable cached copy on the storage thread. */
+    private void invalidateCached(Uri uri) {
+        AppStorage.write(() -> RingtoneCache.invalidate(context, uri));
+    }
+
+    /**
+     * Starts looping {@code cached} if given, otherwise {@code uri}. A cached copy that
+     * fails asynchronously is dropped and the original URI tried instead.
+     */
+    private boolean playTone(Uri uri, @Nullable File cached) {
+        try {
+            player = new MediaPlayer();
+            player.setLooping(true);
+            player.setAudioAttributes(
+                    new AudioAttributes.Builder()
+                            .setUsage(AudioAttributes.USAGE_ALARM)
+                            .setContentType(AudioAttributes.CONTENT_TYPE_MUSIC)
+                            .build()
+            );
+            if (cached != null) {
+                player.setDataSource(cached.getPath()); // local file: no provider round trip
+            } else {
+                player.setDataSource(context, uri);
+            }
+            if (rampMs > 0) player.setVolume(MIN_VOLUME, MIN_VOLUME);
+            final MediaPlayer mine = player;
+            player.setOnPreparedListener(mp -> {
+                if (mp != player) return; // stopped or replaced while preparing
+                mp.start();
+                if (rampMs > 0) {
+                    rampStart = SystemClock.elapsedRealtime();
+                    handler.postDelayed(rampStep, RAMP_STEP_MS);
+                }
+                alertStarted();
+            });
+            player.setOnErrorListener((mp, what, extra) -> {
+                if (mp != mine || mine != player) return true;
+                releasePlayer();
+                if (cached != null) {
+                    invalidateCached(uri);
+                    if (playTone(uri, null)) return true;
+                }
+                if (vibrating) alertStarted();
+                return true;
+            });
+            player.prepareAsync();
+            return true;
+        } catch (Throwable ignored) {
+            releasePlayer();
+            return false;
+        }
+    }
+
+    private void startVibration() {
+        if (vibrator == null || !vibrator.hasVibrator()) return;
+        try {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+                vibrator.vibrate(VibrationEffect.createWaveform(VIBRATION_PATTERN, 0));
+            } else {
+                vibrator.vibrate(VIBRATION_PATTERN, 0);
+            }
+            vibrating = true;
+        } catch (Throwable ignored) { }
+    }
+
+    private void alertStarted() {
+        Listener l = listener;
+        listener = null; // once per start
+        if (l != null) l.onAlertStarted();
+    }
+
+    private void releasePlayer() {
+        if (player != null) {
+            try {
+                if (player.isPlaying()) player.stop();
+                player.reset();
+                player.release();
+            } catch (Throwable ignored) { }
+            player = null;
+        }
+    }
+}
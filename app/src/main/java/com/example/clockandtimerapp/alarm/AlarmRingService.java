@@ -1,7 +1,6 @@
 package com.example.clockandtimerapp.alarm;
 
 import android.Manifest;
-import android.app.AlarmManager;
 import android.app.Notification;
 import android.app.NotificationChannel;
 import android.app.NotificationManager;
@@ -10,21 +9,26 @@ import android.app.Service;
 import android.content.Context;
 import android.content.Intent;
 import android.content.pm.PackageManager;
-import android.media.AudioAttributes;
-import android.media.MediaPlayer;
-import android.media.RingtoneManager;
-import android.net.Uri;
+import android.os.Binder;
 import android.os.Build;
 import android.os.IBinder;
-import android.os.VibrationEffect;
-import android.os.Vibrator;
-import android.os.VibratorManager;
+import android.os.SystemClock;
+import android.util.SparseArray;
 
 import androidx.annotation.Nullable;
 import androidx.core.app.ActivityCompat;
 import androidx.core.app.NotificationCompat;
 import androidx.core.app.NotificationManagerCompat;
+import androidx.core.content.ContextCompat;
 
+import com.example.clockandtimerapp.utils.AppStorage;
+
+/**
+ * Foreground service that owns a ringing alarm: the ongoing notification, the
+ * {@link AlarmRingEngine} making the noise, and its snooze/re-notify entries in {@link WakeupQueue}.
+ * Sound starts before any UI exists; the notification's full-screen intent then raises
+ * {@link AlarmRingActivity}, which binds here and is told when the ring ends, however it was ended.
+ */
 public class AlarmRingService extends Service {
 
     public static final String ACTION_START    = "com.example.alarm.ACTION_START_RING";
@@ -36,28 +40,143 @@ public class AlarmRingService extends Service {
     private static final String EXTRA_LABEL    = "label";
     private static final String EXTRA_VIBRATE  = "vibrate";
     private static final String EXTRA_RINGTONE = "ringtone";
+    private static final String EXTRA_START_RING = "startRing"; // on a screen intent from postRingFallback
+    private static final String EXTRA_AFTER_CURRENT = "afterCurrent"; // wait for the ring in progress
+
+    private static final long SNOOZE_MS   = 5 * 60 * 1000L;
+    private static final long RENOTIFY_MS = 5 * 60 * 1000L;
 
     // Silent, high-importance channel — media audio is handled by MediaPlayer
     private static final String CH_ID = "alarm_ring_channel_v3_silent";
-    private static final int    FALLBACK_NOTIF_ID = 999999;
 
-    private MediaPlayer mediaPlayer;
-    private Vibrator vibrator;
-    private AlarmManager alarmManager;
+    /** A screen showing the ring; told when the ring is dismissed or snoozed from anywhere. */
+    interface RingUi {
+        void onRingFinished();
+    }
+
+    /** Handed to bound screens. */
+    final class RingBinder extends Binder {
+        AlarmRingService service() { return AlarmRingService.this; }
+    }
+
+    private final RingBinder binder = new RingBinder();
+
+    /** A ring's notification builder, kept so re-posts skip rebuilding its PendingIntents. */
+    private static final class RingingTemplate {
+        final String title;
+        final NotificationCompat.Builder builder;
+
+        RingingTemplate(String title, NotificationCompat.Builder builder) {
+            this.title = title;
+            this.builder = builder;
+        }
+    }
+
+    private final SparseArray<RingingTemplate> templates = new SparseArray<>();
+
+    private AlarmRingEngine engine;
+    private long[] latencyStamps; // fire-path latency of the current ring, null if not tracked
+
+    // Same-minute alarms waiting for the current ring to end
+    private final RingQueue<Intent> waiting = new RingQueue<>();
+
+    // The alarm currently ringing, NO_ID when idle
+    private int ringingId = AlarmIdAllocator.NO_ID;
+    private String ringingLabel;
+    private String ringingTone;
+    private boolean ringingVibrate;
+    private long ringStartedAt; // elapsedRealtime, for AlarmEventJournal
+
+    @Nullable private RingUi ui;
 
     @Override public void onCreate() {
         super.onCreate();
-        createChannelIfNeeded();
-        alarmManager = (AlarmManager) getSystemService(ALARM_SERVICE);
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
-            VibratorManager vibratorManager = (VibratorManager) getSystemService(Context.VIBRATOR_MANAGER_SERVICE);
-            vibrator = vibratorManager.getDefaultVibrator();
-        } else {
-            vibrator = (Vibrator) getSystemService(VIBRATOR_SERVICE);
+        createChannelIfNeeded(this);
+        engine = new AlarmRingEngine(this);
+    }
+
+    @Nullable @Override public IBinder onBind(Intent intent) { return binder; }
+
+    /** Attaches the ring screen; a newer screen replaces an older one. */
+    void attachUi(RingUi ui) {
+        this.ui = ui;
+    }
+
+    void detachUi(RingUi ui) {
+        if (this.ui == ui) this.ui = null;
+    }
+
+    /** The alarm ringing now, NO_ID when idle. */
+    int currentAlarmId() {
+        return ringingId;
+    }
+
+    /** Builds the intent that starts ringing {@code id}; the receiver passes it to startForegroundService. */
+    static Intent startIntent(Context ctx, int id, String label, boolean vibrate, String ringtone, long[] stamps) {
+        return startIntent(ctx, id, label, vibrate, ringtone, stamps, false);
+    }
+
+    /**
+     * {@link #startIntent}; with {@code afterCurrent} the alarm waits for a ring in progress
+     * to be dismissed or snoozed instead of replacing it (alarms due in the same minute).
+     */
+    static Intent startIntent(Context ctx, int id, String label, boolean vibrate, String ringtone,
+                              long[] stamps, boolean afterCurrent) {
+        Intent i = new Intent(ctx, AlarmRingService.class).setAction(ACTION_START);
+        if (afterCurrent) i.putExtra(EXTRA_AFTER_CURRENT, true);
+        i.putExtra(EXTRA_ID, id);
+        i.putExtra(EXTRA_LABEL, label);
+        i.putExtra(EXTRA_VIBRATE, vibrate);
+        i.putExtra(EXTRA_RINGTONE, ringtone);
+        i.putExtra(FireLatencyLog.EXTRA_STAMPS, stamps);
+        return i;
+    }
+
+    /** Intent for a dismiss or snooze request from a screen; {@code action} is ACTION_DISMISS or ACTION_SNOOZE. */
+    static Intent actionIntent(Context ctx, String action, int id, String label) {
+        Intent i = new Intent(ctx, AlarmRingService.class).setAction(action);
+        i.putExtra(EXTRA_ID, id);
+        i.putExtra(EXTRA_LABEL, label);
+        return i;
+    }
+
+    /**
+     * For when the service may not be started from the background: on API 31+ an inexact
+     * alarm's broadcast is not exempt from foreground-service start limits. Posts the ringing
+     * notification directly, under the id the service would use, so its full-screen intent
+     * still raises the ring screen; the screen, being in the foreground, then starts the ring.
+     */
+    static void postRingFallback(Context ctx, int id, String label, boolean vibrate, String ringtone, long[] stamps) {
+        createChannelIfNeeded(ctx);
+        Intent screenI = screenIntent(ctx, id, label);
+        screenI.putExtra(EXTRA_START_RING, true);
+        screenI.putExtra(EXTRA_VIBRATE, vibrate);
+        screenI.putExtra(EXTRA_RINGTONE, ringtone);
+        screenI.putExtra(FireLatencyLog.EXTRA_STAMPS, stamps);
+        Notification n = newRingingBuilder(ctx, id, label, screenI)
+                .setContentTitle(label == null || label.isEmpty() ? "Alarm" : label)
+                .setOngoing(false) // nothing rings yet; let it be cleared
+                .build();
+        if (ActivityCompat.checkSelfPermission(ctx, Manifest.permission.POST_NOTIFICATIONS) != PackageManager.PERMISSION_GRANTED) {
+            return;
         }
+        NotificationManagerCompat.from(ctx).notify(AlarmRequestCodes.of(AlarmRequestCodes.RINGING_NOTIFICATION, id), n);
     }
 
-    @Nullable @Override public IBinder onBind(Intent intent) { return null; }
+    /**
+     * Starts the ring a {@link #postRingFallback} screen intent carries; returns false for any
+     * other intent. Call from the ring screen while it is in the foreground.
+     */
+    static boolean startFromScreen(Context ctx, Intent screenIntent) {
+        if (!screenIntent.getBooleanExtra(EXTRA_START_RING, false)) return false;
+        ContextCompat.startForegroundService(ctx, startIntent(ctx,
+                screenIntent.getIntExtra(EXTRA_ID, AlarmIdAllocator.NO_ID),
+                screenIntent.getStringExtra(EXTRA_LABEL),
+                screenIntent.getBooleanExtra(EXTRA_VIBRATE, false),
+                screenIntent.getStringExtra(EXTRA_RINGTONE),
+                screenIntent.getLongArrayExtra(FireLatencyLog.EXTRA_STAMPS)));
+        return true;
+    }
 
     @Override
     public int onStartCommand(@Nullable Intent intent, int flags, int startId) {
@@ -74,81 +193,147 @@ public class AlarmRingService extends Service {
         }
 
         if (ACTION_SNOOZE.equals(action)) {
-            handleSnooze(intent);
+            handleSnooze(intent, startId);
             return START_NOT_STICKY;
         }
 
         if (ACTION_RENOTIFY.equals(action)) {
-            int id = intent.getIntExtra(EXTRA_ID, FALLBACK_NOTIF_ID);
+            int id = intent.getIntExtra(EXTRA_ID, AlarmIdAllocator.NO_ID);
             String label = intent.getStringExtra(EXTRA_LABEL);
+            if (ringingId == AlarmIdAllocator.NO_ID) {
+                // A reminder for a ring that is over: don't leave an idle started service behind
+                stopSelf(startId);
+                return START_NOT_STICKY;
+            }
+            if (id != ringingId) {
+                // Stale reminder during another ring; stopping here would silence that ring
+                return START_STICKY;
+            }
             postRingingNotification(id, label);
+            scheduleReNotify(id, label);
             return START_STICKY;
         }
 
         if (ACTION_START.equals(action)) {
-            handleStart(intent);
+            boolean ringing = ringingId != AlarmIdAllocator.NO_ID;
+            if (waiting.admit(intent, ringing, intent.getBooleanExtra(EXTRA_AFTER_CURRENT, false))) {
+                handleStart(intent);
+            } else {
+                keepForeground(); // each startForegroundService call must be answered
+            }
         }
 
         return START_STICKY;
     }
 
     private void handleStart(Intent intent) {
-        final int notifId = intent.getIntExtra(EXTRA_ID, FALLBACK_NOTIF_ID);
+        final int notifId = intent.getIntExtra(EXTRA_ID, AlarmIdAllocator.NO_ID);
         final String label = intent.getStringExtra(EXTRA_LABEL);
         final boolean vibrate = intent.getBooleanExtra(EXTRA_VIBRATE, false);
         final String ringtoneStr = intent.getStringExtra(EXTRA_RINGTONE);
 
+        // A new alarm replaces whatever was ringing; the screen already shows the new one
+        if (ringingId != AlarmIdAllocator.NO_ID) {
+            AlarmEventJournal.log(this, ringingId, AlarmEventJournal.REPLACED, ringDurationMs(ringingId));
+        }
+        endRing();
+        latencyStamps = intent.getLongArrayExtra(FireLatencyLog.EXTRA_STAMPS);
+        FireLatencyLog.mark(latencyStamps, FireLatencyLog.STAGE_CREATED);
+
         try {
             Notification notif = buildRingingNotification(notifId, label);
-            startForeground(notifId == 0 ? FALLBACK_NOTIF_ID : notifId, notif);
+            startForeground(AlarmRequestCodes.of(AlarmRequestCodes.RINGING_NOTIFICATION, notifId), notif);
         } catch (Throwable ignored) {
             postRingingNotification(notifId, label);
         }
+        FireLatencyLog.mark(latencyStamps, FireLatencyLog.STAGE_SHOWN);
+
+        ringingId = notifId;
+        ringingLabel = label;
+        ringingTone = ringtoneStr;
+        ringingVibrate = vibrate;
+        ringStartedAt = SystemClock.elapsedRealtime();
+        AlarmEventJournal.log(this, notifId, AlarmEventJournal.FIRED, lateness(latencyStamps));
 
         scheduleReNotify(notifId, label);
-        startRinging(vibrate, ringtoneStr);
+        engine.start(ringtoneStr, vibrate, () -> {
+            FireLatencyLog.mark(latencyStamps, FireLatencyLog.STAGE_SOUND);
+            recordLatency();
+        });
     }
 
     private void handleDismiss() {
-        stopRinging();
+        if (ringingId != AlarmIdAllocator.NO_ID) {
+            AlarmEventJournal.log(this, ringingId, AlarmEventJournal.DISMISSED, ringDurationMs(ringingId));
+        }
+        finishRing();
+        if (startNextWaiting()) return;
         stopForegroundSafely();
         stopSelf();
     }
 
-    private void handleSnooze(Intent intent) {
-        stopRinging();
-        stopForegroundSafely();
-
-        int id = intent.getIntExtra(EXTRA_ID, FALLBACK_NOTIF_ID);
-        String label = intent.getStringExtra(EXTRA_LABEL);
+    /** Starts the next same-minute alarm, if one is waiting; false when there is none. */
+    private boolean startNextWaiting() {
+        Intent next = waiting.next();
+        if (next == null) return false;
+        handleStart(next);
+        return true;
+    }
 
-        long triggerAt = System.currentTimeMillis() + 5 * 60 * 1000L;
+    /** Re-confirms the foreground notification of the ring in progress. */
+    private void keepForeground() {
+        try {
+            startForeground(AlarmRequestCodes.of(AlarmRequestCodes.RINGING_NOTIFICATION, ringingId),
+                    buildRingingNotification(ringingId, ringingLabel));
+        } catch (Throwable ignored) { }
+    }
 
-        Intent fire = new Intent(this, AlarmReceiver.class);
-        fire.putExtra(EXTRA_ID, id);
-        fire.putExtra(EXTRA_LABEL, label);
+    /**
+     * Ends the current ring: silences the engine, drops the re-notify entry, the cached
+     * notification template and the ringing notification, and closes the ring screen.
+     */
+    private void finishRing() {
+        endRing();
+        RingUi current = ui;
+        if (current != null) current.onRingFinished();
+    }
 
-        int flagsPi = PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE;
-        PendingIntent pi = PendingIntent.getBroadcast(this, id, fire, flagsPi);
+    private void endRing() {
+        engine.stop();
+        recordLatency();
+        if (ringingId != AlarmIdAllocator.NO_ID) {
+            cancelReNotify(ringingId);
+            templates.remove(ringingId);
+            NotificationManagerCompat.from(this)
+                    .cancel(AlarmRequestCodes.of(AlarmRequestCodes.RINGING_NOTIFICATION, ringingId));
+        }
+        ringingId = AlarmIdAllocator.NO_ID;
+    }
 
-        // Add API level check and handle potential SecurityException
-        try {
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
-                if (alarmManager.canScheduleExactAlarms()) {
-                    alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerAt, pi);
-                } else {
-                    // Fallback for when exact alarms are denied by the user
-                    alarmManager.set(AlarmManager.RTC_WAKEUP, triggerAt, pi);
-                }
-            } else {
-                // For older Android versions, call the original method
-                alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerAt, pi);
-            }
-        } catch (SecurityException e) {
-            // As a last resort, if permission is missing, use a non-exact alarm
-            alarmManager.set(AlarmManager.RTC_WAKEUP, triggerAt, pi);
-            //e.printStackTrace(); // Log the exception for debugging
+    private void handleSnooze(Intent intent, int startId) {
+        int id = intent.getIntExtra(EXTRA_ID, ringingId);
+        // Only the ring in progress can be snoozed: a stale notification action or
+        // screen must not queue a snooze for an alarm that isn't ringing
+        if (ringingId == AlarmIdAllocator.NO_ID || id != ringingId) {
+            if (ringingId == AlarmIdAllocator.NO_ID) stopSelf(startId);
+            return;
         }
+        String label = intent.getStringExtra(EXTRA_LABEL);
+        String ringtone = ringingTone;
+        boolean vibrate = ringingVibrate;
+        AlarmEventJournal.log(this, id, AlarmEventJournal.SNOOZED, ringDurationMs(id));
+
+        finishRing();
+        // The next same-minute alarm keeps the service in the foreground
+        boolean next = startNextWaiting();
+        if (!next) stopForegroundSafely();
+
+        // Queued under its own key, so the alarm's recurring registration is left alone.
+        // The queue may still need loading from disk: do it on the storage thread.
+        long triggerAt = System.currentTimeMillis() + SNOOZE_MS;
+        Context app = getApplicationContext();
+        AppStorage.write(() -> WakeupQueue.schedule(app,
+                new WakeupQueue.Event(WakeupQueue.SNOOZE, id, triggerAt, label, ringtone, vibrate)));
 
         Notification n = new NotificationCompat.Builder(this, CH_ID)
                 .setSmallIcon(android.R.drawable.ic_lock_idle_alarm)
@@ -166,27 +351,55 @@ public class AlarmRingService extends Service {
             //                                          int[] grantResults)
             // to handle the case where the user grants the permission. See the documentation
             // for ActivityCompat#requestPermissions for more details.
+            if (!next) stopSelf();
             return;
         }
-        NotificationManagerCompat.from(this).notify(id + 500000, n);
+        NotificationManagerCompat.from(this).notify(AlarmRequestCodes.of(AlarmRequestCodes.SNOOZED_NOTIFICATION, id), n);
 
-        stopSelf();
+        if (!next) stopSelf();
     }
 
 
+    /**
+     * The ringing notification for {@code id}. Its action PendingIntents and builder are made
+     * once per ring and reused by every re-post; only the title is refreshed.
+     */
     private Notification buildRingingNotification(int id, @Nullable String label) {
+        String title = label == null || label.isEmpty() ? "Alarm" : label;
+        RingingTemplate t = templates.get(id);
+        if (t == null || !title.equals(t.title)) {
+            t = new RingingTemplate(title, newRingingBuilder(this, id, label, screenIntent(this, id, label)));
+            templates.put(id, t);
+        }
+        return t.builder.setContentTitle(title).build();
+    }
+
+    static Intent screenIntent(Context ctx, int id, @Nullable String label) {
+        Intent screenI = new Intent(ctx, AlarmRingActivity.class);
+        screenI.putExtra(EXTRA_ID, id);
+        screenI.putExtra(EXTRA_LABEL, label);
+        screenI.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
+        return screenI;
+    }
+
+    static NotificationCompat.Builder newRingingBuilder(Context ctx, int id, @Nullable String label, Intent screenI) {
         int flagsPi = PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE;
 
-        Intent dismissIntent = new Intent(this, AlarmRingService.class).setAction(ACTION_DISMISS);
-        PendingIntent dismissPi = PendingIntent.getService(this, id + 2000, dismissIntent, flagsPi);
+        Intent dismissIntent = new Intent(ctx, AlarmRingService.class).setAction(ACTION_DISMISS);
+        PendingIntent dismissPi = PendingIntent.getService(ctx,
+                AlarmRequestCodes.of(AlarmRequestCodes.DISMISS, id), dismissIntent, flagsPi);
 
-        Intent snoozeI = new Intent(this, AlarmRingService.class).setAction(ACTION_SNOOZE);
+        Intent snoozeI = new Intent(ctx, AlarmRingService.class).setAction(ACTION_SNOOZE);
         snoozeI.putExtra(EXTRA_ID, id);
         snoozeI.putExtra(EXTRA_LABEL, label);
-        PendingIntent snoozePi = PendingIntent.getService(this, id + 3000, snoozeI, flagsPi);
+        PendingIntent snoozePi = PendingIntent.getService(ctx,
+                AlarmRequestCodes.of(AlarmRequestCodes.SNOOZE, id), snoozeI, flagsPi);
 
-        return new NotificationCompat.Builder(this, CH_ID)
-                .setContentTitle(label == null || label.isEmpty() ? "Alarm" : label)
+        // Shown at once over the lock screen or an idle device; a heads-up while in use
+        PendingIntent screenPi = PendingIntent.getActivity(ctx,
+                AlarmRequestCodes.of(AlarmRequestCodes.RING_SCREEN, id), screenI, flagsPi);
+
+        return new NotificationCompat.Builder(ctx, CH_ID)
                 .setContentText("Ringing…")
                 .setSmallIcon(android.R.drawable.ic_lock_idle_alarm)
                 .setPriority(NotificationCompat.PRIORITY_HIGH)
@@ -195,47 +408,28 @@ public class AlarmRingService extends Service {
                 .setOngoing(true)
                 .setAutoCancel(false)
                 .setDefaults(0) // channel stays silent; MediaPlayer handles audio
+                .setContentIntent(screenPi)
+                .setFullScreenIntent(screenPi, true)
                 .addAction(android.R.drawable.ic_media_next, "Snooze 5 min", snoozePi)
                 .addAction(android.R.drawable.ic_menu_close_clear_cancel, "Dismiss", dismissPi)
-                .setStyle(new NotificationCompat.BigTextStyle().bigText("Ringing…"))
-                .build();
+                .setStyle(new NotificationCompat.BigTextStyle().bigText("Ringing…"));
     }
 
-    private void scheduleReNotify(int notifId, String label) {
-        try {
-            Intent renotify = new Intent(this, AlarmRingService.class).setAction(ACTION_RENOTIFY);
-            renotify.putExtra(EXTRA_ID, notifId);
-            renotify.putExtra(EXTRA_LABEL, label);
-
-            int requestCode = (notifId == 0 ? FALLBACK_NOTIF_ID : notifId) + 7777;
-            int flagsPi = PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE;
-            PendingIntent rePi = PendingIntent.getService(this, requestCode, renotify, flagsPi);
-
-            long triggerAt = System.currentTimeMillis() + 5 * 60 * 1000L;
-
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
-                if (alarmManager.canScheduleExactAlarms()) {
-                    alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerAt, rePi);
-                } else {
-                    // Fallback for when exact alarms are denied by the user.
-                    alarmManager.set(AlarmManager.RTC_WAKEUP, triggerAt, rePi);
-                }
-            } else {
-                // For older Android versions, the permission is granted by default.
-                alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerAt, rePi);
-            }
-        } catch (SecurityException e) {
-            // The SecurityException is caught here if permission is denied.
-            e.printStackTrace(); // Log the exception for debugging.
-        } catch (Throwable ignored) {
-            // The original catch block remains for other potential issues.
-        }
-    }
+    // Queue changes go through the storage thread, which also keeps them in call order
 
+    private void cancelReNotify(int notifId) {
+        Context app = getApplicationContext();
+        AppStorage.write(() -> WakeupQueue.cancel(app, WakeupQueue.RENOTIFY, notifId));
+    }
 
+    private void scheduleReNotify(int notifId, String label) {
+        long triggerAt = System.currentTimeMillis() + RENOTIFY_MS;
+        Context app = getApplicationContext();
+        AppStorage.write(() -> WakeupQueue.schedule(app,
+                new WakeupQueue.Event(WakeupQueue.RENOTIFY, notifId, triggerAt, label, null, false)));
+    }
 
     private void postRingingNotification(int id, @Nullable String label) {
-        Notification n = buildRingingNotification(id, label);
         if (ActivityCompat.checkSelfPermission(this, Manifest.permission.POST_NOTIFICATIONS) != PackageManager.PERMISSION_GRANTED) {
             // TODO: Consider calling
             //    ActivityCompat#requestPermissions
@@ -246,68 +440,28 @@ public class AlarmRingService extends Service {
             // for ActivityCompat#requestPermissions for more details.
             return;
         }
-        NotificationManagerCompat.from(this).notify(id == 0 ? FALLBACK_NOTIF_ID : id, n);
-    }
-
-    private void startRinging(boolean vibrateEnabled, @Nullable String ringtoneStr) {
-        stopRinging(); // clean state
-
-        // Vibrate pattern while ringing (loops)
-        if (vibrateEnabled && vibrator != null && vibrator.hasVibrator()) {
-            try {
-                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-                    VibrationEffect effect = VibrationEffect.createWaveform(
-                            new long[]{0, 600, 400}, 0);
-                    vibrator.vibrate(effect);
-                } else {
-                    vibrator.vibrate(new long[]{0, 600, 400}, 0);
-                }
-            } catch (Throwable ignored) { }
-        }
+        Notification n = buildRingingNotification(id, label);
+        NotificationManagerCompat.from(this).notify(AlarmRequestCodes.of(AlarmRequestCodes.RINGING_NOTIFICATION, id), n);
+    }
 
-        // Loop the selected tone with MediaPlayer
-        try {
-            Uri uri = (ringtoneStr != null && !ringtoneStr.isEmpty()) ? Uri.parse(ringtoneStr) : null;
-            if (uri == null) {
-                uri = RingtoneManager.getDefaultUri(RingtoneManager.TYPE_ALARM);
-                if (uri == null) uri = RingtoneManager.getDefaultUri(RingtoneManager.TYPE_RINGTONE);
-                if (uri == null) uri = RingtoneManager.getDefaultUri(RingtoneManager.TYPE_NOTIFICATION);
-            }
-            if (uri == null) return; // No ringtone found
-
-            mediaPlayer = new MediaPlayer();
-            mediaPlayer.setLooping(true);
-            mediaPlayer.setAudioAttributes(
-                    new AudioAttributes.Builder()
-                            .setUsage(AudioAttributes.USAGE_ALARM)
-                            .setContentType(AudioAttributes.CONTENT_TYPE_MUSIC)
-                            .build()
-            );
-            mediaPlayer.setDataSource(getApplicationContext(), uri);
-            mediaPlayer.setOnPreparedListener(MediaPlayer::start);
-            mediaPlayer.setOnErrorListener((mp, what, extra) -> {
-                stopRinging();
-                return true;
-            });
-            mediaPlayer.prepareAsync();
-        } catch (Throwable ignored) {
-            // if it fails, notification still shows and vibration may run
-        }
+    /** How long {@code id} has been ringing, 0 if it is not the ring in progress. */
+    private long ringDurationMs(int id) {
+        return id == ringingId ? SystemClock.elapsedRealtime() - ringStartedAt : 0L;
     }
 
-    private void stopRinging() {
-        if (mediaPlayer != null) {
-            try {
-                if (mediaPlayer.isPlaying()) mediaPlayer.stop();
-                mediaPlayer.reset();
-                mediaPlayer.release();
-            } catch (Throwable ignored) { }
-            mediaPlayer = null;
-        }
+    /** Trigger-to-receiver delay from a firing's latency stamps, -1 if not known. */
+    private static long lateness(@Nullable long[] stamps) {
+        if (stamps == null) return -1L;
+        long trigger = stamps[FireLatencyLog.STAGE_TRIGGER];
+        long received = stamps[FireLatencyLog.STAGE_RECEIVED];
+        return trigger > 0 && received >= trigger ? received - trigger : -1L;
+    }
 
-        if (vibrator != null) {
-            try { vibrator.cancel(); } catch (Throwable ignored) { }
-        }
+    /** Stores this ring's latency stamps once, complete or not. */
+    private void recordLatency() {
+        if (latencyStamps == null) return;
+        FireLatencyLog.record(this, latencyStamps);
+        latencyStamps = null;
     }
 
     private void stopForegroundSafely() {
@@ -316,7 +470,7 @@ public class AlarmRingService extends Service {
         } catch (Throwable ignored) { }
     }
 
-    private void createChannelIfNeeded() {
+    private static void createChannelIfNeeded(Context ctx) {
         if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) return;
 
         // SILENT high-importance channel: no beep; we control audio via MediaPlayer
@@ -327,12 +481,13 @@ public class AlarmRingService extends Service {
         ch.setSound(null, null);
         ch.setLockscreenVisibility(NotificationCompat.VISIBILITY_PUBLIC);
 
-        NotificationManager nm = (NotificationManager) getSystemService(NOTIFICATION_SERVICE);
+        NotificationManager nm = (NotificationManager) ctx.getSystemService(NOTIFICATION_SERVICE);
         try { nm.createNotificationChannel(ch); } catch (Throwable ignored) { }
     }
 
     @Override public void onDestroy() {
-        stopRinging();
+        waiting.clear();
+        finishRing();
         super.onDestroy();
     }
 }
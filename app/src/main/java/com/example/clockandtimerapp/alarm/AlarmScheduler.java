@@ -4,105 +4,312 @@ import android.app.AlarmManager;
 import android.app.PendingIntent;
 import android.content.Context;
 import android.content.Intent;
+import android.content.SharedPreferences;
 import android.os.Build;
 import android.provider.Settings;
 import android.widget.Toast;
 
 import com.example.clockandtimerapp.alarm.model.Alarm;
 
-import java.util.Calendar;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 
 public final class AlarmScheduler {
 
+    private static final String PREFS = "alarms_prefs";
+    private static final String KEY_DISPATCHER_MODE = "dispatcher_mode";
+    private static final String ACTION_FIRE = "com.example.alarm.ACTION_FIRE";
+
+    /**
+     * Dispatcher mode registers only the earliest enabled alarm with AlarmManager
+     * (see {@link AlarmDispatcher}) instead of one PendingIntent per alarm.
+     */
+    public static boolean isDispatcherMode(Context ctx) {
+        SharedPreferences sp = ctx.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        return sp.getBoolean(KEY_DISPATCHER_MODE, false);
+    }
+
+    /**
+     * Loads everything scheduling reads (the mode flag, registration record, delivery
+     * expectations and wake-up queue) so later calls from the main thread don't touch
+     * the disk. Blocking; {@code AppStorage.warmUp} runs it on the storage thread.
+     */
+    public static void warmUp(Context ctx) {
+        Context app = ctx.getApplicationContext();
+        isDispatcherMode(app);
+        AlarmRegistrations.warmUp(app);
+        DeliveryLog.warmUp(app);
+        WakeupQueue.warmUp(app);
+    }
+
+    /**
+     * Switches scheduling mode and moves every enabled alarm's registration over. Blocking
+     * and UI-free, for the storage thread: call {@link #requestExactAlarmPermission} on the
+     * main thread first. Without the permission, per-alarm registrations fall back to inexact.
+     * The flag is written last, so a failure part way leaves the old mode in charge.
+     */
+    public static void setDispatcherMode(Context ctx, boolean enabled) {
+        if (isDispatcherMode(ctx) == enabled) return;
+        AlarmManager am = (AlarmManager) ctx.getSystemService(Context.ALARM_SERVICE);
+        List<Alarm> alarms = AlarmRepository.get(ctx).getAll();
+        if (enabled) {
+            for (Alarm a : alarms) unregister(ctx, am, a.id);
+            AlarmRegistrations.clear(ctx);
+            AlarmDispatcher.rearm(ctx);
+        } else {
+            HashMap<Integer, Long> armed = new HashMap<>();
+            HashMap<Integer, Long> expected = new HashMap<>();
+            long now = System.currentTimeMillis();
+            for (Alarm a : alarms) {
+                if (!a.enabled) continue;
+                long trigger = nextTriggerUtcMillis(now, a);
+                int mode = register(ctx, am, a, trigger);
+                armed.put(a.id, trigger);
+                expected.put(a.id, DeliveryLog.expectation(trigger, mode));
+            }
+            AlarmRegistrations.replaceAll(ctx, armed);
+            DeliveryLog.expectAll(ctx, expected);
+            AlarmDispatcher.cancelAll(ctx);
+        }
+        SharedPreferences sp = ctx.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        sp.edit().putBoolean(KEY_DISPATCHER_MODE, enabled).apply();
+        RingtonePrefetcher.rearmAsync(ctx);
+    }
+
+    /**
+     * API 31+: if exact alarms are not allowed, points the user at the setting and returns
+     * false. Shows UI, so call on the main thread, before handing scheduling work to storage.
+     */
+    public static boolean requestExactAlarmPermission(Context ctx) {
+        AlarmManager am = (AlarmManager) ctx.getSystemService(Context.ALARM_SERVICE);
+        return checkExactAlarmPermission(ctx, am);
+    }
+
     // FIX: Added public static
     public static void schedule(Context ctx, Alarm alarm){
         AlarmManager am = (AlarmManager) ctx.getSystemService(Context.ALARM_SERVICE);
 
         // --- 1. RUNTIME PERMISSION CHECK FOR EXACT ALARMS (API 31+) ---
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) { // API 31+
-            if (!am.canScheduleExactAlarms()) {
+        if (!checkExactAlarmPermission(ctx, am)) return; // HALT execution if permission is denied
 
-                // Permission Denied: Notify user and redirect to settings
-                Toast.makeText(ctx,
-                        "Please grant 'Alarms & reminders' permission to set an exact alarm.",
-                        Toast.LENGTH_LONG).show();
+        // Dispatcher mode: the alarm is already in the repository, just re-arm the head
+        if (isDispatcherMode(ctx)) {
+            AlarmDispatcher.rearm(ctx);
+            RingtonePrefetcher.rearmAsync(ctx);
+            return;
+        }
 
-                // Launch the system setting screen to request the permission
-                Intent intent = new Intent(Settings.ACTION_REQUEST_SCHEDULE_EXACT_ALARM);
+        // --- 2. EXISTING SCHEDULING LOGIC (Only runs if permission is granted or not needed) ---
+        long trigger = nextTriggerUtcMillis(System.currentTimeMillis(), alarm);
+        int mode = register(ctx, am, alarm, trigger);
+        AlarmRegistrations.record(ctx, alarm.id, trigger);
+        DeliveryLog.expect(ctx, alarm.id, trigger, mode);
+        RingtonePrefetcher.rearmAsync(ctx);
+    }
 
-                // Must use the NEW_TASK flag since this is called from a non-Activity context (Fragment/Service)
-                intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
-                ctx.startActivity(intent);
+    /**
+     * Applies a batch of enabled-state flips from {@link AlarmRepository#setEnabled}. Only the
+     * alarms in {@code changed} touch AlarmManager (a single re-arm in dispatcher mode), and
+     * the registration records are written once for the batch. Call on the main thread.
+     */
+    public static void applyEnabledChanges(Context ctx, List<Alarm> changed) {
+        if (changed.isEmpty()) return;
+        AlarmManager am = (AlarmManager) ctx.getSystemService(Context.ALARM_SERVICE);
+        boolean anyEnabled = false;
+        for (Alarm a : changed) {
+            if (a.enabled) {
+                anyEnabled = true;
+            } else {
+                WakeupQueue.cancelAlarm(ctx, a.id); // a pending snooze goes with the alarm
+            }
+        }
+        // Same rule as schedule(): without the permission, enabled alarms are not registered
+        boolean canArm = !anyEnabled || checkExactAlarmPermission(ctx, am);
+
+        if (isDispatcherMode(ctx)) {
+            // Without the permission the head stays as it is; if it belongs to an alarm
+            // switched off here, the dispatch finds nothing enabled and re-arms then
+            if (canArm) AlarmDispatcher.rearm(ctx);
+            RingtonePrefetcher.rearmAsync(ctx);
+            return;
+        }
 
-                return; // HALT execution if permission is denied
+        HashMap<Integer, Long> armed = new HashMap<>();
+        HashMap<Integer, Long> expected = new HashMap<>();
+        ArrayList<Integer> dropped = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (Alarm a : changed) {
+            if (!a.enabled) {
+                cancelRegistration(ctx, am, a.id);
+                dropped.add(a.id);
+            } else if (canArm) {
+                long trigger = nextTriggerUtcMillis(now, a);
+                int mode = register(ctx, am, a, trigger);
+                armed.put(a.id, trigger);
+                expected.put(a.id, DeliveryLog.expectation(trigger, mode));
             }
         }
+        AlarmRegistrations.update(ctx, armed, dropped);
+        DeliveryLog.expectAll(ctx, expected);
+        DeliveryLog.forgetAll(ctx, dropped);
+        RingtonePrefetcher.rearmAsync(ctx);
+    }
 
-        // --- 2. EXISTING SCHEDULING LOGIC (Only runs if permission is granted or not needed) ---
+    /**
+     * API 31+: false if exact alarms are not allowed, after pointing the user at the
+     * setting. Shows UI, so call on the main thread.
+     */
+    private static boolean checkExactAlarmPermission(Context ctx, AlarmManager am) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.S || am.canScheduleExactAlarms()) return true;
 
+        // Permission Denied: Notify user and redirect to settings
+        Toast.makeText(ctx,
+                "Please grant 'Alarms & reminders' permission to set an exact alarm.",
+                Toast.LENGTH_LONG).show();
+
+        // Launch the system setting screen to request the permission
+        Intent intent = new Intent(Settings.ACTION_REQUEST_SCHEDULE_EXACT_ALARM);
+
+        // Must use the NEW_TASK flag since this is called from a non-Activity context (Fragment/Service)
+        intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+        ctx.startActivity(intent);
+        return false;
+    }
+
+    /**
+     * Registers one alarm at a precomputed trigger; the caller records it in
+     * {@link AlarmRegistrations} and {@link DeliveryLog}. No UI: if exact alarms are denied
+     * it falls back to inexact. Returns the {@link DeliveryLog} mode actually used.
+     */
+    static int register(Context ctx, AlarmManager am, Alarm alarm, long trigger) {
         // This PI is the Broadcast that fires when the alarm time hits.
-        PendingIntent piTrigger = buildPendingIntent(ctx, alarm);
+        PendingIntent piTrigger = buildPendingIntent(ctx, alarm, trigger);
 
-        // --- MODIFICATION: Create an Activity PI for the AlarmClockInfo (optional but best practice) ---
-        // This Intent tells the system what to launch if the user taps the alarm icon on the status bar/lock screen.
-        Intent showIntent = new Intent(ctx, AlarmRingActivity.class);
-        showIntent.putExtra("id", alarm.id);
-        showIntent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
+        // Activity PI for the AlarmClockInfo: what the system launches if the user taps the alarm icon
+        PendingIntent piShow = buildShowIntent(ctx, alarm.id);
 
-        PendingIntent piShow = PendingIntent.getActivity(
-                ctx,
-                alarm.id, // Use the same request code as the trigger for consistency
-                showIntent,
-                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-        );
-        // --- END MODIFICATION ---
+        try {
+            // Use AlarmClockInfo for user-visible alarms
+            AlarmManager.AlarmClockInfo info = new AlarmManager.AlarmClockInfo(trigger, piShow);
+            am.setAlarmClock(info, piTrigger); // piTrigger is the intent that calls AlarmReceiver
+            return DeliveryLog.MODE_EXACT;
+        } catch (SecurityException e) {
+            am.setAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, trigger, piTrigger);
+            return DeliveryLog.MODE_INEXACT;
+        }
+    }
 
-        long trigger = nextTriggerUtcMillis(alarm.hour24, alarm.minute, alarm.dayOfWeek);
+    /**
+     * Per-alarm mode: registers the next occurrence of an alarm that just fired. Each
+     * registration covers one occurrence, so repeating alarms and interval rules move on
+     * here rather than waiting for the next rebuild; a one-time alarm is turned off instead.
+     * Blocking (reads the repository).
+     */
+    static void rearmAfterFire(Context ctx, int alarmId, long firedAt) {
+        if (isDispatcherMode(ctx)) return; // the dispatcher re-arms itself
+        AlarmRepository repository = AlarmRepository.get(ctx);
+        Alarm alarm = repository.find(alarmId);
+        if (alarm == null || !alarm.enabled) return;
+        long fired = firedAt > 0 ? firedAt : System.currentTimeMillis();
+        if (NextTriggerCalculator.forDefaultZone().isLastOccurrence(fired, alarm)) {
+            // A one-time alarm turns itself off; its registration was consumed by this firing
+            repository.setEnabled(new ArrayList<>(), Collections.singletonList(alarm.id));
+            AlarmRegistrations.forget(ctx, alarm.id);
+        } else {
+            AlarmManager am = (AlarmManager) ctx.getSystemService(Context.ALARM_SERVICE);
+            long trigger = nextTriggerUtcMillis(Math.max(System.currentTimeMillis(), firedAt), alarm);
+            int mode = register(ctx, am, alarm, trigger);
+            AlarmRegistrations.record(ctx, alarm.id, trigger);
+            DeliveryLog.expect(ctx, alarm.id, trigger, mode);
+        }
+        // The next prefetch window is this alarm's next one or another alarm's
+        RingtonePrefetcher.rearmAsync(ctx);
+    }
+
+    /**
+     * Drops skipped dates that no occurrence can fall on any more. Called whenever an alarm
+     * fires or the registrations are rebuilt, so the lists clean themselves up. Blocking.
+     */
+    static void pruneSkippedDates(Context ctx, long now) {
+        // Keep yesterday: an interval window that started then may still be running
+        int yesterday = NextTriggerCalculator.forDefaultZone().epochDay(now) - 1;
+        AlarmRepository.get(ctx).pruneSkippedDates(yesterday);
+    }
 
-        // Use AlarmClockInfo for user-visible alarms
-        // Use piShow as the ShowIntent
-        AlarmManager.AlarmClockInfo info = new AlarmManager.AlarmClockInfo(trigger, piShow);
-        am.setAlarmClock(info, piTrigger); // piTrigger is the intent that calls AlarmReceiver
+    /** Removes one alarm's per-alarm registration, if any, and drops it from the record. */
+    static void unregister(Context ctx, AlarmManager am, int alarmId) {
+        cancelRegistration(ctx, am, alarmId);
+        AlarmRegistrations.forget(ctx, alarmId);
+        DeliveryLog.forget(ctx, alarmId);
+    }
+
+    /** The AlarmManager half of {@link #unregister}; the caller updates the records. */
+    private static void cancelRegistration(Context ctx, AlarmManager am, int alarmId) {
+        // Extras are not part of PendingIntent matching, so the id alone identifies it
+        Intent i = new Intent(ctx, AlarmReceiver.class);
+        i.setAction(ACTION_FIRE);
+        PendingIntent pi = PendingIntent.getBroadcast(ctx, AlarmRequestCodes.of(AlarmRequestCodes.FIRE, alarmId), i,
+                PendingIntent.FLAG_NO_CREATE | PendingIntent.FLAG_IMMUTABLE);
+        if (pi != null) {
+            am.cancel(pi);
+            pi.cancel();
+        }
     }
 
     // FIX: Added public static
     public static void cancel(Context ctx, Alarm alarm){
-        AlarmManager am = (AlarmManager) ctx.getSystemService(Context.ALARM_SERVICE);
-        am.cancel(buildPendingIntent(ctx, alarm));
+        WakeupQueue.cancelAlarm(ctx, alarm.id); // a pending snooze goes with the alarm
+        if (isDispatcherMode(ctx)) {
+            AlarmDispatcher.rearm(ctx, alarm.id);
+        } else {
+            AlarmManager am = (AlarmManager) ctx.getSystemService(Context.ALARM_SERVICE);
+            unregister(ctx, am, alarm.id);
+        }
+        RingtonePrefetcher.rearmAsync(ctx);
     }
 
-    private static PendingIntent buildPendingIntent(Context ctx, Alarm alarm){
+    /** Cancels a batch of alarms; in dispatcher mode this is a single re-arm. */
+    public static void cancelAll(Context ctx, List<Alarm> alarms){
+        for (Alarm a : alarms) WakeupQueue.cancelAlarm(ctx, a.id);
+        if (isDispatcherMode(ctx)) {
+            AlarmDispatcher.rearm(ctx);
+        } else {
+            AlarmManager am = (AlarmManager) ctx.getSystemService(Context.ALARM_SERVICE);
+            for (Alarm a : alarms) unregister(ctx, am, a.id);
+        }
+        RingtonePrefetcher.rearmAsync(ctx);
+    }
+
+    // This Intent tells the system what to launch if the user taps the alarm icon on the status bar/lock screen.
+    static PendingIntent buildShowIntent(Context ctx, int alarmId){
+        Intent showIntent = new Intent(ctx, AlarmRingActivity.class);
+        showIntent.putExtra("id", alarmId);
+        showIntent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
+        return PendingIntent.getActivity(
+                ctx,
+                AlarmRequestCodes.of(AlarmRequestCodes.FIRE, alarmId), // same request code as the trigger
+                showIntent,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+        );
+    }
+
+    private static PendingIntent buildPendingIntent(Context ctx, Alarm alarm, long triggerAt){
         Intent i = new Intent(ctx, AlarmReceiver.class);
-        i.setAction("com.example.alarm.ACTION_FIRE");
+        i.setAction(ACTION_FIRE);
+        i.putExtra(AlarmReceiver.EXTRA_TRIGGER_AT, triggerAt); // for fire-path latency
         i.putExtra("id", alarm.id);
         i.putExtra("label", alarm.label);
         i.putExtra("ringtone", alarm.ringtone);
         i.putExtra("vibrate", alarm.vibrate);
         int flags = PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE;
-        return PendingIntent.getBroadcast(ctx, alarm.id, i, flags);
+        return PendingIntent.getBroadcast(ctx, AlarmRequestCodes.of(AlarmRequestCodes.FIRE, alarm.id), i, flags);
     }
 
-    private static long nextTriggerUtcMillis(int hour24, int minute, int dayOfWeek){
-        Calendar c = Calendar.getInstance();
-        c.set(Calendar.SECOND, 0);
-        c.set(Calendar.MILLISECOND, 0);
-        c.set(Calendar.HOUR_OF_DAY, hour24);
-        c.set(Calendar.MINUTE, minute);
-        long now = System.currentTimeMillis();
-        if (dayOfWeek >= Calendar.SUNDAY && dayOfWeek <= Calendar.SATURDAY) {
-            int today = c.get(Calendar.DAY_OF_WEEK);
-            int daysUntil = (dayOfWeek - today + 7) % 7;
-            // If it's the same day but time already passed, schedule 7 days later
-            if (daysUntil == 0 && c.getTimeInMillis() <= now) {
-                daysUntil = 7;
-            }
-            c.add(Calendar.DAY_OF_YEAR, daysUntil);
-        } else {
-            // No specific day selected -> next occurrence (today or tomorrow)
-            if (c.getTimeInMillis() <= now) {
-                c.add(Calendar.DAY_OF_YEAR, 1);
-            }
-        }
-        return c.getTimeInMillis();
+    /** Next time strictly after {@code now} at which the alarm fires (the next step of an interval rule). */
+    static long nextTriggerUtcMillis(long now, Alarm alarm){
+        // Epoch arithmetic against the cached device zone: day mask, interval rule and skipped dates
+        return NextTriggerCalculator.forDefaultZone().nextFor(now, alarm);
     }
 }
\ No newline at end of file
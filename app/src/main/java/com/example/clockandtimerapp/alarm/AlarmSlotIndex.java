@@ -0,0 +1,141 @@
+package com.example.clockandtimerapp.alarm;
+
+import com.example.clockandtimerapp.alarm.model.Alarm;
+
+import java.util.HashMap;
+
+/**
+ * Index of ENABLED alarms by (hour24, minute, dayOfWeek), packed into an int slot key.
+ *
+ * Slot key = (hour24 * 60 + minute) * 8 + day, where day is Calendar.SUNDAY..SATURDAY
+ * (1..7) or 0 for "no specific day". A repeating alarm occupies one slot per day in its
+ * mask. Interval rules are not indexed: they fire at many times, and a rule is not a
+ * duplicate of a single alarm. Queries are array lookups and never allocate; only
+ * mutations touch the per-id bookkeeping map. Not thread-safe: callers lock.
+ */
+final class AlarmSlotIndex {
+
+    static final int SLOT_COUNT = 24 * 60 * 8;
+    static final int NO_SLOT = -1;
+
+    private static final int INITIAL_BUCKET = 2;
+
+    // Enabled alarm ids per slot; buckets are allocated on first use
+    private final int[][] buckets = new int[SLOT_COUNT][];
+    private final int[] sizes = new int[SLOT_COUNT];
+
+    // id -> (minuteOfDay << 8 | bit per occupied day slot); only enabled alarms are indexed
+    private final HashMap<Integer, Integer> slotsById = new HashMap<>();
+
+    static int key(int hour24, int minute, int dayOfWeek) {
+        if (hour24 < 0 || hour24 > 23 || minute < 0 || minute > 59) return NO_SLOT;
+        int day = (dayOfWeek >= 1 && dayOfWeek <= 7) ? dayOfWeek : 0;
+        return (hour24 * 60 + minute) * 8 + day;
+    }
+
+    // ------- queries -------
+
+    /** True if an enabled alarm already occupies this time on any of the mask's day slots. */
+    boolean isDuplicate(int hour24, int minute, int daysMask) {
+        return conflictId(hour24, minute, daysMask) != AlarmIdAllocator.NO_ID;
+    }
+
+    /**
+     * Id of an enabled alarm occupying this time on one of the mask's day slots (the one
+     * {@link #isDuplicate} found), or {@link AlarmIdAllocator#NO_ID}.
+     */
+    int conflictId(int hour24, int minute, int daysMask) {
+        int base = key(hour24, minute, -1);
+        if (base == NO_SLOT) return AlarmIdAllocator.NO_ID;
+        int slots = daySlots(daysMask);
+        while (slots != 0) {
+            int k = base + Integer.numberOfTrailingZeros(slots);
+            if (sizes[k] > 0) return buckets[k][0];
+            slots &= slots - 1;
+        }
+        return AlarmIdAllocator.NO_ID;
+    }
+
+    /**
+     * Copies the ids of every enabled alarm that fires at hour:minute on the given
+     * day (its own slot plus "no specific day" alarms) into {@code out}.
+     * Returns the total count, which may exceed {@code out.length}.
+     */
+    int firingAt(int hour24, int minute, int dayOfWeek, int[] out) {
+        int n = copySlot(key(hour24, minute, dayOfWeek), out, 0);
+        if (dayOfWeek >= 1 && dayOfWeek <= 7) n = copySlot(key(hour24, minute, -1), out, n);
+        return n;
+    }
+
+    // ------- mutations -------
+
+    /** Indexes (or re-indexes after an edit/toggle) the given alarm. */
+    void put(Alarm a) {
+        remove(a.id);
+        if (!a.enabled || a.isInterval()) return;
+        int base = key(a.hour24, a.minute, -1);
+        if (base == NO_SLOT) return;
+        int slots = daySlots(a.daysMask);
+        for (int s = slots; s != 0; s &= s - 1) {
+            addToSlot(base + Integer.numberOfTrailingZeros(s), a.id);
+        }
+        slotsById.put(a.id, (base >> 3) << 8 | slots);
+    }
+
+    void remove(int id) {
+        Integer packed = slotsById.remove(id);
+        if (packed == null) return;
+        int base = (packed >>> 8) << 3;
+        for (int s = packed & 0xFF; s != 0; s &= s - 1) {
+            removeFromSlot(base + Integer.numberOfTrailingZeros(s), id);
+        }
+    }
+
+    void clear() {
+        for (Integer packed : slotsById.values()) {
+            int base = (packed >>> 8) << 3;
+            for (int s = packed & 0xFF; s != 0; s &= s - 1) sizes[base + Integer.numberOfTrailingZeros(s)] = 0;
+        }
+        slotsById.clear();
+    }
+
+    /** Day slots (bit 0 = no specific day, bits 1..7 = Calendar days) for an alarm's days mask. */
+    private static int daySlots(int daysMask) {
+        int m = daysMask & Alarm.EVERY_DAY;
+        return m == 0 ? 1 : m << 1;
+    }
+
+    private void addToSlot(int k, int id) {
+        int[] b = buckets[k];
+        if (b == null) {
+            b = buckets[k] = new int[INITIAL_BUCKET];
+        } else if (sizes[k] == b.length) {
+            int[] grown = new int[b.length * 2];
+            System.arraycopy(b, 0, grown, 0, b.length);
+            b = buckets[k] = grown;
+        }
+        b[sizes[k]++] = id;
+    }
+
+    private void removeFromSlot(int k, int id) {
+        int[] b = buckets[k];
+        int n = sizes[k];
+        for (int i = 0; i < n; i++) {
+            if (b[i] == id) {
+                b[i] = b[n - 1];
+                sizes[k] = n - 1;
+                return;
+            }
+        }
+    }
+
+    private int copySlot(int key, int[] out, int offset) {
+        if (key == NO_SLOT) return offset;
+        int n = sizes[key];
+        int[] b = buckets[key];
+        for (int i = 0; i < n; i++) {
+            if (offset + i < out.length) out[offset + i] = b[i];
+        }
+        return offset + n;
+    }
+}
@@ -14,69 +14,92 @@ public final class AlarmStorage {
     private static final String PREFS = "alarms_prefs";
     private static final String KEY_JSON = "alarms_json";
     private static final String KEY_INITIALIZED = "initialized";
-    private static final String KEY_NEXT_ID = "next_id";
 
     // FIX: Added public static
     public static ArrayList<Alarm> load(Context ctx) {
-        SharedPreferences sp = ctx.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
-        String json = sp.getString(KEY_JSON, null);
-        ArrayList<Alarm> list = new ArrayList<>();
-        if (json == null || json.isEmpty()) return list;
-        try {
-            JSONArray arr = new JSONArray(json);
-            for (int i = 0; i < arr.length(); i++) {
-                JSONObject o = arr.getJSONObject(i);
-                // Backward compatible parse
-                int id       = o.optInt("id", i + 1);
-                int hour24   = o.optInt("hour24", parseHourFromLegacy(o));
-                int minute   = o.optInt("minute", parseMinuteFromLegacy(o));
-                String label = o.optString("label",
-                        o.optString("subtitle", "Alarm"));
-                boolean en   = o.optBoolean("enabled", o.optBoolean("on", false));
-                String tone  = o.optString("ringtone", null);
-                boolean vib  = o.optBoolean("vibrate", false);
-                int dow  = o.optInt("dayOfWeek", -1);
-                // skip invalid
-                if (hour24 < 0 || minute < 0) continue;
-                list.add(new Alarm(id, hour24, minute, label, en, tone, vib, dow));
-            }
-        } catch (JSONException ignored) {}
-        return list;
+        AlarmRecordStore store = AlarmRecordStore.get(ctx);
+        if (!store.exists()) migrateLegacy(ctx, store);
+        return new ArrayList<>(store.replay().values());
     }
 
+    /**
+     * Full rewrite of the store. Prefer {@link #put}/{@link #delete} for single-alarm changes.
+     * Like the methods below, returns false if the write failed and nothing was stored.
+     */
     // FIX: Added public static
-    public static void save(Context ctx, ArrayList<Alarm> alarms) {
-        JSONArray arr = new JSONArray();
-        for (Alarm a : alarms) {
-            JSONObject o = new JSONObject();
+    public static boolean save(Context ctx, ArrayList<Alarm> alarms) {
+        AlarmRecordStore store = AlarmRecordStore.get(ctx);
+        return store.rewrite(alarms);
+    }
+
+    /** Persists a single added or edited alarm without touching the others. */
+    public static boolean put(Context ctx, Alarm alarm) {
+        AlarmRecordStore store = AlarmRecordStore.get(ctx);
+        if (!store.exists()) migrateLegacy(ctx, store);
+        return store.put(alarm);
+    }
+
+    /** Persists several added or edited alarms with one append to the log. */
+    public static boolean putAll(Context ctx, ArrayList<Alarm> alarms) {
+        AlarmRecordStore store = AlarmRecordStore.get(ctx);
+        if (!store.exists()) migrateLegacy(ctx, store);
+        return store.putAll(alarms);
+    }
+
+    /** Removes a single alarm from storage. */
+    public static boolean delete(Context ctx, int id) {
+        AlarmRecordStore store = AlarmRecordStore.get(ctx);
+        if (!store.exists()) migrateLegacy(ctx, store);
+        return store.delete(id);
+    }
+
+    /**
+     * One-time move of older data into the binary record store: either a JSON-lines store
+     * from a previous version or the original {@code alarms_json} blob. The blob is removed
+     * only after the snapshot has been written.
+     */
+    private static void migrateLegacy(Context ctx, AlarmRecordStore store) {
+        if (store.migrateJsonStore()) return;
+        SharedPreferences sp = ctx.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        String json = sp.getString(KEY_JSON, null);
+        ArrayList<Alarm> list = new ArrayList<>();
+        if (json != null && !json.isEmpty()) {
             try {
-                o.put("id", a.id);
-                o.put("hour24", a.hour24);
-                o.put("minute", a.minute);
-                o.put("label", a.label);
-                o.put("enabled", a.enabled);
-                o.put("ringtone", a.ringtone);
-                o.put("vibrate", a.vibrate);
-                o.put("dayOfWeek", a.dayOfWeek);
-                arr.put(o);
+                JSONArray arr = new JSONArray(json);
+                for (int i = 0; i < arr.length(); i++) {
+                    Alarm a = fromJson(arr.getJSONObject(i), i + 1);
+                    if (a != null) list.add(a);
+                }
             } catch (JSONException ignored) {}
         }
-        SharedPreferences sp = ctx.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
-        sp.edit().putString(KEY_JSON, arr.toString()).apply();
+        store.rewrite(list);
+        if (store.exists() && json != null) sp.edit().remove(KEY_JSON).apply();
+    }
+
+    /** Parses one alarm record, accepting the legacy field names. Returns null if invalid. */
+    static Alarm fromJson(JSONObject o, int fallbackId) {
+        // Backward compatible parse
+        int id       = o.optInt("id", fallbackId);
+        int hour24   = o.optInt("hour24", parseHourFromLegacy(o));
+        int minute   = o.optInt("minute", parseMinuteFromLegacy(o));
+        String label = o.optString("label",
+                o.optString("subtitle", "Alarm"));
+        boolean en   = o.optBoolean("enabled", o.optBoolean("on", false));
+        String tone  = o.optString("ringtone", null);
+        boolean vib  = o.optBoolean("vibrate", false);
+        // Single-day records ("dayOfWeek": Calendar day or -1) migrate to a one-bit mask
+        int days = o.has("days") ? o.optInt("days", 0) : Alarm.maskForDay(o.optInt("dayOfWeek", -1));
+        // skip invalid
+        if (hour24 < 0 || minute < 0) return null;
+        return new Alarm(id, hour24, minute, label, en, tone, vib, days);
     }
 
     /**
-     * Checks if an alarm with the same hour, minute, and dayOfWeek already exists.
+     * Checks if an enabled alarm with the same hour and minute already repeats on any of the given days.
      * Note: This only checks against currently ENABLED alarms.
      */
-    public static boolean isDuplicate(Context ctx, int hour24, int minute, int dayOfWeek) {
-        ArrayList<Alarm> existingAlarms = load(ctx);
-        for (Alarm a : existingAlarms) {
-            if (a.enabled && a.hour24 == hour24 && a.minute == minute && a.dayOfWeek == dayOfWeek) {
-                return true;
-            }
-        }
-        return false;
+    public static boolean isDuplicate(Context ctx, int hour24, int minute, int daysMask) {
+        return AlarmRepository.get(ctx).isDuplicate(hour24, minute, daysMask);
     }
 
 
@@ -92,12 +115,10 @@ public final class AlarmStorage {
         sp.edit().putBoolean(KEY_INITIALIZED, true).apply();
     }
 
+    /** Allocates a new, never-reused alarm id (see {@link AlarmIdAllocator}). */
     // FIX: Added public static
     public static int nextId(Context ctx){
-        SharedPreferences sp = ctx.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
-        int v = sp.getInt(KEY_NEXT_ID, 1);
-        sp.edit().putInt(KEY_NEXT_ID, v + 1).apply();
-        return v;
+        return AlarmIdAllocator.get(ctx).next();
     }
 
     // ------- legacy helpers -------
@@ -0,0 +1,138 @@
+package com.example.clockandtimerapp.alarm;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.example.clockandtimerapp.alarm.model.Alarm;
+
+import java.io.BufferedWriter;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulk import and export of alarms as CSV (see {@link AlarmCsv}) through document URIs.
+ *
+ * An import streams and validates the file row by row, then hands the whole batch to
+ * {@link AlarmRepository#addAll} (one id reservation, one storage write) and re-registers
+ * with a single {@link AlarmRebuilder} pass, instead of a save and a schedule per alarm.
+ * Skipped dates and group membership travel with the alarms; an imported row that
+ * duplicates an existing alarm is dropped, groups included.
+ * Both directions do file and storage work, so call them off the main thread.
+ */
+public final class AlarmTransfer {
+
+    private static final String TAG = "AlarmTransfer";
+
+    public static final String MIME_TYPE = "text/csv";
+    /** What the import picker offers; providers label CSV files inconsistently. */
+    public static final String[] IMPORT_MIME_TYPES = {"text/csv", "text/comma-separated-values", "text/plain"};
+
+    /** Outcome of one import. */
+    public static final class ImportResult {
+        public final int imported;
+        public final int duplicates; // valid rows matching an existing alarm or an earlier row
+        public final int invalid;    // rows that could not be parsed
+
+        ImportResult(int imported, int duplicates, int invalid) {
+            this.imported = imported;
+            this.duplicates = duplicates;
+            this.invalid = invalid;
+        }
+
+        @Override
+        public String toString() {
+            String s = "Imported " + imported + (imported == 1 ? " alarm" : " alarms");
+            if (duplicates > 0) s += ", skipped " + duplicates + " duplicate" + (duplicates == 1 ? "" : "s");
+            if (invalid > 0) s += ", " + invalid + " invalid row" + (invalid == 1 ? "" : "s");
+            return s + ".";
+        }
+    }
+
+    private AlarmTransfer() {}
+
+    /** Writes every alarm to {@code uri}; returns how many were written. */
+    public static int exportTo(Context ctx, Uri uri) throws IOException {
+        List<Alarm> alarms = AlarmRepository.get(ctx).getAll();
+        HashMap<Integer, List<String>> groupsById = new HashMap<>();
+        for (String name : AlarmGroups.names(ctx)) {
+            for (Integer id : AlarmGroups.members(ctx, name)) {
+                List<String> names = groupsById.get(id);
+                if (names == null) {
+                    names = new ArrayList<>(1);
+                    groupsById.put(id, names);
+                }
+                names.add(name);
+            }
+        }
+        OutputStream os = ctx.getContentResolver().openOutputStream(uri, "wt");
+        if (os == null) throw new FileNotFoundException(uri.toString());
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.UTF_8))) {
+            AlarmCsv.write(out, alarms, groupsById);
+        }
+        return alarms.size();
+    }
+
+    /** Reads alarms from {@code uri} and adds the new ones as one batch. */
+    public static ImportResult importFrom(Context ctx, Uri uri) throws IOException {
+        long start = SystemClock.elapsedRealtime();
+        InputStream is = ctx.getContentResolver().openInputStream(uri);
+        if (is == null) throw new FileNotFoundException(uri.toString());
+
+        ArrayList<Alarm> candidates = new ArrayList<>();
+        ArrayList<List<String>> candidateGroups = new ArrayList<>();
+        int[] invalid = {0};
+        // AlarmCsv buffers internally, no BufferedReader needed
+        try (Reader in = new InputStreamReader(is, StandardCharsets.UTF_8)) {
+            AlarmCsv.read(in, new AlarmCsv.RowHandler() {
+                @Override
+                public void onAlarm(Alarm alarm, List<String> groups) {
+                    candidates.add(alarm);
+                    candidateGroups.add(groups);
+                }
+
+                @Override
+                public void onInvalid(int line) {
+                    invalid[0]++;
+                }
+            });
+        }
+
+        int[] source = new int[candidates.size()];
+        List<Alarm> added = AlarmRepository.get(ctx).addAll(candidates, source);
+        boolean anyEnabled = false;
+        HashMap<String, List<Integer>> newMembers = new HashMap<>();
+        for (int i = 0; i < added.size(); i++) {
+            Alarm a = added.get(i);
+            anyEnabled |= a.enabled;
+            for (String name : candidateGroups.get(source[i])) {
+                List<Integer> ids = newMembers.get(name);
+                if (ids == null) {
+                    ids = new ArrayList<>();
+                    newMembers.put(name, ids);
+                }
+                ids.add(a.id);
+            }
+        }
+        for (Map.Entry<String, List<Integer>> e : newMembers.entrySet()) {
+            AlarmGroups.addMembers(ctx, e.getKey(), e.getValue());
+        }
+        if (anyEnabled) AlarmRebuilder.rebuild(ctx, false, "import"); // one reconciliation for the batch
+
+        ImportResult result = new ImportResult(added.size(), candidates.size() - added.size(), invalid[0]);
+        Log.i(TAG, result + " (" + (SystemClock.elapsedRealtime() - start) + " ms)");
+        return result;
+    }
+}
@@ -0,0 +1,294 @@
+package com.example.clockandtimerapp.alarm;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import com.example.clockandtimerapp.utils.AppStorage;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * How late AlarmManager delivered our registrations, and which it never delivered.
+ *
+ * Every registration is recorded as an expectation (key -> trigger time and delivery mode).
+ * A delivery consumes its expectation and logs the lateness. An expectation that is
+ * replaced or removed after its trigger time has passed, or that is still waiting
+ * {@link #MISSED_AFTER_MS} past it when the app starts or another alarm fires, is logged
+ * as missed. Outcomes go into a fixed-size ring buffer file like {@link FireLatencyLog}.
+ *
+ * Keys are alarm ids for per-alarm registrations, {@link #DISPATCH_KEY} for the
+ * dispatcher's single registration and {@link #wakeupKey} for the snooze and reminder
+ * queue's registration, by the kind of event at its head.
+ */
+public final class DeliveryLog {
+
+    // Delivery modes: how the registration was handed to AlarmManager
+    static final int MODE_EXACT            = 0; // per-alarm setAlarmClock
+    static final int MODE_INEXACT          = 1; // per-alarm, exact alarms denied
+    static final int MODE_DISPATCH         = 2; // dispatcher head, setAlarmClock
+    static final int MODE_DISPATCH_INEXACT = 3; // dispatcher head, exact alarms denied
+    static final int MODE_WAKEUP           = 4; // snooze/reminder queue head, exact
+    static final int MODE_WAKEUP_INEXACT   = 5; // snooze/reminder queue head, exact alarms denied
+    static final int MODE_COUNT            = 6;
+    private static final int MODE_BITS     = 3;
+
+    static final int DISPATCH_KEY = AlarmIdAllocator.NO_ID; // never an alarm id
+
+    /** Key for a {@link WakeupQueue} registration whose head is of {@code kind}; negative, never an alarm id. */
+    static int wakeupKey(int kind) {
+        return -1 - kind;
+    }
+
+    /** An expectation still waiting this long after its trigger time counts as missed. */
+    static final long MISSED_AFTER_MS = 30 * 60_000L;
+
+    static final long MISSED = -1L; // lateness of a missed registration
+
+    static final int CAPACITY = 200;
+
+    private static final String PREFS = "alarm_delivery";
+    private static final String FILE_NAME = "alarm_delivery.bin";
+    private static final int HEADER_BYTES = 8;  // int next slot, int filled slots
+    private static final int RECORD_BYTES = 24; // long trigger, long lateness, int key, int mode
+
+    private static final String[] MODE_NAMES = {
+            "Exact, per alarm",
+            "Inexact, per alarm (exact alarms denied)",
+            "Exact, dispatcher",
+            "Inexact, dispatcher (exact alarms denied)",
+            "Exact, snooze and reminders",
+            "Inexact, snooze and reminders (exact alarms denied)"
+    };
+
+    // key -> trigger << MODE_BITS | mode; null until first access
+    private static HashMap<Integer, Long> cache;
+
+    private DeliveryLog() {}
+
+    /** Packs a trigger time and mode into one stored value. */
+    static long expectation(long trigger, int mode) {
+        return trigger << MODE_BITS | mode;
+    }
+
+    static long triggerOf(long expectation) {
+        return expectation >> MODE_BITS;
+    }
+
+    static int modeOf(long expectation) {
+        return (int) (expectation & ((1 << MODE_BITS) - 1));
+    }
+
+    // ------- expectations -------
+
+    /** Loads the stored expectations; call on the {@code AppStorage} thread. */
+    static synchronized void warmUp(Context ctx) {
+        loaded(ctx);
+    }
+
+    /** Records a registration; one it replaces that was already due is logged as missed. */
+    static void expect(Context ctx, int key, long trigger, int mode) {
+        HashMap<Integer, Long> one = new HashMap<>(2);
+        one.put(key, expectation(trigger, mode));
+        expectAll(ctx, one);
+    }
+
+    /** {@link #expect} for a batch of packed {@link #expectation}s, in one write. */
+    static synchronized void expectAll(Context ctx, Map<Integer, Long> expectations) {
+        if (expectations.isEmpty()) return;
+        long now = System.currentTimeMillis();
+        HashMap<Integer, Long> map = loaded(ctx);
+        ArrayList<long[]> missed = new ArrayList<>();
+        SharedPreferences.Editor e = prefs(ctx).edit();
+        for (Map.Entry<Integer, Long> entry : expectations.entrySet()) {
+            Long old = map.put(entry.getKey(), entry.getValue());
+            if (old != null && old.longValue() == entry.getValue()) continue;
+            if (old != null && triggerOf(old) < now) missed.add(missedRecord(entry.getKey(), old));
+            e.putLong(String.valueOf(entry.getKey()), entry.getValue());
+        }
+        e.apply();
+        log(ctx, missed);
+    }
+
+    /** Drops the expectation for {@code key} (its registration was cancelled). */
+    static void forget(Context ctx, int key) {
+        forgetAll(ctx, Collections.singletonList(key));
+    }
+
+    /** {@link #forget} for a batch of keys, in one write. */
+    static synchronized void forgetAll(Context ctx, Collection<Integer> keys) {
+        long now = System.currentTimeMillis();
+        HashMap<Integer, Long> map = loaded(ctx);
+        ArrayList<long[]> missed = new ArrayList<>();
+        SharedPreferences.Editor e = null;
+        for (Integer key : keys) {
+            Long old = map.remove(key);
+            if (old == null) continue;
+            if (e == null) e = prefs(ctx).edit();
+            e.remove(String.valueOf(key));
+            if (triggerOf(old) < now) missed.add(missedRecord(key, old));
+        }
+        if (e != null) e.apply();
+        log(ctx, missed);
+    }
+
+    /**
+     * A registration for {@code key} scheduled at {@code trigger} arrived at {@code deliveredAt}:
+     * logs its lateness and sweeps for expectations that are long overdue.
+     */
+    static synchronized void delivered(Context ctx, int key, long trigger, long deliveredAt) {
+        HashMap<Integer, Long> map = loaded(ctx);
+        ArrayList<long[]> out = new ArrayList<>();
+        // No expectation: registered before this log existed, or already swept as missed
+        Long exp = map.remove(key);
+        if (exp != null) {
+            prefs(ctx).edit().remove(String.valueOf(key)).apply();
+            long expected = trigger > 0 ? trigger : triggerOf(exp);
+            out.add(new long[]{expected, Math.max(0L, deliveredAt - expected), key, modeOf(exp)});
+        }
+        sweep(ctx, map, deliveredAt, out);
+        log(ctx, out);
+    }
+
+    /** App start: logs every expectation that is long overdue as missed. Runs in the background. */
+    public static void checkMissedAsync(Context ctx) {
+        final Context app = ctx.getApplicationContext();
+        AppStorage.write(() -> {
+            synchronized (DeliveryLog.class) {
+                ArrayList<long[]> missed = new ArrayList<>();
+                sweep(app, loaded(app), System.currentTimeMillis(), missed);
+                log(app, missed);
+            }
+        });
+    }
+
+    private static void sweep(Context ctx, HashMap<Integer, Long> map, long now, ArrayList<long[]> out) {
+        SharedPreferences.Editor e = null;
+        for (Iterator<Map.Entry<Integer, Long>> it = map.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Integer, Long> entry = it.next();
+            if (triggerOf(entry.getValue()) + MISSED_AFTER_MS >= now) continue;
+            out.add(missedRecord(entry.getKey(), entry.getValue()));
+            it.remove();
+            if (e == null) e = prefs(ctx).edit();
+            e.remove(String.valueOf(entry.getKey()));
+        }
+        if (e != null) e.apply();
+    }
+
+    private static long[] missedRecord(int key, long expectation) {
+        return new long[]{triggerOf(expectation), MISSED, key, modeOf(expectation)};
+    }
+
+    private static HashMap<Integer, Long> loaded(Context ctx) {
+        if (cache == null) {
+            cache = new HashMap<>();
+            for (Map.Entry<String, ?> e : prefs(ctx).getAll().entrySet()) {
+                try {
+                    if (e.getValue() instanceof Long) cache.put(Integer.parseInt(e.getKey()), (Long) e.getValue());
+                } catch (NumberFormatException ignored) {}
+            }
+        }
+        return cache;
+    }
+
+    private static SharedPreferences prefs(Context ctx) {
+        return ctx.getApplicationContext().getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+    }
+
+    // ------- ring buffer file -------
+
+    /**
+     * Per-mode lateness percentiles and missed counts, followed by the last
+     * {@link AlarmRebuilder} outcome, delivered on the main thread.
+     */
+    public static void loadSummary(Context ctx, AppStorage.Callback<String> callback) {
+        final Context app = ctx.getApplicationContext();
+        final File file = file(app);
+        AppStorage.read(() -> summarize(readAll(file)) + "\n\n" + AlarmRebuilder.lastRebuild(app), callback);
+    }
+
+    private static void log(Context ctx, ArrayList<long[]> records) {
+        if (records.isEmpty()) return;
+        final File file = file(ctx);
+        AppStorage.write(() -> append(file, records));
+    }
+
+    private static File file(Context ctx) {
+        return new File(ctx.getApplicationContext().getFilesDir(), FILE_NAME);
+    }
+
+    private static synchronized void append(File file, ArrayList<long[]> records) {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            int next = 0;
+            int filled = 0;
+            if (raf.length() >= HEADER_BYTES) {
+                next = raf.readInt();
+                filled = raf.readInt();
+                if (next < 0 || next >= CAPACITY) next = 0;
+                filled = Math.max(0, Math.min(CAPACITY, filled));
+            }
+            for (long[] r : records) {
+                raf.seek(HEADER_BYTES + (long) next * RECORD_BYTES);
+                raf.writeLong(r[0]);
+                raf.writeLong(r[1]);
+                raf.writeInt((int) r[2]);
+                raf.writeInt((int) r[3]);
+                next = (next + 1) % CAPACITY;
+                filled = Math.min(CAPACITY, filled + 1);
+            }
+
+            raf.seek(0);
+            raf.writeInt(next);
+            raf.writeInt(filled);
+        } catch (IOException ignored) {}
+    }
+
+    /** Stored outcomes as {trigger, lateness or {@link #MISSED}, key, mode}; order is not significant. */
+    private static synchronized long[][] readAll(File file) {
+        if (!file.exists()) return new long[0][];
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            raf.readInt(); // next slot
+            int filled = Math.max(0, Math.min(CAPACITY, raf.readInt()));
+            long[][] out = new long[filled][];
+            for (int i = 0; i < filled; i++) {
+                out[i] = new long[]{raf.readLong(), raf.readLong(), raf.readInt(), raf.readInt()};
+            }
+            return out;
+        } catch (IOException e) {
+            return new long[0][];
+        }
+    }
+
+    // ------- summary -------
+
+    static String summarize(long[][] records) {
+        if (records.length == 0) return "No alarms have been delivered yet.";
+        StringBuilder sb = new StringBuilder();
+        sb.append("Last ").append(records.length).append(" registrations\n");
+        long[] samples = new long[records.length];
+        for (int mode = 0; mode < MODE_COUNT; mode++) {
+            int n = 0;
+            int missed = 0;
+            for (long[] r : records) {
+                if (r[3] != mode) continue;
+                if (r[1] == MISSED) {
+                    missed++;
+                } else {
+                    samples[n++] = r[1];
+                }
+            }
+            if (n == 0 && missed == 0) continue;
+            sb.append('\n').append(MODE_NAMES[mode]).append('\n')
+              .append("  ").append(LatencyStats.of(samples, n)).append('\n')
+              .append("  missed ").append(missed);
+        }
+        return sb.toString();
+    }
+}
@@ -1,15 +1,15 @@
 package com.example.clockandtimerapp.alarm;
 
+import android.app.AlertDialog;
 import android.app.TimePickerDialog;
 import android.content.Intent;
 import android.media.Ringtone;
 import android.media.RingtoneManager;
 import android.net.Uri;
 import android.os.Bundle;
-import android.widget.ArrayAdapter;
+import android.view.ContextThemeWrapper;
 import android.widget.EditText;
 import android.widget.ImageButton;
-import android.widget.Spinner;
 import android.widget.Switch;
 import android.widget.TextView;
 import android.widget.TimePicker;
@@ -22,16 +22,16 @@ import androidx.appcompat.app.AppCompatActivity;
 import com.example.clockandtimerapp.R;
 import com.example.clockandtimerapp.alarm.utils.DayOfWeekHelper;
 import com.example.clockandtimerapp.alarm.model.Alarm;
+import com.example.clockandtimerapp.utils.TimeFormatters;
 import com.google.android.material.card.MaterialCardView; // IMPORT ADDED
 
 import java.util.Calendar;
-import java.util.List;
-import java.util.Locale;
 
 public class EditAlarmActivity extends AppCompatActivity {
 
     private TimePicker timePicker;
-    private Spinner spDay;
+    private TextView tvDays;
+    private TextView tvInterval;
     private EditText etLabel;
     private Switch swVibrate;
     // TYPE CORRECTED: Changed from LinearLayout to MaterialCardView
@@ -41,6 +41,13 @@ public class EditAlarmActivity extends AppCompatActivity {
     private int hour24 = 6;
     private int minute = 30;
     private String pickedRingtone = null;
+    private int daysMask = 0; // Alarm.daysMask bits; 0 = rings once, then turns off
+    private int intervalMinutes = 0; // 0 = rings once at the time, not an interval rule
+    private int endHour24 = 6;
+    private int endMinute = 0;
+
+    // Choices for "repeat every", in minutes (0 = off)
+    private static final int[] INTERVAL_CHOICES = {0, 5, 10, 15, 20, 30, 45, 60, 90, 120};
 
     private int editId = -1;
     private boolean isEditMode = false;
@@ -74,7 +81,8 @@ public class EditAlarmActivity extends AppCompatActivity {
         // with the TimePicker widget used in the new XML.
 
         etLabel  = findViewById(R.id.etLabel);
-        spDay    = findViewById(R.id.spDay);
+        tvDays   = findViewById(R.id.tvDays);
+        tvInterval = findViewById(R.id.tvInterval);
         swVibrate = findViewById(R.id.swVibrate);
 
         // CORRECTION: Find the MaterialCardView by its ID
@@ -82,18 +90,10 @@ public class EditAlarmActivity extends AppCompatActivity {
 
         tvPickTone = findViewById(R.id.tvPickTone);
 
-        // --- Day Adapter Setup (Dynamic) ---
-        List<String> displayDays = DayOfWeekHelper.getRelativeDayList();
-
-        ArrayAdapter<String> dayAdapter = new ArrayAdapter<>(
-                this,
-                android.R.layout.simple_spinner_item,
-                displayDays
-        );
-        dayAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
-        spDay.setAdapter(dayAdapter);
-
         // --- Event Handlers ---
+        findViewById(R.id.rowPickDays).setOnClickListener(v -> showDaysDialog());
+        findViewById(R.id.rowInterval).setOnClickListener(v -> showIntervalDialog());
+
         rowPickRingtone.setOnClickListener(v -> {
             Intent intent = new Intent(RingtoneManager.ACTION_RINGTONE_PICKER);
             intent.putExtra(RingtoneManager.EXTRA_RINGTONE_TYPE, RingtoneManager.TYPE_ALARM);
@@ -118,7 +118,10 @@ public class EditAlarmActivity extends AppCompatActivity {
             String label = in.getStringExtra("label");
             boolean vibrate = in.getBooleanExtra("vibrate", false);
             String ringtone = in.getStringExtra("ringtone");
-            String dayString = in.getStringExtra("day");
+            daysMask = in.getIntExtra("daysMask", 0);
+            intervalMinutes = in.getIntExtra("intervalMinutes", 0);
+            endHour24 = in.getIntExtra("endHour24", endHour24);
+            endMinute = in.getIntExtra("endMinute", endMinute);
 
             // Update internal state and TimePicker
             hour24 = h;
@@ -130,12 +133,6 @@ public class EditAlarmActivity extends AppCompatActivity {
             swVibrate.setChecked(vibrate);
             if (ringtone != null) pickedRingtone = ringtone;
             updateRingtoneTitle();
-
-            // Set Day Selector
-            if (dayString != null) {
-                int pos = findDayPosition(dayString, displayDays);
-                if (pos >= 0) spDay.setSelection(pos);
-            }
         } else {
             // New alarm: Set current time
             Calendar c = Calendar.getInstance();
@@ -148,6 +145,8 @@ public class EditAlarmActivity extends AppCompatActivity {
             swVibrate.setChecked(false);
             updateRingtoneTitle();
         }
+        updateDaysSummary();
+        updateIntervalSummary();
     }
 
     private void saveAndFinish() {
@@ -163,10 +162,10 @@ public class EditAlarmActivity extends AppCompatActivity {
         if (label.isEmpty()) label = "Alarm";
         data.putExtra("label", label);
 
-        // Extract the original day name from the selected item string
-        String selectedItem = spDay.getSelectedItem().toString();
-        String simpleDayName = extractSimpleDayName(selectedItem);
-        data.putExtra("day", simpleDayName);
+        data.putExtra("daysMask", daysMask);
+        data.putExtra("intervalMinutes", intervalMinutes);
+        data.putExtra("endHour24", endHour24);
+        data.putExtra("endMinute", endMinute);
 
         data.putExtra("ringtone", pickedRingtone);
         data.putExtra("vibrate", swVibrate.isChecked());
@@ -178,28 +177,73 @@ public class EditAlarmActivity extends AppCompatActivity {
         finish();
     }
 
-    private int findDayPosition(String targetSimpleDay, List<String> displayDays){
-        if (targetSimpleDay == null) return -1;
+    private void showDaysDialog() {
+        String[] names = DayOfWeekHelper.getDayNames();
+        boolean[] checked = new boolean[7];
+        for (int i = 0; i < 7; i++) checked[i] = (daysMask & (1 << i)) != 0;
+
+        new AlertDialog.Builder(new ContextThemeWrapper(this, R.style.AlertDialogDarkTheme))
+                .setTitle("Repeat on")
+                .setMultiChoiceItems(names, checked, (dialog, which, isChecked) -> checked[which] = isChecked)
+                .setPositiveButton("OK", (dialog, which) -> {
+                    int mask = 0;
+                    for (int i = 0; i < 7; i++) if (checked[i]) mask |= 1 << i;
+                    daysMask = mask;
+                    updateDaysSummary();
+                })
+                .setNeutralButton("Weekdays", (dialog, which) -> {
+                    daysMask = Alarm.WEEKDAYS;
+                    updateDaysSummary();
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
 
-        for (int i = 0; i < displayDays.size(); i++) {
-            String fullDayName = extractSimpleDayName(displayDays.get(i));
-            if (targetSimpleDay.equalsIgnoreCase(fullDayName)) return i;
+    private void showIntervalDialog() {
+        String[] options = new String[INTERVAL_CHOICES.length];
+        int checkedItem = 0;
+        for (int i = 0; i < INTERVAL_CHOICES.length; i++) {
+            options[i] = INTERVAL_CHOICES[i] == 0 ? "Off" : "Every " + INTERVAL_CHOICES[i] + " minutes";
+            if (INTERVAL_CHOICES[i] == intervalMinutes) checkedItem = i;
         }
-        return -1;
+
+        ContextThemeWrapper themed = new ContextThemeWrapper(this, R.style.AlertDialogDarkTheme);
+        new AlertDialog.Builder(themed)
+                .setTitle("Repeat during the day")
+                .setSingleChoiceItems(options, checkedItem, (dialog, which) -> {
+                    dialog.dismiss();
+                    int every = INTERVAL_CHOICES[which];
+                    if (every == 0) {
+                        intervalMinutes = 0;
+                        updateIntervalSummary();
+                        return;
+                    }
+                    // Then ask until when; the window may run past midnight
+                    new TimePickerDialog(themed, (picker, h, m) -> {
+                        intervalMinutes = every;
+                        endHour24 = h;
+                        endMinute = m;
+                        updateIntervalSummary();
+                    }, endHour24, endMinute, false).show();
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
     }
 
-    private String extractSimpleDayName(String complexDayString) {
-        int start = complexDayString.indexOf('(');
-        int end = complexDayString.indexOf(')');
-        if (start != -1 && end != -1) {
-            // Found "(DayName)": return "DayName"
-            return complexDayString.substring(start + 1, end).trim();
+    private void updateIntervalSummary() {
+        if (tvInterval == null) return;
+        if (intervalMinutes == 0) {
+            tvInterval.setText("Once at this time");
         } else {
-            // Not a complex string: return as is (should be a simple day name)
-            return complexDayString;
+            tvInterval.setText("Every " + intervalMinutes + " min until "
+                    + TimeFormatters.formatWallTime("hh:mm a", endHour24, endMinute));
         }
     }
 
+    private void updateDaysSummary() {
+        if (tvDays != null) tvDays.setText(DayOfWeekHelper.describeMask(daysMask));
+    }
+
     private void updateRingtoneTitle() {
         if (tvPickTone == null) return;
         try {
@@ -0,0 +1,140 @@
+package com.example.clockandtimerapp.alarm;
+
+import android.content.Context;
+import android.os.SystemClock;
+
+import com.example.clockandtimerapp.utils.AppStorage;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+/**
+ * Wake-to-sound latency of the last {@link #CAPACITY} alarm firings.
+ *
+ * Each firing carries a {@code long[]} of {@link SystemClock#elapsedRealtime()} stamps,
+ * one per stage (0 = stage not reached), from the receiver through the ring service to the
+ * first audible sample. Finished firings go into a fixed-size ring buffer file, so only
+ * one slot and the header are written per firing.
+ */
+public final class FireLatencyLog {
+
+    // Stages, in fire-path order
+    static final int STAGE_TRIGGER  = 0; // scheduled trigger time, mapped onto the monotonic clock
+    static final int STAGE_RECEIVED = 1; // AlarmReceiver.onReceive
+    static final int STAGE_CREATED  = 2; // ring service start
+    static final int STAGE_SHOWN    = 3; // ringing notification posted
+    static final int STAGE_SOUND    = 4; // sound (or vibration-only alert) started
+    static final int STAGE_COUNT    = 5;
+
+    static final String EXTRA_STAMPS = "latencyStamps";
+
+    static final int CAPACITY = 50;
+
+    private static final String FILE_NAME = "fire_latency.bin";
+    private static final int HEADER_BYTES = 8; // int next slot, int filled slots
+    private static final int RECORD_BYTES = STAGE_COUNT * 8;
+
+    private static final String[] SEGMENT_NAMES = {
+            "Trigger → receiver",
+            "Receiver → ring service",
+            "Ring service → shown",
+            "Shown → sound",
+            "Trigger → sound (total)"
+    };
+
+    private FireLatencyLog() {}
+
+    /** Starts a firing at the receiver; {@code triggerAtMillis} is the wall-clock trigger (0 if unknown). */
+    static long[] begin(long triggerAtMillis) {
+        long[] stamps = new long[STAGE_COUNT];
+        long now = SystemClock.elapsedRealtime();
+        stamps[STAGE_RECEIVED] = now;
+        if (triggerAtMillis > 0) {
+            long lateBy = Math.max(0L, System.currentTimeMillis() - triggerAtMillis);
+            stamps[STAGE_TRIGGER] = now - lateBy;
+        }
+        return stamps;
+    }
+
+    /** Stamps {@code stage} the first time it is reached. */
+    static void mark(long[] stamps, int stage) {
+        if (stamps != null && stamps[stage] == 0L) stamps[stage] = SystemClock.elapsedRealtime();
+    }
+
+    /** Appends a finished (or abandoned) firing to the ring buffer in the background. */
+    static void record(Context ctx, long[] stamps) {
+        if (stamps == null) return;
+        final long[] copy = stamps.clone();
+        final File file = file(ctx);
+        AppStorage.write(() -> append(file, copy));
+    }
+
+    /** Per-segment percentiles over the stored firings, delivered on the main thread. */
+    public static void loadSummary(Context ctx, AppStorage.Callback<String> callback) {
+        final File file = file(ctx);
+        AppStorage.read(() -> summarize(readAll(file)), callback);
+    }
+
+    // ------- ring buffer file -------
+
+    private static File file(Context ctx) {
+        return new File(ctx.getApplicationContext().getFilesDir(), FILE_NAME);
+    }
+
+    private static synchronized void append(File file, long[] stamps) {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            int next = 0;
+            int filled = 0;
+            if (raf.length() >= HEADER_BYTES) {
+                next = raf.readInt();
+                filled = raf.readInt();
+                if (next < 0 || next >= CAPACITY) next = 0;
+                filled = Math.max(0, Math.min(CAPACITY, filled));
+            }
+            raf.seek(HEADER_BYTES + (long) next * RECORD_BYTES);
+            for (long s : stamps) raf.writeLong(s);
+
+            raf.seek(0);
+            raf.writeInt((next + 1) % CAPACITY);
+            raf.writeInt(Math.min(CAPACITY, filled + 1));
+        } catch (IOException ignored) {}
+    }
+
+    /** Stored firings, each a stamp array; order is not significant. */
+    private static synchronized long[][] readAll(File file) {
+        if (!file.exists()) return new long[0][];
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            raf.readInt(); // next slot
+            int filled = Math.max(0, Math.min(CAPACITY, raf.readInt()));
+            long[][] out = new long[filled][STAGE_COUNT];
+            for (int i = 0; i < filled; i++) {
+                for (int s = 0; s < STAGE_COUNT; s++) out[i][s] = raf.readLong();
+            }
+            return out;
+        } catch (IOException e) {
+            return new long[0][];
+        }
+    }
+
+    // ------- summary -------
+
+    static String summarize(long[][] firings) {
+        if (firings.length == 0) return "No alarms have fired yet.";
+        StringBuilder sb = new StringBuilder();
+        sb.append("Last ").append(firings.length).append(" firings\n");
+        long[] samples = new long[firings.length];
+        for (int seg = 0; seg < SEGMENT_NAMES.length; seg++) {
+            boolean total = seg == SEGMENT_NAMES.length - 1;
+            int from = total ? STAGE_TRIGGER : seg;
+            int to = total ? STAGE_SOUND : seg + 1;
+            int n = 0;
+            for (long[] f : firings) {
+                if (f[from] > 0 && f[to] > 0 && f[to] >= f[from]) samples[n++] = f[to] - f[from];
+            }
+            sb.append('\n').append(SEGMENT_NAMES[seg]).append('\n')
+              .append("  ").append(LatencyStats.of(samples, n));
+        }
+        return sb.toString();
+    }
+}
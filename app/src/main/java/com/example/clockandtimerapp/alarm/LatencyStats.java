@@ -0,0 +1,39 @@
+package com.example.clockandtimerapp.alarm;
+
+import java.util.Arrays;
+
+/** Nearest-rank percentiles over a batch of millisecond samples. */
+final class LatencyStats {
+
+    final int count;
+    final long p50;
+    final long p95;
+    final long max;
+
+    private LatencyStats(int count, long p50, long p95, long max) {
+        this.count = count;
+        this.p50 = p50;
+        this.p95 = p95;
+        this.max = max;
+    }
+
+    /** Summarises the first {@code count} entries of {@code samples} (the array is not modified). */
+    static LatencyStats of(long[] samples, int count) {
+        if (count <= 0) return new LatencyStats(0, 0, 0, 0);
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        return new LatencyStats(count, percentile(sorted, 50), percentile(sorted, 95), sorted[count - 1]);
+    }
+
+    /** Nearest-rank percentile of an ascending, non-empty array. */
+    static long percentile(long[] sorted, int pct) {
+        int rank = (int) Math.ceil(pct / 100.0 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+
+    @Override
+    public String toString() {
+        if (count == 0) return "no samples";
+        return "p50 " + p50 + " ms, p95 " + p95 + " ms, max " + max + " ms (n=" + count + ")";
+    }
+}
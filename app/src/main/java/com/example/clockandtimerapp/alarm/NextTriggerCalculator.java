@@ -0,0 +1,197 @@
+package com.example.clockandtimerapp.alarm;
+
+import com.example.clockandtimerapp.alarm.model.Alarm;
+
+import java.util.Arrays;
+import java.util.TimeZone;
+
+/**
+ * Computes alarm occurrences with plain epoch arithmetic against a cached TimeZone,
+ * so a lookup allocates nothing (no Calendar, no Date).
+ *
+ * DST handling:
+ *  - gap (spring forward): a wall time that does not exist fires at the same distance
+ *    past the transition, e.g. 02:30 on a 02:00 -> 03:00 day fires at 03:30.
+ *  - overlap (fall back): a wall time that occurs twice fires only at its first occurrence.
+ */
+public final class NextTriggerCalculator {
+
+    static final long MINUTE_MS = 60_000L;
+    static final long DAY_MS    = 24 * 60 * MINUTE_MS;
+    static final int EVERY_DAY  = 0x7F;
+
+    // 1970-01-01 was a Thursday (Calendar.THURSDAY == 5)
+    private static final int EPOCH_DAY_OF_WEEK_OFFSET = 4;
+
+    private static volatile NextTriggerCalculator defaultZone;
+
+    private final TimeZone zone;
+
+    public NextTriggerCalculator(TimeZone zone) {
+        this.zone = (TimeZone) zone.clone();
+    }
+
+    /** Shared instance for the device zone; call {@link #invalidateDefaultZone()} when it changes. */
+    public static NextTriggerCalculator forDefaultZone() {
+        NextTriggerCalculator c = defaultZone;
+        if (c == null) {
+            c = new NextTriggerCalculator(TimeZone.getDefault());
+            defaultZone = c;
+        }
+        return c;
+    }
+
+    public static void invalidateDefaultZone() {
+        defaultZone = null;
+    }
+
+    public TimeZone getZone() {
+        return (TimeZone) zone.clone();
+    }
+
+    /**
+     * First time strictly after {@code after} at which hour24:minute occurs on
+     * {@code dayOfWeek} (Calendar.SUNDAY..SATURDAY), or on any day if dayOfWeek is -1.
+     */
+    public long next(long after, int hour24, int minute, int dayOfWeek) {
+        int mask = (dayOfWeek >= 1 && dayOfWeek <= 7) ? 1 << (dayOfWeek - 1) : 0;
+        return nextForMask(after, hour24, minute, mask);
+    }
+
+    /**
+     * First time strictly after {@code after} at which hour24:minute occurs on one of the
+     * days in {@code daysMask} (bit 0 = Sunday .. bit 6 = Saturday; 0 means whichever day
+     * comes first, the single occurrence of a one-time alarm).
+     */
+    public long nextForMask(long after, int hour24, int minute, int daysMask) {
+        int mask = daysMask & EVERY_DAY;
+        if (mask == 0) mask = EVERY_DAY;
+
+        long minuteOfDayMs = (hour24 * 60L + minute) * MINUTE_MS;
+        long today = Math.floorDiv(after + zone.getOffset(after), DAY_MS);
+
+        // Rotate so bit k means "k days from today", then scan for set bits
+        int shift = dayOfWeek(today) - 1;
+        int rotated = ((mask >>> shift) | (mask << (7 - shift))) & EVERY_DAY;
+        int k = Integer.numberOfTrailingZeros(rotated);
+
+        // At most two candidates: a DST shift never moves a wall time by a full day
+        long t = localToUtc((today + k) * DAY_MS + minuteOfDayMs);
+        if (t > after) return t;
+
+        int later = rotated & ~((2 << k) - 1);
+        int k2 = later != 0 ? Integer.numberOfTrailingZeros(later) : k + 7;
+        return localToUtc((today + k2) * DAY_MS + minuteOfDayMs);
+    }
+
+    /** First occurrence of {@code a} strictly after {@code after}, interval rules and skipped dates included. */
+    public long nextFor(long after, Alarm a) {
+        return nextForRule(after, a.hour24, a.minute, a.daysMask, a.intervalMinutes, a.windowMinutes(), a.skipDays);
+    }
+
+    /**
+     * {@link #nextForRule(long, int, int, int, int, int)} passing over occurrences on the
+     * sorted local epoch days in {@code skipDays} (for a rule, the day its window starts).
+     * Each skipped date costs one binary search and one further lookup, so an alarm
+     * never has to be disabled and re-enabled around a day off.
+     */
+    public long nextForRule(long after, int hour24, int minute, int daysMask,
+                            int intervalMinutes, int windowMinutes, int[] skipDays) {
+        long t = nextForRule(after, hour24, minute, daysMask, intervalMinutes, windowMinutes);
+        long windowMs = intervalMinutes > 0 ? windowMinutes * MINUTE_MS : 0;
+        // Every pass moves past a different skipped date, so the last candidate is never skipped
+        for (int i = 0; i < skipDays.length; i++) {
+            long start = windowStart(t, hour24, minute, daysMask, windowMs);
+            if (Arrays.binarySearch(skipDays, epochDay(start)) < 0) return t;
+            t = nextForRule(start + windowMs, hour24, minute, daysMask, intervalMinutes, windowMinutes);
+        }
+        return t;
+    }
+
+    /** Local epoch day that skipping the occurrence of {@code a} at {@code t} would add. */
+    public int occurrenceDay(long t, Alarm a) {
+        long windowMs = a.isInterval() ? a.windowMinutes() * MINUTE_MS : 0;
+        return epochDay(windowStart(t, a.hour24, a.minute, a.daysMask, windowMs));
+    }
+
+    /**
+     * True if {@code a} is a one-time alarm (no repeat days) and its occurrence at
+     * {@code firedAt} was its last: the ring of a plain alarm, or the final step of an
+     * interval rule's window. The alarm is then turned off rather than re-armed.
+     */
+    public boolean isLastOccurrence(long firedAt, Alarm a) {
+        if ((a.daysMask & EVERY_DAY) != 0) return false;
+        return occurrenceDay(nextFor(firedAt, a), a) != occurrenceDay(firedAt, a);
+    }
+
+    /** Local date of a UTC instant, as days since 1970-01-01. */
+    public int epochDay(long utcMillis) {
+        return (int) Math.floorDiv(utcMillis + zone.getOffset(utcMillis), DAY_MS);
+    }
+
+    /** Start of the window holding occurrence {@code t}; {@code t} itself for a plain alarm. */
+    private long windowStart(long t, int hour24, int minute, int daysMask, long windowMs) {
+        return windowMs == 0 ? t : nextForMask(t - windowMs - 1, hour24, minute, daysMask);
+    }
+
+    /**
+     * First occurrence strictly after {@code after} of an interval rule: every
+     * {@code intervalMinutes} from hour24:minute for {@code windowMinutes}, in windows that
+     * start on the days of {@code daysMask}. Occurrences are generated on demand from the
+     * window start, never stored. Steps are elapsed time, so a DST change inside a window
+     * moves its later wall times rather than shortening or stretching the interval.
+     * An {@code intervalMinutes} of 0 is a plain {@link #nextForMask} alarm.
+     */
+    public long nextForRule(long after, int hour24, int minute, int daysMask,
+                            int intervalMinutes, int windowMinutes) {
+        if (intervalMinutes <= 0) return nextForMask(after, hour24, minute, daysMask);
+        long stepMs = intervalMinutes * MINUTE_MS;
+        long windowMs = windowMinutes * MINUTE_MS;
+
+        // Earliest window that has not ended by 'after'; a later one starts no sooner
+        long start = nextForMask(after - windowMs - 1, hour24, minute, daysMask);
+        if (start > after) return start;
+        long nextStart = nextForMask(start, hour24, minute, daysMask);
+
+        long k = Math.floorDiv(after - start, stepMs) + 1;
+        long t = start + k * stepMs;
+        return t - start <= windowMs ? Math.min(t, nextStart) : nextStart;
+    }
+
+    /**
+     * Fills {@code out} with the next {@code n} times after {@code after} at which the alarm
+     * fires, following {@link #nextFor} (interval steps and skipped dates included).
+     * Returns the number written (min of n and out.length).
+     */
+    public int nextN(long after, Alarm a, long[] out, int n) {
+        int count = Math.min(n, out.length);
+        long t = after;
+        for (int i = 0; i < count; i++) {
+            t = nextFor(t, a);
+            out[i] = t;
+        }
+        return count;
+    }
+
+    /** Calendar.SUNDAY..SATURDAY for a local epoch day. */
+    static int dayOfWeek(long epochDay) {
+        return (int) Math.floorMod(epochDay + EPOCH_DAY_OF_WEEK_OFFSET, 7L) + 1;
+    }
+
+    /** Resolves a local wall-clock time to UTC, applying the gap/overlap rules above. */
+    long localToUtc(long localMillis) {
+        int offBefore = zone.getOffset(localMillis - DAY_MS);
+        int offAfter  = zone.getOffset(localMillis + DAY_MS);
+        long u1 = localMillis - offBefore;
+        if (offBefore == offAfter && zone.getOffset(u1) == offBefore) return u1;
+
+        long u2 = localMillis - offAfter;
+        boolean valid1 = zone.getOffset(u1) == offBefore;
+        boolean valid2 = zone.getOffset(u2) == offAfter;
+        if (valid1 && valid2) return Math.min(u1, u2); // overlap: first occurrence
+        if (valid1) return u1;
+        if (valid2) return u2;
+        // Gap: interpreting with the pre-transition offset lands just as far past the jump
+        return u1;
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.clockandtimerapp.alarm;
+
+import java.util.ArrayDeque;
+
+/**
+ * Rings waiting their turn in {@link AlarmRingService}, which sounds one alarm at a time.
+ * Alarms due in the same minute are started with "after current", so each one rings in
+ * turn once the one before it is dismissed or snoozed; any other start replaces the
+ * ring in progress. Not thread-safe: the service uses it on the main thread.
+ */
+final class RingQueue<T> {
+
+    private final ArrayDeque<T> waiting = new ArrayDeque<>();
+
+    /**
+     * True if {@code ring} should start now. False if it was queued behind the ring
+     * in progress, which happens only when {@code afterCurrent} is set and something rings.
+     */
+    boolean admit(T ring, boolean ringing, boolean afterCurrent) {
+        if (!ringing || !afterCurrent) return true;
+        waiting.add(ring);
+        return false;
+    }
+
+    /** The next ring to start once the current one is over, or null if none is waiting. */
+    T next() {
+        return waiting.poll();
+    }
+
+    int size() {
+        return waiting.size();
+    }
+
+    void clear() {
+        waiting.clear();
+    }
+}
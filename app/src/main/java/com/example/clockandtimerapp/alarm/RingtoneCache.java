@@ -0,0 +1,135 @@
+package com.example.clockandtimerapp.alarm;
+
+import android.content.Context;
+import android.media.RingtoneManager;
+import android.net.Uri;
+
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * App-private copies of alarm tones, so ringing plays a local file instead of going
+ * through a content provider at the moment the alarm fires.
+ *
+ * Files live in {@code cacheDir/ringtones}, named by a hash of the resolved tone URI.
+ * The directory is kept under {@link #MAX_CACHE_BYTES} by evicting the least recently
+ * used copies. A cached copy keeps working after the original tone is deleted; if there
+ * is no usable copy the ring path falls back to the URI itself.
+ */
+final class RingtoneCache {
+
+    static final long MAX_CACHE_BYTES = 16L * 1024 * 1024;
+    static final long MAX_FILE_BYTES  = 8L * 1024 * 1024; // longer tones are streamed, not copied
+
+    private static final String DIR = "ringtones";
+
+    private RingtoneCache() {}
+
+    /**
+     * The URI a stored ringtone string plays: the tone itself, or the device's alarm
+     * (then ringtone, then notification) sound when none is set. Null if nothing is available.
+     */
+    @Nullable
+    static Uri resolve(Context ctx, @Nullable String ringtone) {
+        if (ringtone != null && !ringtone.isEmpty()) return Uri.parse(ringtone);
+        // Actual defaults rather than the settings:// aliases, so the cache key names the real file
+        Uri uri = RingtoneManager.getActualDefaultRingtoneUri(ctx, RingtoneManager.TYPE_ALARM);
+        if (uri == null) uri = RingtoneManager.getActualDefaultRingtoneUri(ctx, RingtoneManager.TYPE_RINGTONE);
+        if (uri == null) uri = RingtoneManager.getActualDefaultRingtoneUri(ctx, RingtoneManager.TYPE_NOTIFICATION);
+        if (uri == null) uri = RingtoneManager.getDefaultUri(RingtoneManager.TYPE_ALARM);
+        return uri;
+    }
+
+    /** The cached copy of {@code uri}, or null if there is none. Marks it as recently used. */
+    @Nullable
+    static File lookup(Context ctx, @Nullable Uri uri) {
+        if (uri == null) return null;
+        File f = fileFor(ctx, uri);
+        if (!f.isFile() || f.length() == 0) return null;
+        f.setLastModified(System.currentTimeMillis());
+        return f;
+    }
+
+    /** Drops a cached copy that turned out to be unplayable. */
+    static void invalidate(Context ctx, @Nullable Uri uri) {
+        if (uri != null) fileFor(ctx, uri).delete();
+    }
+
+    /**
+     * Copies the tone into the cache unless a copy already exists. Blocking; call off the
+     * main thread. Leaves any existing copy alone if the source can no longer be read.
+     */
+    static boolean prefetch(Context ctx, @Nullable Uri uri) {
+        if (uri == null) return false;
+        if (lookup(ctx, uri) != null) return true;
+
+        File target = fileFor(ctx, uri);
+        File tmp = new File(target.getPath() + ".tmp");
+        long copied = 0;
+        try (InputStream in = ctx.getContentResolver().openInputStream(uri);
+             OutputStream out = new FileOutputStream(tmp)) {
+            if (in == null) throw new IOException("No stream for " + uri);
+            byte[] buf = new byte[16 * 1024];
+            int n;
+            while ((n = in.read(buf)) > 0) {
+                copied += n;
+                if (copied > MAX_FILE_BYTES) throw new IOException("Tone too large to cache");
+                out.write(buf, 0, n);
+            }
+        } catch (IOException | SecurityException | IllegalArgumentException e) {
+            tmp.delete();
+            return false;
+        }
+        if (copied == 0 || !tmp.renameTo(target)) {
+            tmp.delete();
+            return false;
+        }
+        evict(target.getParentFile(), target);
+        return true;
+    }
+
+    // ------- internals -------
+
+    /** Deletes least recently used files until the directory fits, never touching {@code keep}. */
+    private static void evict(File dir, File keep) {
+        File[] files = dir.listFiles();
+        if (files == null) return;
+        long total = 0;
+        for (File f : files) total += f.length();
+        if (total <= MAX_CACHE_BYTES) return;
+
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (File f : files) {
+            if (total <= MAX_CACHE_BYTES) break;
+            if (f.equals(keep)) continue;
+            long len = f.length();
+            if (f.delete()) total -= len;
+        }
+    }
+
+    private static File fileFor(Context ctx, Uri uri) {
+        File dir = new File(ctx.getCacheDir(), DIR);
+        if (!dir.isDirectory()) dir.mkdirs();
+        return new File(dir, "tone_" + hash(uri.toString()));
+    }
+
+    private static String hash(String s) {
+        try {
+            byte[] d = MessageDigest.getInstance("SHA-1").digest(s.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(d.length * 2);
+            for (byte b : d) sb.append(String.format("%02x", b));
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            return Integer.toHexString(s.hashCode());
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.clockandtimerapp.alarm;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+
+import com.example.clockandtimerapp.alarm.model.Alarm;
+
+import java.util.HashSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Copies alarm tones into {@link RingtoneCache} shortly before they are needed.
+ *
+ * Each alarm has a prefetch window opening {@link #LEAD_MS} before its next trigger.
+ * Tones whose window is already open are cached straight away; for the rest a single
+ * inexact registration wakes us when the earliest window opens, and that pass plans the
+ * next one. Every firing re-plans too, since the fired alarm's next window is new.
+ * Everything runs on a worker thread.
+ */
+final class RingtonePrefetcher {
+
+    static final String ACTION_PREFETCH = "com.example.alarm.ACTION_PREFETCH_RINGTONE";
+    static final long LEAD_MS = 10 * 60_000L;
+
+    private static final ExecutorService worker = Executors.newSingleThreadExecutor();
+
+    private RingtonePrefetcher() {}
+
+    /** Re-plans in the background after the alarm set or a schedule changed. */
+    static void rearmAsync(Context ctx) {
+        final Context appContext = ctx.getApplicationContext();
+        worker.execute(() -> rearm(appContext));
+    }
+
+    /** Handles the prefetch broadcast inside the receiver's goAsync() window. */
+    static void onPrefetch(Context ctx, BroadcastReceiver.PendingResult pending) {
+        final Context appContext = ctx.getApplicationContext();
+        worker.execute(() -> {
+            try {
+                rearm(appContext);
+            } finally {
+                pending.finish();
+            }
+        });
+    }
+
+    /** Caches every tone whose window is open and registers the next window. Blocking. */
+    static void rearm(Context ctx) {
+        long now = System.currentTimeMillis();
+        NextTriggerCalculator calc = NextTriggerCalculator.forDefaultZone();
+        long nextWindow = Long.MAX_VALUE;
+        HashSet<String> fetched = new HashSet<>();
+
+        for (Alarm a : AlarmRepository.get(ctx).getAll()) {
+            if (!a.enabled) continue;
+            long window = calc.nextFor(now, a) - LEAD_MS;
+            if (window <= now) {
+                String key = a.ringtone == null ? "" : a.ringtone;
+                if (fetched.add(key)) RingtoneCache.prefetch(ctx, RingtoneCache.resolve(ctx, a.ringtone));
+            } else if (window < nextWindow) {
+                nextWindow = window;
+            }
+        }
+
+        AlarmManager am = (AlarmManager) ctx.getSystemService(Context.ALARM_SERVICE);
+        PendingIntent pi = buildPrefetchIntent(ctx);
+        if (nextWindow == Long.MAX_VALUE) {
+            am.cancel(pi);
+        } else {
+            // Inexact is fine: a late prefetch only means the ring path reads the original URI
+            am.setAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, nextWindow, pi);
+        }
+    }
+
+    private static PendingIntent buildPrefetchIntent(Context ctx) {
+        Intent i = new Intent(ctx, AlarmReceiver.class);
+        i.setAction(ACTION_PREFETCH);
+        int flags = PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE;
+        return PendingIntent.getBroadcast(ctx,
+                AlarmRequestCodes.of(AlarmRequestCodes.PREFETCH, AlarmIdAllocator.NO_ID), i, flags);
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.clockandtimerapp.alarm;
+
+/**
+ * Binary min-heap of (triggerAtMillis, alarmId) pairs held in parallel primitive arrays,
+ * so pushing and popping never boxes. Not thread-safe.
+ */
+final class TriggerHeap {
+
+    private long[] triggers;
+    private int[] ids;
+    private int size;
+
+    TriggerHeap() {
+        this(16);
+    }
+
+    TriggerHeap(int capacity) {
+        triggers = new long[Math.max(1, capacity)];
+        ids = new int[triggers.length];
+    }
+
+    int size()          { return size; }
+    boolean isEmpty()   { return size == 0; }
+    void clear()        { size = 0; }
+
+    /** Earliest trigger time; only valid when not empty. */
+    long peekTrigger()  { return triggers[0]; }
+    int peekId()        { return ids[0]; }
+
+    void push(long trigger, int id) {
+        if (size == triggers.length) grow();
+        int i = size++;
+        // sift up
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (triggers[parent] <= trigger) break;
+            triggers[i] = triggers[parent];
+            ids[i] = ids[parent];
+            i = parent;
+        }
+        triggers[i] = trigger;
+        ids[i] = id;
+    }
+
+    /** Removes the earliest entry and returns its alarm id. */
+    int pop() {
+        int top = ids[0];
+        size--;
+        if (size > 0) {
+            long t = triggers[size];
+            int id = ids[size];
+            int i = 0;
+            // sift down
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) break;
+                if (child + 1 < size && triggers[child + 1] < triggers[child]) child++;
+                if (triggers[child] >= t) break;
+                triggers[i] = triggers[child];
+                ids[i] = ids[child];
+                i = child;
+            }
+            triggers[i] = t;
+            ids[i] = id;
+        }
+        return top;
+    }
+
+    private void grow() {
+        long[] t = new long[triggers.length * 2];
+        int[] d = new int[t.length];
+        System.arraycopy(triggers, 0, t, 0, size);
+        System.arraycopy(ids, 0, d, 0, size);
+        triggers = t;
+        ids = d;
+    }
+}
@@ -0,0 +1,254 @@
+package com.example.clockandtimerapp.alarm;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.util.Log;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Every follow-up wake-up a ring leaves behind (snoozes and ringing-notification
+ * reminders) held in one time-ordered queue, with a single AlarmManager registration
+ * for its earliest entry.
+ *
+ * Entries live in their own preference file keyed by kind and alarm id, so a snooze
+ * survives a restart and never touches the alarm's own recurring registration.
+ * The registration is recorded in {@link DeliveryLog} under the head's kind, so snooze
+ * lateness and silent downgrades to inexact delivery show up beside the alarms' own.
+ */
+final class WakeupQueue {
+
+    // Event kinds
+    static final int SNOOZE   = 0; // ring the alarm again
+    static final int RENOTIFY = 1; // re-post the ringing notification while it still rings
+
+    static final String ACTION_WAKEUP = "com.example.alarm.ACTION_WAKEUP";
+
+    private static final String TAG = "WakeupQueue";
+    private static final String PREFS = "alarm_wakeups";
+    private static final Gson gson = new Gson();
+
+    /** One pending wake-up. Field names are the stored JSON keys. */
+    static final class Event {
+        int kind;
+        int alarmId;
+        long dueAt;
+        String label;
+        String ringtone;
+        boolean vibrate;
+
+        Event(int kind, int alarmId, long dueAt, String label, String ringtone, boolean vibrate) {
+            this.kind = kind;
+            this.alarmId = alarmId;
+            this.dueAt = dueAt;
+            this.label = label;
+            this.ringtone = ringtone;
+            this.vibrate = vibrate;
+        }
+
+        String key() {
+            return key(kind, alarmId);
+        }
+    }
+
+    private static ArrayList<Event> queue; // ascending dueAt; null until first access
+    private static long armedAt = -1L;     // what is registered with AlarmManager, -1 for nothing
+    private static final int[] KINDS = {SNOOZE, RENOTIFY};
+
+    private WakeupQueue() {}
+
+    /** Loads and parses the stored queue; call on the {@code AppStorage} thread. */
+    static synchronized void warmUp(Context ctx) {
+        loaded(ctx);
+    }
+
+    /** Adds {@code e}, replacing any pending event of the same kind for the same alarm. */
+    static synchronized void schedule(Context ctx, Event e) {
+        ArrayList<Event> q = loaded(ctx);
+        removeLocked(q, e.kind, e.alarmId);
+        int i = 0;
+        while (i < q.size() && q.get(i).dueAt <= e.dueAt) i++;
+        q.add(i, e);
+        prefs(ctx).edit().putString(e.key(), gson.toJson(e)).apply();
+        arm(ctx);
+    }
+
+    static synchronized void cancel(Context ctx, int kind, int alarmId) {
+        if (!removeLocked(loaded(ctx), kind, alarmId)) return;
+        prefs(ctx).edit().remove(key(kind, alarmId)).apply();
+        arm(ctx);
+    }
+
+    /** Drops every pending event for an alarm (it was disabled, edited or deleted). */
+    static synchronized void cancelAlarm(Context ctx, int alarmId) {
+        ArrayList<Event> q = loaded(ctx);
+        SharedPreferences.Editor editor = prefs(ctx).edit();
+        boolean changed = false;
+        for (int i = q.size() - 1; i >= 0; i--) {
+            Event e = q.get(i);
+            if (e.alarmId != alarmId) continue;
+            q.remove(i);
+            editor.remove(e.key());
+            changed = true;
+        }
+        if (!changed) return;
+        editor.apply();
+        arm(ctx);
+    }
+
+    /**
+     * Re-registers the head after boot or a clock change. Reminders for a ring that a
+     * reboot ended are dropped; snoozes are kept and fire at once if already overdue.
+     */
+    static synchronized void rebuild(Context ctx, boolean registrationsLost) {
+        ArrayList<Event> q = loaded(ctx);
+        if (registrationsLost) {
+            SharedPreferences.Editor editor = prefs(ctx).edit();
+            for (int i = q.size() - 1; i >= 0; i--) {
+                if (q.get(i).kind != RENOTIFY) continue;
+                editor.remove(q.remove(i).key());
+            }
+            editor.apply();
+        }
+        armedAt = -1L;
+        arm(ctx);
+    }
+
+    /**
+     * Handles the queue's broadcast: takes every due event off the queue, re-arms, then acts on them.
+     * Blocking; the receiver calls it on the {@code AppStorage} thread.
+     */
+    static void onWakeup(Context ctx) {
+        List<Event> due = new ArrayList<>();
+        synchronized (WakeupQueue.class) {
+            ArrayList<Event> q = loaded(ctx);
+            long now = System.currentTimeMillis();
+            SharedPreferences.Editor editor = prefs(ctx).edit();
+            boolean[] logged = new boolean[KINDS.length];
+            while (!q.isEmpty() && q.get(0).dueAt <= now) {
+                Event e = q.remove(0);
+                editor.remove(e.key());
+                due.add(e);
+                // The earliest event of each kind is the one a registration was made for
+                if (e.kind >= 0 && e.kind < KINDS.length && !logged[e.kind]) {
+                    logged[e.kind] = true;
+                    DeliveryLog.delivered(ctx, DeliveryLog.wakeupKey(e.kind), e.dueAt, now);
+                }
+            }
+            editor.apply();
+            armedAt = -1L; // the registration that woke us is consumed
+            arm(ctx);
+        }
+
+        boolean rang = false;
+        for (Event e : due) {
+            if (e.kind == SNOOZE) {
+                // Snoozes due together ring in turn, like the dispatcher's same-minute alarms
+                AlarmReceiver.ring(ctx, e.alarmId, e.label, e.vibrate, e.ringtone, FireLatencyLog.begin(e.dueAt), rang);
+                rang = true;
+            } else if (e.kind == RENOTIFY) {
+                try {
+                    ctx.startService(AlarmRingService.actionIntent(ctx, AlarmRingService.ACTION_RENOTIFY, e.alarmId, e.label));
+                } catch (IllegalStateException ignored) {
+                    // Service no longer running in the foreground: the ring is over
+                }
+            }
+        }
+    }
+
+    // ------- internals -------
+
+    /** Registers the earliest event with AlarmManager, or clears the registration when empty. */
+    private static void arm(Context ctx) {
+        ArrayList<Event> q = loaded(ctx);
+        AlarmManager am = (AlarmManager) ctx.getSystemService(Context.ALARM_SERVICE);
+        PendingIntent pi = buildWakeupIntent(ctx);
+        if (q.isEmpty()) {
+            am.cancel(pi); // unconditionally: a previous process may have registered it
+            forgetExpectations(ctx, -1);
+            armedAt = -1L;
+            return;
+        }
+
+        Event head = q.get(0);
+        long at = head.dueAt;
+        if (at == armedAt) return; // already registered
+        int mode = DeliveryLog.MODE_WAKEUP;
+        try {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S && !am.canScheduleExactAlarms()) {
+                am.setAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, at, pi);
+                mode = DeliveryLog.MODE_WAKEUP_INEXACT;
+            } else {
+                am.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, at, pi);
+            }
+        } catch (SecurityException e) {
+            Log.w(TAG, "Exact alarm permission missing, arming inexact wake-up", e);
+            am.setAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, at, pi);
+            mode = DeliveryLog.MODE_WAKEUP_INEXACT;
+        }
+        // The one registration now stands for the head's kind only
+        forgetExpectations(ctx, head.kind);
+        DeliveryLog.expect(ctx, DeliveryLog.wakeupKey(head.kind), at, mode);
+        armedAt = at;
+    }
+
+    /** Drops the delivery expectations of every kind except {@code keepKind} (-1 for none). */
+    private static void forgetExpectations(Context ctx, int keepKind) {
+        ArrayList<Integer> keys = new ArrayList<>(KINDS.length);
+        for (int kind : KINDS) {
+            if (kind != keepKind) keys.add(DeliveryLog.wakeupKey(kind));
+        }
+        DeliveryLog.forgetAll(ctx, keys);
+    }
+
+    private static boolean removeLocked(ArrayList<Event> q, int kind, int alarmId) {
+        for (int i = 0; i < q.size(); i++) {
+            Event e = q.get(i);
+            if (e.kind == kind && e.alarmId == alarmId) {
+                q.remove(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static ArrayList<Event> loaded(Context ctx) {
+        if (queue == null) {
+            queue = new ArrayList<>();
+            for (Map.Entry<String, ?> entry : prefs(ctx).getAll().entrySet()) {
+                if (!(entry.getValue() instanceof String)) continue;
+                try {
+                    Event e = gson.fromJson((String) entry.getValue(), Event.class);
+                    if (e != null) queue.add(e);
+                } catch (JsonSyntaxException ignored) {}
+            }
+            queue.sort((a, b) -> Long.compare(a.dueAt, b.dueAt));
+        }
+        return queue;
+    }
+
+    private static PendingIntent buildWakeupIntent(Context ctx) {
+        Intent i = new Intent(ctx, AlarmReceiver.class);
+        i.setAction(ACTION_WAKEUP);
+        int flags = PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE;
+        return PendingIntent.getBroadcast(ctx,
+                AlarmRequestCodes.of(AlarmRequestCodes.WAKEUP, AlarmIdAllocator.NO_ID), i, flags);
+    }
+
+    private static String key(int kind, int alarmId) {
+        return kind + ":" + alarmId;
+    }
+
+    private static SharedPreferences prefs(Context ctx) {
+        return ctx.getApplicationContext().getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+    }
+}
@@ -2,7 +2,18 @@ package com.example.clockandtimerapp.alarm.model;
 
 import android.net.Uri;
 
+import java.util.Arrays;
+
 public class Alarm {
+    // Bit (Calendar day - 1) of daysMask, i.e. SUNDAY = bit 0 .. SATURDAY = bit 6
+    public static final int EVERY_DAY = 0x7F;
+    public static final int WEEKDAYS  = 0x3E;
+    public static final int WEEKENDS  = 0x41;
+
+    public static final int MAX_INTERVAL_MINUTES = 12 * 60;
+
+    public static final int[] NO_SKIPS = new int[0];
+
     public int id;           // unique per alarm (used for PendingIntent requestCode)
     public int hour24;       // 0..23
     public int minute;       // 0..59
@@ -10,7 +21,16 @@ public class Alarm {
     public boolean enabled;  // scheduled or not
     public String ringtone;  // Uri.toString() or null
     public boolean vibrate;  // vibrate on fire
-    public int dayOfWeek;    // Calendar.SUNDAY..SATURDAY, or -1 for 'no specific day'
+    public int daysMask;     // repeat days (see EVERY_DAY), or 0 to ring once and turn off
+    // Interval rule: fire every intervalMinutes from hour24:minute up to endHour24:endMinute
+    // (which may be past midnight). The days mask picks the days a window starts on.
+    public int intervalMinutes; // 0 = a single time, not a rule
+    public int endHour24;
+    public int endMinute;
+    // Local dates (days since 1970-01-01) whose occurrence is skipped, ascending. For an
+    // interval rule the date is the day its window starts. Never modified in place, so
+    // copies may share the array.
+    public int[] skipDays = NO_SKIPS;
 
     public Alarm(int id, int hour24, int minute, String label, boolean enabled, String ringtone, boolean vibrate){
         this.id = id;
@@ -20,10 +40,10 @@ public class Alarm {
         this.enabled = enabled;
         this.ringtone = ringtone;
         this.vibrate = vibrate;
-        this.dayOfWeek = -1;
+        this.daysMask = 0;
     }
 
-    public Alarm(int id, int hour24, int minute, String label, boolean enabled, String ringtone, boolean vibrate, int dayOfWeek){
+    public Alarm(int id, int hour24, int minute, String label, boolean enabled, String ringtone, boolean vibrate, int daysMask){
         this.id = id;
         this.hour24 = hour24;
         this.minute = minute;
@@ -31,7 +51,80 @@ public class Alarm {
         this.enabled = enabled;
         this.ringtone = ringtone;
         this.vibrate = vibrate;
-        this.dayOfWeek = dayOfWeek;
+        this.daysMask = daysMask & EVERY_DAY;
+    }
+
+    public Alarm(Alarm other){
+        this(other.id, other.hour24, other.minute, other.label, other.enabled, other.ringtone, other.vibrate, other.daysMask);
+        this.intervalMinutes = other.intervalMinutes;
+        this.endHour24 = other.endHour24;
+        this.endMinute = other.endMinute;
+        this.skipDays = other.skipDays;
+    }
+
+    /** Turns this alarm into an interval rule, or back into a single time with {@code everyMinutes} 0. */
+    public void setInterval(int everyMinutes, int endHour24, int endMinute) {
+        if (everyMinutes <= 0) {
+            this.intervalMinutes = 0;
+            this.endHour24 = 0;
+            this.endMinute = 0;
+            return;
+        }
+        this.intervalMinutes = Math.min(everyMinutes, MAX_INTERVAL_MINUTES);
+        this.endHour24 = endHour24;
+        this.endMinute = endMinute;
+    }
+
+    public boolean isInterval() {
+        return intervalMinutes > 0;
+    }
+
+    /** Length of an interval rule's window in minutes, wrapping past midnight; 0 for a single time. */
+    public int windowMinutes() {
+        return windowMinutes(intervalMinutes, hour24, minute, endHour24, endMinute);
+    }
+
+    public static int windowMinutes(int intervalMinutes, int hour24, int minute, int endHour24, int endMinute) {
+        if (intervalMinutes <= 0) return 0;
+        return Math.floorMod((endHour24 * 60 + endMinute) - (hour24 * 60 + minute), 24 * 60);
+    }
+
+    public boolean isSkipped(int epochDay) {
+        return Arrays.binarySearch(skipDays, epochDay) >= 0;
+    }
+
+    /** Skips the occurrence on a local date; no-op if already skipped. */
+    public void skip(int epochDay) {
+        int i = Arrays.binarySearch(skipDays, epochDay);
+        if (i >= 0) return;
+        i = -i - 1;
+        int[] days = new int[skipDays.length + 1];
+        System.arraycopy(skipDays, 0, days, 0, i);
+        days[i] = epochDay;
+        System.arraycopy(skipDays, i, days, i + 1, skipDays.length - i);
+        skipDays = days;
+    }
+
+    public void clearSkips() {
+        skipDays = NO_SKIPS;
+    }
+
+    /** Drops skipped dates before {@code epochDay}; returns true if any were dropped. */
+    public boolean pruneSkipsBefore(int epochDay) {
+        int i = Arrays.binarySearch(skipDays, epochDay);
+        int from = i >= 0 ? i : -i - 1;
+        if (from == 0) return false;
+        skipDays = from == skipDays.length ? NO_SKIPS : Arrays.copyOfRange(skipDays, from, skipDays.length);
+        return true;
+    }
+
+    /** Mask for a single Calendar.SUNDAY..SATURDAY day; anything else maps to 'no specific day'. */
+    public static int maskForDay(int calendarDay) {
+        return (calendarDay >= 1 && calendarDay <= 7) ? 1 << (calendarDay - 1) : 0;
+    }
+
+    public boolean repeatsOn(int calendarDay) {
+        return daysMask == 0 || (daysMask & maskForDay(calendarDay)) != 0;
     }
 
     public String displayTime() {
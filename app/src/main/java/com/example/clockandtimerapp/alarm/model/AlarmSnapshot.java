@@ -0,0 +1,84 @@
+package com.example.clockandtimerapp.alarm.model;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Immutable copy of an {@link Alarm} for the list UI. Rows and the adapter's diff only
+ * ever see snapshots, so editing an alarm can never change an item the differ is still
+ * comparing against.
+ */
+public final class AlarmSnapshot {
+
+    // Change payload bits, see diff()
+    public static final int CHANGE_TOGGLE = 1;
+    public static final int CHANGE_LABEL  = 1 << 1;
+    public static final int CHANGE_TIME   = 1 << 2;
+    public static final int CHANGE_DAYS   = 1 << 3;
+
+    public final int id;
+    public final int hour24;
+    public final int minute;
+    public final String label;
+    public final boolean enabled;
+    public final String ringtone;
+    public final boolean vibrate;
+    public final int daysMask;
+    public final int intervalMinutes;
+    public final int endHour24;
+    public final int endMinute;
+    public final int[] skipDays; // shared with the Alarm it came from; never modified
+
+    private AlarmSnapshot(Alarm a) {
+        id = a.id;
+        hour24 = a.hour24;
+        minute = a.minute;
+        label = a.label;
+        enabled = a.enabled;
+        ringtone = a.ringtone;
+        vibrate = a.vibrate;
+        daysMask = a.daysMask;
+        intervalMinutes = a.intervalMinutes;
+        endHour24 = a.endHour24;
+        endMinute = a.endMinute;
+        skipDays = a.skipDays;
+    }
+
+    public static AlarmSnapshot of(Alarm a) {
+        return new AlarmSnapshot(a);
+    }
+
+    /** A mutable copy, for editing and scheduling. */
+    public Alarm toAlarm() {
+        Alarm a = new Alarm(id, hour24, minute, label, enabled, ringtone, vibrate, daysMask);
+        a.setInterval(intervalMinutes, endHour24, endMinute);
+        a.skipDays = skipDays;
+        return a;
+    }
+
+    public boolean isInterval() {
+        return intervalMinutes > 0;
+    }
+
+    /**
+     * CHANGE_* bits for the fields a row displays that differ from {@code other}. Zero
+     * can still mean a change (ringtone or vibrate), just not a visible one.
+     */
+    public int diff(AlarmSnapshot other) {
+        int changes = 0;
+        if (enabled != other.enabled) changes |= CHANGE_TOGGLE;
+        if (!Objects.equals(label, other.label)) changes |= CHANGE_LABEL;
+        if (hour24 != other.hour24 || minute != other.minute) changes |= CHANGE_TIME;
+        // The days line also shows an interval rule's step and end, and skipped dates
+        if (daysMask != other.daysMask || intervalMinutes != other.intervalMinutes
+                || endHour24 != other.endHour24 || endMinute != other.endMinute
+                || !Arrays.equals(skipDays, other.skipDays)) changes |= CHANGE_DAYS;
+        return changes;
+    }
+
+    public boolean sameContents(AlarmSnapshot other) {
+        return diff(other) == 0
+                && vibrate == other.vibrate
+                && Objects.equals(ringtone, other.ringtone);
+    }
+}
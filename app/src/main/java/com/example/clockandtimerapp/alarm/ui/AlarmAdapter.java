@@ -14,23 +14,25 @@ import androidx.recyclerview.widget.RecyclerView;
 
 // CORRECTED R IMPORT: References the main application's resource file
 import com.example.clockandtimerapp.R;
+import com.example.clockandtimerapp.alarm.NextTriggerCalculator;
 // CORRECTED MODEL IMPORT: References the Alarm class from its new location
-import com.example.clockandtimerapp.alarm.model.Alarm;
+import com.example.clockandtimerapp.alarm.model.AlarmSnapshot;
+import com.example.clockandtimerapp.alarm.utils.DayOfWeekHelper;
+import com.example.clockandtimerapp.utils.TimeFormatters;
 import com.google.android.material.materialswitch.MaterialSwitch;
-import com.google.android.material.switchmaterial.SwitchMaterial;
 
-import java.util.Calendar;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
-import java.util.Objects;
-import java.text.SimpleDateFormat;
 
-public class AlarmAdapter extends ListAdapter<Alarm, AlarmAdapter.AlarmViewHolder> {
+public class AlarmAdapter extends ListAdapter<AlarmSnapshot, AlarmAdapter.AlarmViewHolder> {
 
+    /** Row actions, by alarm id: positions go stale while a diff is being applied. */
     public interface Callbacks {
-        void onToggle(int position, boolean on);
-        void onDelete(int position);
-        void onEdit(int position);
+        void onToggle(int alarmId, boolean on);
+        void onDelete(int alarmId);
+        void onEdit(int alarmId);
+        void onSkipDates(int alarmId);
     }
 
     private final Callbacks callbacks;
@@ -38,6 +40,12 @@ public class AlarmAdapter extends ListAdapter<Alarm, AlarmAdapter.AlarmViewHolde
     public AlarmAdapter(Callbacks callbacks) {
         super(DIFF_CALLBACK);
         this.callbacks = callbacks;
+        setHasStableIds(true);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return getItem(position).id;
     }
 
     @NonNull
@@ -51,11 +59,23 @@ public class AlarmAdapter extends ListAdapter<Alarm, AlarmAdapter.AlarmViewHolde
 
     @Override
     public void onBindViewHolder(@NonNull AlarmViewHolder holder, int position) {
-        Alarm alarm = getItem(position);
-        holder.bind(alarm, position);
+        holder.bind(getItem(position));
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull AlarmViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+        int changes = 0;
+        for (Object p : payloads) {
+            if (p instanceof Integer) changes |= (Integer) p;
+        }
+        holder.bindChanges(getItem(position), changes);
     }
 
-    public void submit(List<Alarm> list) {
+    public void submit(List<AlarmSnapshot> list) {
         super.submitList(list);
     }
 
@@ -67,6 +87,9 @@ public class AlarmAdapter extends ListAdapter<Alarm, AlarmAdapter.AlarmViewHolde
         private final ImageButton btnDelete;
         // NOTE: btnEdit is removed/handled by itemView click since it's not a separate ID in item_alarm.xml
 
+        private int alarmId;      // id of the bound alarm; listeners read it at click time
+        private boolean binding;  // true while bind code sets the switch
+
         public AlarmViewHolder(@NonNull View itemView) {
             super(itemView);
 
@@ -76,47 +99,13 @@ public class AlarmAdapter extends ListAdapter<Alarm, AlarmAdapter.AlarmViewHolde
             tvDay = itemView.findViewById(R.id.tvDay);             // Matches XML ID: tvDay
             switchToggle = itemView.findViewById(R.id.switchOn);   // Matches XML ID: switchOn
             btnDelete = itemView.findViewById(R.id.btnDelete);     // Matches XML ID: btnDelete
-        }
 
-        public void bind(Alarm alarm, int position) {
+            // Listeners are set once; they act on whichever alarm is bound when clicked
             Context context = itemView.getContext();
-
-            // 1. FIX: Display AM/PM (Time Formatting)
-            try {
-                Calendar c = Calendar.getInstance();
-                c.set(Calendar.HOUR_OF_DAY, alarm.hour24);
-                c.set(Calendar.MINUTE, alarm.minute);
-
-                // Format to "hh:mm a" (e.g., "04:30 AM")
-                SimpleDateFormat sdf = new SimpleDateFormat("hh:mm a", Locale.getDefault());
-                String timeFormatted = sdf.format(c.getTime());
-                tvTime.setText(timeFormatted);
-            } catch (Exception e) {
-                // Fallback in case of formatting error
-                tvTime.setText(String.format(Locale.getDefault(), "%02d:%02d", alarm.hour24, alarm.minute));
-            }
-
-            // Label
-            tvLabel.setText(alarm.label);
-
-            // Day of Week
-            tvDay.setText(mapCalendarToDayString(alarm.dayOfWeek));
-
-            // 2. FIX: Prevent infinite loop and Schedule immediately if enabled
-
-            // Crucial: Remove listener before setting state to prevent infinite loop
-            switchToggle.setOnCheckedChangeListener(null);
-            switchToggle.setChecked(alarm.enabled);
-
-            // Logic: If the alarm is enabled but was just created/edited, we rely on
-            // the fragment's ActivityResultLauncher to handle the *initial* scheduling.
-            // However, if the toggle is clicked *by the user*, we update the state and schedule.
-
-            // Set Toggle Listener
             switchToggle.setOnCheckedChangeListener((buttonView, isChecked) -> {
-                // This block runs ONLY when the user clicks the switch
+                if (binding) return; // set by bindToggle(), not the user
                 if (callbacks != null) {
-                    callbacks.onToggle(position, isChecked);
+                    callbacks.onToggle(alarmId, isChecked);
                     String status = isChecked ? "Alarm ON" : "Alarm OFF";
                     Toast.makeText(context, status, Toast.LENGTH_SHORT).show();
                 }
@@ -125,7 +114,7 @@ public class AlarmAdapter extends ListAdapter<Alarm, AlarmAdapter.AlarmViewHolde
             // Delete Button Listener
             btnDelete.setOnClickListener(v -> {
                 if (callbacks != null) {
-                    callbacks.onDelete(position);
+                    callbacks.onDelete(alarmId);
                     Toast.makeText(context, "Alarm Deleted", Toast.LENGTH_SHORT).show();
                 }
             });
@@ -133,46 +122,92 @@ public class AlarmAdapter extends ListAdapter<Alarm, AlarmAdapter.AlarmViewHolde
             // Edit Listener: The entire item view handles the edit action
             itemView.setOnClickListener(v -> {
                 if (callbacks != null) {
-                    callbacks.onEdit(position);
+                    callbacks.onEdit(alarmId);
                 }
             });
+
+            // Long press: skip an occurrence without turning the alarm off
+            itemView.setOnLongClickListener(v -> {
+                if (callbacks == null) return false;
+                callbacks.onSkipDates(alarmId);
+                return true;
+            });
         }
-    }
 
-    private static final DiffUtil.ItemCallback<Alarm> DIFF_CALLBACK = new DiffUtil.ItemCallback<Alarm>() {
-        @Override
-        public boolean areItemsTheSame(@NonNull Alarm oldItem, @NonNull Alarm newItem) {
-            return oldItem.id == newItem.id;
+        public void bind(AlarmSnapshot alarm) {
+            alarmId = alarm.id;
+            bindTime(alarm);
+            tvLabel.setText(alarm.label);
+            bindDays(alarm);
+            bindToggle(alarm.enabled);
         }
 
-        @Override
-        public boolean areContentsTheSame(@NonNull Alarm oldItem, @NonNull Alarm newItem) {
+        /** Updates only the views named by {@code changes} (AlarmSnapshot.CHANGE_* bits). */
+        public void bindChanges(AlarmSnapshot alarm, int changes) {
+            alarmId = alarm.id;
+            if ((changes & AlarmSnapshot.CHANGE_TIME) != 0) bindTime(alarm);
+            if ((changes & AlarmSnapshot.CHANGE_LABEL) != 0) tvLabel.setText(alarm.label);
+            if ((changes & AlarmSnapshot.CHANGE_DAYS) != 0) bindDays(alarm);
+            if ((changes & AlarmSnapshot.CHANGE_TOGGLE) != 0) bindToggle(alarm.enabled);
+        }
 
-            boolean primitivesSame = oldItem.hour24 == newItem.hour24 &&
-                    oldItem.minute == newItem.minute &&
-                    oldItem.enabled == newItem.enabled &&
-                    oldItem.vibrate == newItem.vibrate &&
-                    oldItem.dayOfWeek == newItem.dayOfWeek;
+        private void bindTime(AlarmSnapshot alarm) {
+            // 1. FIX: Display AM/PM (Time Formatting)
+            try {
+                // Format to "hh:mm a" (e.g., "04:30 AM")
+                tvTime.setText(TimeFormatters.formatWallTime("hh:mm a", alarm.hour24, alarm.minute));
+            } catch (Exception e) {
+                // Fallback in case of formatting error
+                tvTime.setText(String.format(Locale.getDefault(), "%02d:%02d", alarm.hour24, alarm.minute));
+            }
+        }
 
-            // Check String fields using null-safe comparison
-            // FIX: Use Objects.equals for null-safe comparison
-            boolean labelSame = Objects.equals(oldItem.label, newItem.label);
-            boolean ringtoneSame = Objects.equals(oldItem.ringtone, newItem.ringtone);
+        private void bindDays(AlarmSnapshot alarm) {
+            String days = DayOfWeekHelper.describeMask(alarm.daysMask);
+            if (alarm.isInterval()) {
+                // One row per rule, however many times it fires
+                days += " · every " + alarm.intervalMinutes + " min until "
+                        + TimeFormatters.formatWallTime("hh:mm a", alarm.endHour24, alarm.endMinute);
+            }
+            tvDay.setText(days + describeSkips(alarm.skipDays));
+        }
 
-            return primitivesSame && labelSame && ringtoneSame;
+        /** " · skipping Mon 12 Oct" for the next skipped date, plus how many more follow. */
+        private String describeSkips(int[] skipDays) {
+            if (skipDays.length == 0) return "";
+            int today = NextTriggerCalculator.forDefaultZone().epochDay(System.currentTimeMillis());
+            int i = Arrays.binarySearch(skipDays, today);
+            if (i < 0) i = -i - 1;
+            if (i == skipDays.length) return ""; // only yesterday's, not yet pruned
+            String s = " · skipping " + TimeFormatters.formatLocalDate("EEE d MMM", skipDays[i]);
+            int more = skipDays.length - i - 1;
+            return more > 0 ? s + " +" + more : s;
         }
-    };
 
-    private String mapCalendarToDayString(int dayOfWeek){
-        switch (dayOfWeek){
-            case Calendar.SUNDAY: return "Sunday";
-            case Calendar.MONDAY: return "Monday";
-            case Calendar.TUESDAY: return "Tuesday";
-            case Calendar.WEDNESDAY: return "Wednesday";
-            case Calendar.THURSDAY: return "Thursday";
-            case Calendar.FRIDAY: return "Friday";
-            case Calendar.SATURDAY: return "Saturday";
-            default: return "Daily";
+        private void bindToggle(boolean enabled) {
+            // The switch may already show the new state (the user flipped it): don't re-fire the listener
+            if (switchToggle.isChecked() == enabled) return;
+            binding = true;
+            switchToggle.setChecked(enabled);
+            binding = false;
         }
     }
-}
\ No newline at end of file
+
+    private static final DiffUtil.ItemCallback<AlarmSnapshot> DIFF_CALLBACK = new DiffUtil.ItemCallback<AlarmSnapshot>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull AlarmSnapshot oldItem, @NonNull AlarmSnapshot newItem) {
+            return oldItem.id == newItem.id;
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull AlarmSnapshot oldItem, @NonNull AlarmSnapshot newItem) {
+            return oldItem.sameContents(newItem);
+        }
+
+        @Override
+        public Object getChangePayload(@NonNull AlarmSnapshot oldItem, @NonNull AlarmSnapshot newItem) {
+            // A zero payload (ringtone/vibrate only) still counts as a partial bind: nothing to redraw
+            return oldItem.diff(newItem);
+        }
+    };
+}
@@ -1,5 +1,7 @@
 package com.example.clockandtimerapp.alarm.utils;
 
+import com.example.clockandtimerapp.alarm.model.Alarm;
+
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.List;
@@ -14,6 +16,32 @@ public class DayOfWeekHelper {
         return c.getDisplayName(Calendar.DAY_OF_WEEK, Calendar.LONG, Locale.getDefault());
     }
 
+    /** Full day names (Sunday first), indexed by Calendar day - 1 to match Alarm.daysMask bits. */
+    public static String[] getDayNames() {
+        String[] names = new String[7];
+        for (int d = Calendar.SUNDAY; d <= Calendar.SATURDAY; d++) names[d - 1] = getDayName(d);
+        return names;
+    }
+
+    /** Human readable summary of a repeat mask, e.g. "Once", "Daily", "Weekdays" or "Mon, Wed, Fri". */
+    public static String describeMask(int daysMask) {
+        int mask = daysMask & Alarm.EVERY_DAY;
+        if (mask == 0) return "Once";
+        if (mask == Alarm.EVERY_DAY) return "Daily";
+        if (mask == Alarm.WEEKDAYS) return "Weekdays";
+        if (mask == Alarm.WEEKENDS) return "Weekends";
+        if (Integer.bitCount(mask) == 1) return getDayName(Integer.numberOfTrailingZeros(mask) + 1);
+
+        Calendar c = Calendar.getInstance();
+        StringBuilder sb = new StringBuilder();
+        for (int m = mask; m != 0; m &= m - 1) {
+            c.set(Calendar.DAY_OF_WEEK, Integer.numberOfTrailingZeros(m) + 1);
+            if (sb.length() > 0) sb.append(", ");
+            sb.append(c.getDisplayName(Calendar.DAY_OF_WEEK, Calendar.SHORT, Locale.getDefault()));
+        }
+        return sb.toString();
+    }
+
     public static List<String> getRelativeDayList() {
         List<String> dayList = new ArrayList<>(7);
         Calendar calendar = Calendar.getInstance();
@@ -0,0 +1,87 @@
+package com.example.clockandtimerapp.utils;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.example.clockandtimerapp.alarm.AlarmRepository;
+import com.example.clockandtimerapp.alarm.AlarmScheduler;
+import com.example.clockandtimerapp.worldclock.TimezoneInfo;
+import com.example.clockandtimerapp.worldclock.WorldClockManager;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs storage work (SharedPreferences loads, JSON/Gson parsing, alarm files) on a
+ * single background thread and delivers results on the main thread, so fragments
+ * never touch the disk while drawing.
+ *
+ * SharedPreferences files are parsed once per process; after {@link #warmUp} or any
+ * read through this class has loaded a file, plain getters on the main thread are
+ * served from memory.
+ */
+public final class AppStorage {
+
+    public interface Callback<T> {
+        /** Called on the main thread. */
+        void onResult(T value);
+    }
+
+    // Preference files read on the UI path; loading them here keeps that path off the disk
+    private static final String[] PREF_FILES = {
+            "alarms_prefs", "alarm_registrations", "alarm_delivery", "alarm_groups", "alarm_wakeups", "app_settings", "world_clock_data"
+    };
+
+    private static final ExecutorService io = Executors.newSingleThreadExecutor();
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private AppStorage() {}
+
+    /** Runs {@code task} in the background and hands its result to {@code callback} on the main thread. */
+    public static <T> Future<T> read(Callable<T> task, Callback<T> callback) {
+        return io.submit(() -> {
+            T value = task.call();
+            if (callback != null) mainHandler.post(() -> callback.onResult(value));
+            return value;
+        });
+    }
+
+    /** Runs a write (or any other disk work) in the background, in submission order. */
+    public static Future<?> write(Runnable task) {
+        return io.submit(task);
+    }
+
+    /** Loads the app's preference files, the alarm list and the scheduling state ahead of the first screen. */
+    public static void warmUp(Context ctx) {
+        Context app = ctx.getApplicationContext();
+        write(() -> {
+            for (String name : PREF_FILES) {
+                app.getSharedPreferences(name, Context.MODE_PRIVATE).getAll();
+            }
+            AlarmRepository.get(app).size();
+            AlarmScheduler.warmUp(app);
+        });
+    }
+
+    // ------- world clocks -------
+
+    public static Future<List<TimezoneInfo>> loadClocks(Context ctx, Callback<List<TimezoneInfo>> callback) {
+        Context app = ctx.getApplicationContext();
+        return read(() -> {
+            // Load the time format too: the clock screen formats with it on every tick
+            TimeFormatPreference.is24HourFormat(app);
+            return new WorldClockManager(app).loadClocks();
+        }, callback);
+    }
+
+    // ------- settings -------
+
+    public static Future<Boolean> load24HourFormat(Context ctx, Callback<Boolean> callback) {
+        Context app = ctx.getApplicationContext();
+        return read(() -> TimeFormatPreference.is24HourFormat(app), callback);
+    }
+}
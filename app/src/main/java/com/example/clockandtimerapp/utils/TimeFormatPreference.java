@@ -1,22 +1,64 @@
 package com.example.clockandtimerapp.utils;
 
+import android.content.BroadcastReceiver;
 import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
 import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
 import android.text.format.DateFormat;
 
+import androidx.core.content.ContextCompat;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The 12/24-hour setting, held in memory after the first read.
+ *
+ * The snapshot is refreshed when the stored preference changes and when the system
+ * announces a time-format change (which matters while the app follows the system
+ * default). Screens that render times register a {@link Listener} to redraw at once.
+ */
 public class TimeFormatPreference {
     private static final String PREF_NAME = "app_settings";
     private static final String KEY_TIME_FORMAT_24H = "is_24_hour_format";
 
+    public interface Listener {
+        /** Called on the main thread after the effective setting changed. */
+        void onTimeFormatChanged(boolean is24H);
+    }
+
+    private static volatile Boolean cached24H; // null until first read
+    private static Context appContext;
+    private static final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // SharedPreferences only keeps a weak reference to this, hence the field
+    private static final SharedPreferences.OnSharedPreferenceChangeListener prefListener = (prefs, key) -> {
+        // key is null when the file was cleared
+        if (key == null || KEY_TIME_FORMAT_24H.equals(key)) refresh();
+    };
+
+    // The system sends TIME_SET when the user flips its 12/24-hour switch
+    private static final BroadcastReceiver systemListener = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            refresh();
+        }
+    };
+
     public static void set24HourFormat(Context context, boolean is24H) {
+        load(context); // make sure the change watchers are registered
         SharedPreferences sharedPref = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
         sharedPref.edit().putBoolean(KEY_TIME_FORMAT_24H, is24H).apply();
+        update(is24H); // don't wait for the change callback
     }
 
     public static boolean is24HourFormat(Context context) {
-        SharedPreferences sharedPref = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
-        // Default to the system's current setting if not explicitly saved
-        return sharedPref.getBoolean(KEY_TIME_FORMAT_24H, DateFormat.is24HourFormat(context));
+        Boolean value = cached24H;
+        if (value != null) return value;
+        return load(context);
     }
 
     public static String getHourFormatPattern(Context context) {
@@ -25,8 +67,52 @@ public class TimeFormatPreference {
     }
 
     public static void resetToDefault(Context context) {
+        load(context);
         SharedPreferences prefs = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
         prefs.edit().remove(KEY_TIME_FORMAT_24H).apply(); // Removes custom setting
+        update(DateFormat.is24HourFormat(context));
     }
 
-}
\ No newline at end of file
+    public static void addListener(Listener l) {
+        listeners.add(l);
+    }
+
+    public static void removeListener(Listener l) {
+        listeners.remove(l);
+    }
+
+    // ------- snapshot -------
+
+    /** First read: loads the value and starts watching for changes. */
+    private static synchronized boolean load(Context context) {
+        if (cached24H != null) return cached24H;
+        appContext = context.getApplicationContext();
+        SharedPreferences prefs = appContext.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+        prefs.registerOnSharedPreferenceChangeListener(prefListener);
+        ContextCompat.registerReceiver(appContext, systemListener,
+                new IntentFilter(Intent.ACTION_TIME_CHANGED), ContextCompat.RECEIVER_NOT_EXPORTED);
+        boolean value = read(appContext);
+        cached24H = value;
+        return value;
+    }
+
+    private static boolean read(Context context) {
+        SharedPreferences sharedPref = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+        // Default to the system's current setting if not explicitly saved
+        return sharedPref.getBoolean(KEY_TIME_FORMAT_24H, DateFormat.is24HourFormat(context));
+    }
+
+    private static void refresh() {
+        if (appContext != null) update(read(appContext));
+    }
+
+    private static void update(boolean is24H) {
+        Boolean old = cached24H;
+        cached24H = is24H;
+        if (old != null && old == is24H) return;
+        TimeFormatters.invalidate();
+        mainHandler.post(() -> {
+            for (Listener l : listeners) l.onTimeFormatChanged(is24H);
+        });
+    }
+}
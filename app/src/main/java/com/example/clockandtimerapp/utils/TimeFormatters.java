@@ -0,0 +1,109 @@
+package com.example.clockandtimerapp.utils;
+
+import android.content.Context;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * App-wide cache of date formatters and time zones, so clock ticks and list binds
+ * format without allocating a SimpleDateFormat, Calendar or TimeZone each time.
+ *
+ * Formatters are keyed by (pattern, locale, zone id) and each is used under its own
+ * lock, since SimpleDateFormat is not thread-safe. The cache empties itself when the
+ * default locale changes and is cleared explicitly when the 12/24-hour setting changes.
+ */
+public final class TimeFormatters {
+
+    /** Zone for formatting a bare wall time (hour and minute) with no date attached. */
+    public static final String WALL_CLOCK_ZONE = "UTC";
+
+    // [24h][with seconds]; same output as TimeFormatPreference.getHourFormatPattern() + " a"
+    private static final String[][] TIME_PATTERNS = {
+            {"h:mm a", "h:mm:ss a"},
+            {"HH:mm a", "HH:mm:ss a"}
+    };
+
+    /** A formatter with its own reusable Date; guarded by itself. */
+    private static final class Entry {
+        final SimpleDateFormat format;
+        final Date date = new Date();
+
+        Entry(SimpleDateFormat format) {
+            this.format = format;
+        }
+    }
+
+    // pattern -> zone id -> formatter; the locale is implied, see cachedLocale.
+    // Nested rather than a combined key so a lookup builds no key string.
+    private static final ConcurrentHashMap<String, ConcurrentHashMap<String, Entry>> formatters =
+            new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, TimeZone> zones = new ConcurrentHashMap<>();
+    private static volatile Locale cachedLocale = Locale.getDefault();
+
+    private TimeFormatters() {}
+
+    /** Formats {@code millis} with {@code pattern} in the default locale and the given zone. */
+    public static String format(String pattern, String zoneId, long millis) {
+        Entry e = entry(pattern, zoneId);
+        synchronized (e) {
+            e.date.setTime(millis);
+            return e.format.format(e.date);
+        }
+    }
+
+    /** Formats a wall time such as an alarm's, independent of any zone or date. */
+    public static String formatWallTime(String pattern, int hour24, int minute) {
+        return format(pattern, WALL_CLOCK_ZONE, (hour24 * 60L + minute) * 60_000L);
+    }
+
+    /** Formats a local date given as days since 1970-01-01, independent of any zone. */
+    public static String formatLocalDate(String pattern, int epochDay) {
+        return format(pattern, WALL_CLOCK_ZONE, epochDay * 86_400_000L);
+    }
+
+    /** Cached {@link TimeZone#getTimeZone} (treat the result as read-only). */
+    public static TimeZone zone(String zoneId) {
+        TimeZone tz = zones.get(zoneId);
+        if (tz == null) {
+            tz = TimeZone.getTimeZone(zoneId);
+            zones.put(zoneId, tz);
+        }
+        return tz;
+    }
+
+    /** Time-of-day pattern for the user's 12/24-hour setting. */
+    public static String timePattern(Context ctx, boolean withSeconds) {
+        return TIME_PATTERNS[TimeFormatPreference.is24HourFormat(ctx) ? 1 : 0][withSeconds ? 1 : 0];
+    }
+
+    /** Drops every cached formatter (12/24-hour setting or locale changed). */
+    public static void invalidate() {
+        formatters.clear();
+        cachedLocale = Locale.getDefault();
+    }
+
+    private static Entry entry(String pattern, String zoneId) {
+        Locale locale = Locale.getDefault();
+        if (!locale.equals(cachedLocale)) invalidate();
+
+        ConcurrentHashMap<String, Entry> byZone = formatters.get(pattern);
+        if (byZone == null) {
+            byZone = new ConcurrentHashMap<>();
+            ConcurrentHashMap<String, Entry> raced = formatters.putIfAbsent(pattern, byZone);
+            if (raced != null) byZone = raced;
+        }
+        Entry e = byZone.get(zoneId);
+        if (e == null) {
+            SimpleDateFormat f = new SimpleDateFormat(pattern, locale);
+            f.setTimeZone((TimeZone) zone(zoneId).clone()); // the formatter's Calendar keeps a reference
+            e = new Entry(f);
+            Entry raced = byZone.putIfAbsent(zoneId, e);
+            if (raced != null) e = raced;
+        }
+        return e;
+    }
+}
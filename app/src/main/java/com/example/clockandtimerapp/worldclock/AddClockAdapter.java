@@ -11,13 +11,9 @@ import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.clockandtimerapp.R;
-import com.example.clockandtimerapp.utils.TimeFormatPreference;
+import com.example.clockandtimerapp.utils.TimeFormatters;
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
 import java.util.List;
-import java.util.Locale;
-import java.util.TimeZone;
 
 public class AddClockAdapter extends RecyclerView.Adapter<AddClockAdapter.CityViewHolder> {
 
@@ -69,11 +65,8 @@ public class AddClockAdapter extends RecyclerView.Adapter<AddClockAdapter.CityVi
         holder.textCityName.setText(info.getCityName());
 
         // Calculate and Set Time (uses current time and saved format preference)
-        String timePattern = TimeFormatPreference.getHourFormatPattern(context);
-        SimpleDateFormat timeFormat = new SimpleDateFormat(timePattern + " a", Locale.getDefault());
-        TimeZone cityTimeZone = TimeZone.getTimeZone(info.getTimezoneId());
-        timeFormat.setTimeZone(cityTimeZone);
-        holder.textCityTime.setText(timeFormat.format(new Date()));
+        String timePattern = TimeFormatters.timePattern(context, false);
+        holder.textCityTime.setText(TimeFormatters.format(timePattern, info.getTimezoneId(), System.currentTimeMillis()));
 
         // Set click listener to select the city
         holder.itemView.setOnClickListener(v -> selectListener.onCitySelected(info));
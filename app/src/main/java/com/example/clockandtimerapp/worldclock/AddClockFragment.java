@@ -17,9 +17,10 @@ import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.clockandtimerapp.R;
+import com.example.clockandtimerapp.utils.TimeFormatPreference;
+import com.example.clockandtimerapp.utils.TimeFormatters;
 
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 import java.util.TimeZone;
@@ -27,7 +28,8 @@ import java.util.stream.Collectors;
 
 import android.util.Log;
 
-public class AddClockFragment extends Fragment implements AddClockAdapter.OnCitySelectListener {
+public class AddClockFragment extends Fragment implements AddClockAdapter.OnCitySelectListener,
+        TimeFormatPreference.Listener {
 
     private final List<TimezoneInfo> addedClocks;
     private List<TimezoneInfo> allAvailableClocks;
@@ -80,6 +82,19 @@ public class AddClockFragment extends Fragment implements AddClockAdapter.OnCity
             InputMethodManager imm = (InputMethodManager) requireContext().getSystemService(Context.INPUT_METHOD_SERVICE);
             imm.showSoftInput(editSearchCity, InputMethodManager.SHOW_IMPLICIT);
         }, 100);
+
+        TimeFormatPreference.addListener(this);
+    }
+
+    @Override
+    public void onDestroyView() {
+        TimeFormatPreference.removeListener(this);
+        super.onDestroyView();
+    }
+
+    @Override
+    public void onTimeFormatChanged(boolean is24H) {
+        if (adapter != null) adapter.notifyDataSetChanged();
     }
 
     private void filterClocks(String query) {
@@ -125,12 +140,12 @@ public class AddClockFragment extends Fragment implements AddClockAdapter.OnCity
     }
 
     private TimezoneInfo createTimezoneInfoWithDifference(String country, String city, String timezoneId) {
-        TimeZone indianTimeZone = TimeZone.getTimeZone("Asia/Kolkata");
-        TimeZone selectedTimeZone = TimeZone.getTimeZone(timezoneId);
-        Date currentTime = new Date();
+        TimeZone indianTimeZone = TimeFormatters.zone("Asia/Kolkata");
+        TimeZone selectedTimeZone = TimeFormatters.zone(timezoneId);
+        long now = System.currentTimeMillis();
 
-        long indianOffset = indianTimeZone.getOffset(currentTime.getTime());
-        long cityOffset = selectedTimeZone.getOffset(currentTime.getTime());
+        long indianOffset = indianTimeZone.getOffset(now);
+        long cityOffset = selectedTimeZone.getOffset(now);
 
         // Difference in minutes from IST
         long differenceMinutes = (cityOffset - indianOffset) / (1000 * 60);
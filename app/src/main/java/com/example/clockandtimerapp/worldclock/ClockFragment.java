@@ -21,21 +21,24 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.clockandtimerapp.MainActivity;
 import com.example.clockandtimerapp.R;
+import com.example.clockandtimerapp.utils.AppStorage;
 import com.example.clockandtimerapp.utils.TimeFormatPreference;
+import com.example.clockandtimerapp.utils.TimeFormatters;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Locale;
-import java.util.TimeZone;
 
-public class ClockFragment extends Fragment implements WorldClockAdapter.OnDeleteClickListener {
+public class ClockFragment extends Fragment implements WorldClockAdapter.OnDeleteClickListener,
+        TimeFormatPreference.Listener {
 
     private TextView textCurrentTime, textCurrentTimezone, textCurrentDate;
     private WorldClockAdapter clockAdapter;
     private WorldClockManager clockManager;
-    private List<TimezoneInfo> clockList;
+    private static final String INDIA_ZONE = "Asia/Kolkata";
+
+    private final List<TimezoneInfo> clockList = new ArrayList<>();
+    private boolean clocksLoaded; // ticking starts once saved clocks and the time format are in memory
 
     // Handler for updating the local time every second
     private final Handler timeUpdateHandler = new Handler();
@@ -75,33 +78,58 @@ public class ClockFragment extends Fragment implements WorldClockAdapter.OnDelet
         RecyclerView recyclerView = view.findViewById(R.id.recycler_world_clocks);
         FloatingActionButton fabAddClock = view.findViewById(R.id.fab_add_clock);
 
-        // 3. Load Data & Setup Adapter
-        clockList = clockManager.loadClocks();
+        // 3. Setup Adapter (empty until the saved clocks arrive from the storage thread)
+        clocksLoaded = false;
+        clockList.clear();
         clockAdapter = new WorldClockAdapter(requireContext(), clockList, this);
         recyclerView.setAdapter(clockAdapter);
+        AppStorage.loadClocks(requireContext(), loaded -> {
+            if (getView() == null) return; // view destroyed while loading
+            clockList.addAll(loaded);
+            clockAdapter.notifyDataSetChanged();
+            clocksLoaded = true;
+            if (isResumed()) startUpdates();
+        });
 
         // 4. Setup FAB click listener
         fabAddClock.setOnClickListener(v -> navigateToAddClock());
+
+        // 5. Redraw at once when the 12/24-hour setting changes
+        TimeFormatPreference.addListener(this);
+    }
+
+    @Override
+    public void onDestroyView() {
+        TimeFormatPreference.removeListener(this);
+        super.onDestroyView();
+    }
+
+    @Override
+    public void onTimeFormatChanged(boolean is24H) {
+        if (getView() == null || !clocksLoaded) return;
+        updateCurrentLocalTime();
+        clockAdapter.notifyDataSetChanged();
     }
 
     private void updateCurrentLocalTime() {
         // Requirement: Main clock is always Indian Clock (Asia/Kolkata)
-        TimeZone indianTimeZone = TimeZone.getTimeZone("Asia/Kolkata");
-        Date currentTime = new Date();
+        long now = System.currentTimeMillis();
 
         // 1. Time
-        String timePattern = TimeFormatPreference.getHourFormatPattern(requireContext());
-        SimpleDateFormat timeFormat = new SimpleDateFormat(timePattern + ":ss a", Locale.getDefault());
-        timeFormat.setTimeZone(indianTimeZone);
-        textCurrentTime.setText(timeFormat.format(currentTime));
+        String timePattern = TimeFormatters.timePattern(requireContext(), true);
+        textCurrentTime.setText(TimeFormatters.format(timePattern, INDIA_ZONE, now));
 
         // 2. Timezone
         textCurrentTimezone.setText("India Standard Time");
 
         // 3. Date
-        SimpleDateFormat dateFormat = new SimpleDateFormat("EEEE, MMMM d", Locale.getDefault());
-        dateFormat.setTimeZone(indianTimeZone);
-        textCurrentDate.setText(dateFormat.format(currentTime));
+        textCurrentDate.setText(TimeFormatters.format("EEEE, MMMM d", INDIA_ZONE, now));
+    }
+
+    private void startUpdates() {
+        timeUpdateHandler.removeCallbacks(timeUpdater);
+        timeUpdateHandler.post(timeUpdater);
+        clockAdapter.startUpdates();
     }
 
     public void addNewClock(TimezoneInfo timezoneInfo) {
@@ -162,13 +190,13 @@ public class ClockFragment extends Fragment implements WorldClockAdapter.OnDelet
     @Override
     public void onResume() {
         super.onResume();
-        // Start updates for main clock and list clocks
-        timeUpdateHandler.post(timeUpdater);
-        clockAdapter.startUpdates();
+        // Start updates for main clock and list clocks (deferred until the first load completes)
+        if (clocksLoaded) {
+            startUpdates();
 
-        // When coming back from settings, force a redraw for format change
-        updateCurrentLocalTime();
-        clockAdapter.notifyDataSetChanged();
+            // When coming back from settings, force a redraw for format change
+            clockAdapter.notifyDataSetChanged();
+        }
 
         if (getActivity() != null) {
             getActivity().invalidateOptionsMenu();
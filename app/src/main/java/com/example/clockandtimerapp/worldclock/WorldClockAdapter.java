@@ -12,13 +12,10 @@ import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.clockandtimerapp.R;
-import com.example.clockandtimerapp.utils.TimeFormatPreference;
+import com.example.clockandtimerapp.utils.TimeFormatters;
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
 import java.util.List;
 import java.util.Locale;
-import java.util.TimeZone;
 
 public class WorldClockAdapter extends RecyclerView.Adapter<WorldClockAdapter.ClockViewHolder> {
 
@@ -60,11 +57,8 @@ public class WorldClockAdapter extends RecyclerView.Adapter<WorldClockAdapter.Cl
 
         holder.textCityName.setText(info.getCityName());
 
-        String timePattern = TimeFormatPreference.getHourFormatPattern(context);
-        SimpleDateFormat timeFormat = new SimpleDateFormat(timePattern + " a", Locale.getDefault());
-        TimeZone cityTimeZone = TimeZone.getTimeZone(info.getTimezoneId());
-        timeFormat.setTimeZone(cityTimeZone);
-        holder.textCityTime.setText(timeFormat.format(new Date()));
+        String timePattern = TimeFormatters.timePattern(context, false);
+        holder.textCityTime.setText(TimeFormatters.format(timePattern, info.getTimezoneId(), System.currentTimeMillis()));
 
         String difference = formatTimeDifference(info.getDifferenceMinutes());
         holder.textTimeDifference.setText(difference);
@@ -84,6 +78,7 @@ public class WorldClockAdapter extends RecyclerView.Adapter<WorldClockAdapter.Cl
     }
 
     public void startUpdates() {
+        updateHandler.removeCallbacks(updateRunnable);
         updateHandler.post(updateRunnable);
     }
 
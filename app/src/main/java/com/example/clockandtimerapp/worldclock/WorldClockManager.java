@@ -2,6 +2,7 @@ package com.example.clockandtimerapp.worldclock;
 
 import android.content.Context;
 import android.content.SharedPreferences;
+import com.example.clockandtimerapp.utils.AppStorage;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 import java.lang.reflect.Type;
@@ -28,9 +29,13 @@ public class WorldClockManager {
         return gson.fromJson(json, type);
     }
 
+    /** Snapshots the list now; serialization and the write happen on the storage thread. */
     public void saveClocks(List<TimezoneInfo> clockList) {
-        String json = gson.toJson(clockList);
-        sharedPreferences.edit().putString(KEY_CLOCK_LIST, json).apply();
+        final List<TimezoneInfo> copy = new ArrayList<>(clockList);
+        AppStorage.write(() -> {
+            String json = gson.toJson(copy);
+            sharedPreferences.edit().putString(KEY_CLOCK_LIST, json).apply();
+        });
     }
 
     public void addClock(TimezoneInfo clock, List<TimezoneInfo> currentList) {
@@ -0,0 +1,259 @@
+package com.example.clockandtimerapp.alarm;
+
+import com.example.clockandtimerapp.alarm.model.Alarm;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link AlarmBinaryFormat}: snapshot and change-log round trips for
+ * every entry type, torn-log recovery, reading older snapshots, and size bounds for
+ * 10, 1,000 and 10,000 alarms.
+ */
+public class AlarmBinaryFormatTest {
+
+    @Test
+    public void snapshot_roundTripKeepsEveryField() throws IOException {
+        List<Alarm> in = sampleAlarms();
+        List<Alarm> out = readSnapshot(snapshot(in));
+
+        assertEquals(in.size(), out.size());
+        for (int i = 0; i < in.size(); i++) assertSameAlarm(in.get(i), out.get(i));
+    }
+
+    @Test
+    public void snapshot_skipTableOnlyAttachesToItsAlarm() throws IOException {
+        List<Alarm> out = readSnapshot(snapshot(sampleAlarms()));
+        assertArrayEquals(new int[]{19_900, 19_907}, out.get(2).skipDays);
+        assertSame(Alarm.NO_SKIPS, out.get(0).skipDays);
+        assertSame(Alarm.NO_SKIPS, out.get(1).skipDays);
+    }
+
+    @Test
+    public void log_appliesEveryOpType() throws IOException {
+        List<Alarm> in = sampleAlarms();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (Alarm a : in) AlarmBinaryFormat.writePut(out, a);
+        AlarmBinaryFormat.writeDelete(out, in.get(3).id);
+
+        // Each alarm gets the shortest entry that holds it
+        assertEquals(AlarmBinaryFormat.OP_PUT, opFor(in.get(0)));
+        assertEquals(AlarmBinaryFormat.OP_PUT_RULE, opFor(in.get(1)));
+        assertEquals(AlarmBinaryFormat.OP_PUT_FULL, opFor(in.get(2)));
+
+        byte[] log = bytes.toByteArray();
+        LinkedHashMap<Integer, Alarm> applied = new LinkedHashMap<>();
+        boolean[] torn = new boolean[1];
+        int count = AlarmBinaryFormat.readLog(input(log), applied, torn);
+
+        assertEquals(in.size() + 1, count);
+        assertFalse(torn[0]);
+        assertEquals(in.size() - 1, applied.size());
+        assertNull(applied.get(in.get(3).id));
+        for (int i = 0; i < 3; i++) assertSameAlarm(in.get(i), applied.get(in.get(i).id));
+    }
+
+    @Test
+    public void log_truncatedLastEntryIsTornAndEarlierOnesStand() throws IOException {
+        List<Alarm> in = sampleAlarms();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        AlarmBinaryFormat.writePut(out, in.get(0));
+        int whole = bytes.size();
+        AlarmBinaryFormat.writePut(out, in.get(2)); // OP_PUT_FULL, the longest entry
+        byte[] log = Arrays.copyOf(bytes.toByteArray(), bytes.size() - 3);
+
+        LinkedHashMap<Integer, Alarm> applied = new LinkedHashMap<>();
+        boolean[] torn = new boolean[1];
+        assertEquals(1, AlarmBinaryFormat.readLog(input(log), applied, torn));
+        assertTrue(torn[0]);
+        assertEquals(1, applied.size());
+        assertSameAlarm(in.get(0), applied.get(in.get(0).id));
+
+        // Garbage where an op byte should be ends the log the same way
+        log = Arrays.copyOf(bytes.toByteArray(), whole + 1);
+        log[whole] = 99;
+        applied.clear();
+        assertEquals(1, AlarmBinaryFormat.readLog(input(log), applied, torn));
+        assertTrue(torn[0]);
+    }
+
+    @Test
+    public void snapshot_readsVersion1() throws IOException {
+        // Version 1: no skip table, 20-byte records
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(AlarmBinaryFormat.MAGIC);
+        out.writeShort(1);
+        out.writeShort(AlarmBinaryFormat.RECORD_BYTES);
+        out.writeInt(1);
+        out.writeUTF("Rounds");
+        out.writeInt(1);
+        out.writeInt(7);
+        out.writeShort(22 * 60);
+        out.writeByte(Alarm.WEEKDAYS);
+        out.writeByte(1);  // enabled
+        out.writeInt(0);   // label
+        out.writeInt(-1);  // no ringtone
+        out.writeShort(20);
+        out.writeShort(6 * 60);
+
+        List<Alarm> got = readSnapshot(bytes.toByteArray());
+        assertEquals(1, got.size());
+        Alarm a = got.get(0);
+        assertEquals(7, a.id);
+        assertEquals(22, a.hour24);
+        assertEquals("Rounds", a.label);
+        assertNull(a.ringtone);
+        assertTrue(a.enabled);
+        assertEquals(Alarm.WEEKDAYS, a.daysMask);
+        assertEquals(20, a.intervalMinutes);
+        assertEquals(6, a.endHour24);
+        assertSame(Alarm.NO_SKIPS, a.skipDays);
+    }
+
+    @Test
+    public void snapshot_readsBaseRecordsAsPlainAlarms() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(AlarmBinaryFormat.MAGIC);
+        out.writeShort(1);
+        out.writeShort(AlarmBinaryFormat.BASE_RECORD_BYTES);
+        out.writeInt(0);
+        out.writeInt(1);
+        out.writeInt(3);
+        out.writeShort(6 * 60 + 45);
+        out.writeByte(0);
+        out.writeByte(2);  // vibrate
+        out.writeInt(-1);
+        out.writeInt(-1);
+
+        Alarm a = readSnapshot(bytes.toByteArray()).get(0);
+        assertEquals(6, a.hour24);
+        assertEquals(45, a.minute);
+        assertFalse(a.enabled);
+        assertTrue(a.vibrate);
+        assertFalse(a.isInterval());
+    }
+
+    @Test
+    public void snapshot_rejectsForeignAndNewerFiles() {
+        byte[] newer = header(AlarmBinaryFormat.MAGIC, AlarmBinaryFormat.VERSION + 1);
+        byte[] foreign = header(0x12345678, 1);
+        for (byte[] file : new byte[][]{newer, foreign}) {
+            try {
+                readSnapshot(file);
+                fail("expected IOException");
+            } catch (IOException expected) {
+                // AlarmRecordStore sets such a file aside rather than overwriting it
+            }
+        }
+    }
+
+    @Test
+    public void sizes_10_1000_10000() throws IOException {
+        for (int n : new int[]{10, 1_000, 10_000}) {
+            List<Alarm> in = roster(n);
+            byte[] file = snapshot(in);
+            List<Alarm> out = readSnapshot(file);
+
+            assertEquals(n, out.size());
+            for (int i = 0; i < n; i++) assertSameAlarm(in.get(i), out.get(i));
+            // Fixed 20-byte records plus a small de-duplicated string table
+            assertTrue(n + " alarms: " + file.length + " bytes",
+                    file.length <= 64 + n * (AlarmBinaryFormat.RECORD_BYTES + 16));
+        }
+    }
+
+    // ------- helpers -------
+
+    private static List<Alarm> sampleAlarms() {
+        List<Alarm> list = new ArrayList<>();
+        list.add(new Alarm(1, 6, 5, "Wake up", true, "content://media/1", true, Alarm.WEEKDAYS));
+        Alarm rounds = new Alarm(2, 22, 0, "Rounds", false, "content://media/1", false, 0);
+        rounds.setInterval(20, 6, 0);
+        list.add(rounds);
+        Alarm skipping = new Alarm(3, 7, 30, null, true, null, false, Alarm.EVERY_DAY);
+        skipping.skip(19_907);
+        skipping.skip(19_900);
+        list.add(skipping);
+        list.add(new Alarm(4, 0, 0, "Gone", true, "", false, 0));
+        return list;
+    }
+
+    private static List<Alarm> roster(int n) {
+        List<Alarm> list = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Alarm a = new Alarm(i + 1, i % 24, i % 60, "Shift " + (i % 50), i % 3 != 0,
+                    "content://media/" + (i % 5), i % 2 == 0, i % 128);
+            if (i % 10 == 0) a.setInterval(15, (i + 2) % 24, 0);
+            list.add(a);
+        }
+        return list;
+    }
+
+    private static byte[] snapshot(List<Alarm> alarms) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        AlarmBinaryFormat.writeSnapshot(new DataOutputStream(bytes), alarms);
+        return bytes.toByteArray();
+    }
+
+    private static List<Alarm> readSnapshot(byte[] file) throws IOException {
+        List<Alarm> out = new ArrayList<>();
+        AlarmBinaryFormat.readSnapshot(input(file), out::add);
+        return out;
+    }
+
+    private static byte opFor(Alarm a) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        AlarmBinaryFormat.writePut(new DataOutputStream(bytes), a);
+        return bytes.toByteArray()[0];
+    }
+
+    private static DataInputStream input(byte[] bytes) {
+        return new DataInputStream(new ByteArrayInputStream(bytes));
+    }
+
+    private static byte[] header(int magic, int version) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(magic);
+            out.writeShort(version);
+            out.writeShort(AlarmBinaryFormat.RECORD_BYTES);
+            out.writeInt(0);
+            out.writeInt(0);
+            out.writeInt(0);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void assertSameAlarm(Alarm a, Alarm b) {
+        assertEquals(a.id, b.id);
+        assertEquals(a.hour24, b.hour24);
+        assertEquals(a.minute, b.minute);
+        assertEquals(a.label, b.label);
+        assertEquals(a.enabled, b.enabled);
+        assertEquals(a.ringtone, b.ringtone);
+        assertEquals(a.vibrate, b.vibrate);
+        assertEquals(a.daysMask, b.daysMask);
+        assertEquals(a.intervalMinutes, b.intervalMinutes);
+        assertEquals(a.endHour24, b.endHour24);
+        assertEquals(a.endMinute, b.endMinute);
+        assertArrayEquals(a.skipDays, b.skipDays);
+    }
+}
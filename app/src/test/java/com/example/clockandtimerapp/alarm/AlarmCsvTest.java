@@ -0,0 +1,208 @@
+package com.example.clockandtimerapp.alarm;
+
+import com.example.clockandtimerapp.alarm.model.Alarm;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link AlarmCsv}: round trips, quoting, header mapping and
+ * rejection of malformed rows, including a large roster.
+ */
+public class AlarmCsvTest {
+
+    private static final int MON_WED_FRI = 0x2A;
+
+    @Test
+    public void roundTrip_keepsEveryField() throws IOException {
+        List<Alarm> in = new ArrayList<>();
+        in.add(new Alarm(1, 6, 5, "Wake up", true, "content://media/1", true, Alarm.WEEKDAYS));
+        in.add(new Alarm(2, 23, 59, "Night, \"late\" shift", false, "", false, 0));
+        in.add(new Alarm(3, 0, 0, "Two\nlines", true, "", false, MON_WED_FRI));
+        Alarm rounds = new Alarm(4, 22, 0, "Rounds", true, "", false, 0);
+        rounds.setInterval(20, 6, 0);
+        rounds.skip(19_900);
+        rounds.skip(-1); // 1969-12-31
+        in.add(rounds);
+
+        List<Alarm> out = parse(write(in));
+
+        assertEquals(in.size(), out.size());
+        for (int i = 0; i < in.size(); i++) {
+            Alarm a = in.get(i);
+            Alarm b = out.get(i);
+            assertEquals(AlarmIdAllocator.NO_ID, b.id);
+            assertEquals(a.hour24, b.hour24);
+            assertEquals(a.minute, b.minute);
+            assertEquals(a.label, b.label);
+            assertEquals(a.enabled, b.enabled);
+            assertEquals(a.ringtone, b.ringtone);
+            assertEquals(a.vibrate, b.vibrate);
+            assertEquals(a.daysMask, b.daysMask);
+            assertEquals(a.intervalMinutes, b.intervalMinutes);
+            assertEquals(a.endHour24, b.endHour24);
+            assertEquals(a.endMinute, b.endMinute);
+            assertArrayEquals(a.skipDays, b.skipDays);
+        }
+    }
+
+    @Test
+    public void roundTrip_keepsGroups() throws IOException {
+        List<Alarm> in = new ArrayList<>();
+        in.add(new Alarm(1, 7, 0, "Work", true, "", false, Alarm.WEEKDAYS));
+        in.add(new Alarm(2, 9, 0, "Lie in", true, "", false, Alarm.WEEKENDS));
+        Map<Integer, List<String>> groups = new HashMap<>();
+        groups.put(1, Arrays.asList("Workweek", "Travel, abroad"));
+
+        StringWriter w = new StringWriter();
+        AlarmCsv.write(w, in, groups);
+        List<List<String>> got = new ArrayList<>();
+        AlarmCsv.read(new StringReader(w.toString()), new AlarmCsv.RowHandler() {
+            @Override
+            public void onAlarm(Alarm alarm, List<String> names) {
+                got.add(names);
+            }
+
+            @Override
+            public void onInvalid(int line) {
+                fail("invalid row " + line);
+            }
+        });
+
+        assertEquals(Arrays.asList("Workweek", "Travel, abroad"), got.get(0));
+        assertTrue(got.get(1).isEmpty());
+    }
+
+    @Test
+    public void skipDates_useIsoDatesAndRejectImpossibleOnes() throws IOException {
+        Alarm a = new Alarm(1, 7, 0, "Gym", true, "", false, 0);
+        a.skip(19_783); // 2024-03-01
+        a.skip(19_782); // 2024-02-29
+        assertTrue(write(Collections.singletonList(a)).contains(",2024-02-29 2024-03-01,"));
+
+        List<Alarm> out = new ArrayList<>();
+        List<Integer> badLines = new ArrayList<>();
+        AlarmCsv.read(new StringReader("time,skip\n"
+                + "07:00,2000-02-29  1970-01-01\n"
+                + "07:00,2023-02-29\n"
+                + "07:00,2024-13-01\n"
+                + "07:00,24-01-01\n"
+                + "07:00,20x9-01-01\n"
+                + "07:00,2x24-01-01\n"
+                + "07:00,-024-01-01\n"), handler(out, badLines));
+        assertEquals(1, out.size());
+        assertArrayEquals(new int[]{0, 11_016}, out.get(0).skipDays);
+        assertArrayEquals(new Object[]{3, 4, 5, 6, 7, 8}, badLines.toArray());
+    }
+
+    @Test
+    public void write_usesReadableTimeAndDays() throws IOException {
+        List<Alarm> in = new ArrayList<>();
+        in.add(new Alarm(1, 7, 30, "Gym", true, "", false, MON_WED_FRI));
+        String csv = write(in);
+        assertEquals(AlarmCsv.HEADER + "\n07:30,Mon Wed Fri,Gym,true,false,,,,,\n", csv);
+    }
+
+    @Test
+    public void header_mapsReorderedAndMissingColumns() throws IOException {
+        String csv = "\uFEFFLabel,Time,Days\r\n"
+                + "Standup,9:15,monday tue\r\n";
+        List<Alarm> out = parse(csv);
+
+        assertEquals(1, out.size());
+        Alarm a = out.get(0);
+        assertEquals("Standup", a.label);
+        assertEquals(9, a.hour24);
+        assertEquals(15, a.minute);
+        assertEquals(0x06, a.daysMask);
+        assertTrue(a.enabled);   // default when the column is absent
+        assertFalse(a.vibrate);
+    }
+
+    @Test
+    public void noHeader_usesDefaultColumnOrder() throws IOException {
+        List<Alarm> out = parse("05:00,,Early,no,yes,\n");
+        assertEquals(1, out.size());
+        assertEquals(5, out.get(0).hour24);
+        assertFalse(out.get(0).enabled);
+        assertTrue(out.get(0).vibrate);
+        assertEquals(0, out.get(0).daysMask);
+    }
+
+    @Test
+    public void malformedRows_areReportedAndSkipped() throws IOException {
+        String csv = AlarmCsv.HEADER + "\n"
+                + "24:00,,Bad hour,,,\n"
+                + "7:60,,Bad minute,,,\n"
+                + "7.30,,No colon,,,\n"
+                + "07:30,Someday,Bad day,,,\n"
+                + "07:30,,Bad flag,maybe,,\n"
+                + "07:30,,Bad interval,,,,0,08:00\n"
+                + "07:30,,No end,,,,15,\n"
+                + "\n"
+                + "07:30,Sun,Good,,,\n";
+        List<Alarm> out = new ArrayList<>();
+        List<Integer> badLines = new ArrayList<>();
+        AlarmCsv.read(new StringReader(csv), handler(out, badLines));
+
+        assertEquals(1, out.size());
+        assertEquals("Good", out.get(0).label);
+        assertEquals(1, out.get(0).daysMask);
+        assertArrayEquals(new Object[]{2, 3, 4, 5, 6, 7, 8}, badLines.toArray());
+    }
+
+    @Test
+    public void tenThousandAlarms_roundTrip() throws IOException {
+        List<Alarm> in = new ArrayList<>(10_000);
+        for (int i = 0; i < 10_000; i++) {
+            in.add(new Alarm(i + 1, i % 24, i % 60, "Shift " + i, i % 3 != 0, "", i % 2 == 0, i % 128));
+        }
+        List<Alarm> out = parse(write(in));
+
+        assertEquals(in.size(), out.size());
+        for (int i = 0; i < in.size(); i++) {
+            assertEquals(in.get(i).label, out.get(i).label);
+            assertEquals(in.get(i).daysMask, out.get(i).daysMask);
+            assertEquals(in.get(i).hour24 * 60 + in.get(i).minute, out.get(i).hour24 * 60 + out.get(i).minute);
+        }
+    }
+
+    private static String write(List<Alarm> alarms) throws IOException {
+        StringWriter w = new StringWriter();
+        AlarmCsv.write(w, alarms, Collections.emptyMap());
+        return w.toString();
+    }
+
+    private static List<Alarm> parse(String csv) throws IOException {
+        List<Alarm> out = new ArrayList<>();
+        List<Integer> badLines = new ArrayList<>();
+        AlarmCsv.read(new StringReader(csv), handler(out, badLines));
+        assertTrue("unexpected invalid rows " + badLines, badLines.isEmpty());
+        return out;
+    }
+
+    private static AlarmCsv.RowHandler handler(List<Alarm> out, List<Integer> badLines) {
+        return new AlarmCsv.RowHandler() {
+            @Override
+            public void onAlarm(Alarm alarm, List<String> groups) {
+                out.add(alarm);
+            }
+
+            @Override
+            public void onInvalid(int line) {
+                badLines.add(line);
+            }
+        };
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.clockandtimerapp.alarm;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link AlarmEventJournal}'s ring layout and per-alarm statistics,
+ * run against a heap buffer of the mapped file's size.
+ */
+public class AlarmEventJournalTest {
+
+    private static final long DAY_MS = 24 * 60 * 60_000L;
+    private static final long NOW = 1_700_000_000_000L;
+
+    @Test
+    public void stats_averageDismissAndWeeklySnoozes() {
+        ByteBuffer buf = newJournal();
+        long start = NOW - 14 * DAY_MS; // two weeks of history
+        AlarmEventJournal.append(buf, start, 5, AlarmEventJournal.FIRED, 0);
+        AlarmEventJournal.append(buf, start + 1000, 5, AlarmEventJournal.SNOOZED, 30_000);
+        AlarmEventJournal.append(buf, NOW - DAY_MS, 5, AlarmEventJournal.FIRED, 0);
+        AlarmEventJournal.append(buf, NOW - DAY_MS, 5, AlarmEventJournal.DISMISSED, 20_000);
+        AlarmEventJournal.append(buf, NOW, 5, AlarmEventJournal.SNOOZED, 10_000);
+        AlarmEventJournal.append(buf, NOW, 5, AlarmEventJournal.DISMISSED, 40_000);
+        AlarmEventJournal.append(buf, NOW, 9, AlarmEventJournal.FIRED, 0);
+
+        AlarmEventJournal.Stats s = AlarmEventJournal.stats(buf, 5, NOW);
+        assertEquals(2, s.fired);
+        assertEquals(2, s.snoozed);
+        assertEquals(2, s.dismissed);
+        assertEquals(30_000L, s.avgTimeToDismissMs);
+        assertEquals(1.0, s.snoozesPerWeek, 1e-9);
+
+        AlarmEventJournal.Stats other = AlarmEventJournal.stats(buf, 9, NOW);
+        assertEquals(1, other.fired);
+        assertEquals(0, other.dismissed);
+        assertEquals(0L, other.avgTimeToDismissMs);
+    }
+
+    @Test
+    public void stats_replacedRingIsNotADismiss() {
+        ByteBuffer buf = newJournal();
+        AlarmEventJournal.append(buf, NOW - 60_000L, 5, AlarmEventJournal.FIRED, 0);
+        AlarmEventJournal.append(buf, NOW, 5, AlarmEventJournal.REPLACED, 60_000);
+        AlarmEventJournal.append(buf, NOW, 9, AlarmEventJournal.FIRED, 0);
+
+        AlarmEventJournal.Stats s = AlarmEventJournal.stats(buf, 5, NOW);
+        assertEquals(1, s.fired);
+        assertEquals(1, s.replaced);
+        assertEquals(0, s.dismissed);
+        assertEquals(0L, s.avgTimeToDismissMs);
+        assertTrue(s.toString().contains("cut short 1 by another alarm"));
+    }
+
+    @Test
+    public void statsAll_matchesPerAlarmQueries() {
+        ByteBuffer buf = newJournal();
+        for (int i = 0; i < 300; i++) {
+            AlarmEventJournal.append(buf, NOW - i * 60_000L, 1 + i % 3, AlarmEventJournal.SNOOZED + i % 2, 1000);
+        }
+        ArrayList<AlarmEventJournal.Stats> all = AlarmEventJournal.statsAll(buf, NOW);
+        assertEquals(3, all.size());
+        for (AlarmEventJournal.Stats s : all) {
+            AlarmEventJournal.Stats one = AlarmEventJournal.stats(buf, s.alarmId, NOW);
+            assertEquals(one.snoozed, s.snoozed);
+            assertEquals(one.dismissed, s.dismissed);
+        }
+    }
+
+    @Test
+    public void ring_keepsOnlyTheNewestCapacityEvents() {
+        ByteBuffer buf = newJournal();
+        int extra = 10;
+        for (int i = 0; i < AlarmEventJournal.CAPACITY + extra; i++) {
+            // The first events belong to alarm 1 and are overwritten
+            int id = i < extra ? 1 : 2;
+            AlarmEventJournal.append(buf, NOW, id, AlarmEventJournal.FIRED, 0);
+        }
+        assertEquals(0, AlarmEventJournal.stats(buf, 1, NOW).fired);
+        assertEquals(AlarmEventJournal.CAPACITY, AlarmEventJournal.stats(buf, 2, NOW).fired);
+    }
+
+    private static ByteBuffer newJournal() {
+        ByteBuffer buf = ByteBuffer.allocate(AlarmEventJournal.FILE_BYTES);
+        AlarmEventJournal.reset(buf);
+        return buf;
+    }
+}
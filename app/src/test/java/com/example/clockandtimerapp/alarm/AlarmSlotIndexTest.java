@@ -0,0 +1,144 @@
+package com.example.clockandtimerapp.alarm;
+
+import com.example.clockandtimerapp.alarm.model.Alarm;
+
+import org.junit.Test;
+
+import java.util.Calendar;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link AlarmSlotIndex}: packed slot keys, and lookups after
+ * inserts, edits, toggles and removals.
+ */
+public class AlarmSlotIndexTest {
+
+    private static final int MONDAY_MASK = 1 << (Calendar.MONDAY - 1);
+    private static final int FRIDAY_MASK = 1 << (Calendar.FRIDAY - 1);
+
+    private final AlarmSlotIndex index = new AlarmSlotIndex();
+
+    @Test
+    public void key_packsMinuteOfDayAndDay() {
+        assertEquals(0, AlarmSlotIndex.key(0, 0, -1));
+        assertEquals((7 * 60 + 30) * 8 + Calendar.MONDAY, AlarmSlotIndex.key(7, 30, Calendar.MONDAY));
+        assertEquals(AlarmSlotIndex.SLOT_COUNT - 1, AlarmSlotIndex.key(23, 59, Calendar.SATURDAY));
+        assertEquals(AlarmSlotIndex.key(7, 30, -1), AlarmSlotIndex.key(7, 30, 0));
+    }
+
+    @Test
+    public void key_outOfRangeTimeHasNoSlot() {
+        assertEquals(AlarmSlotIndex.NO_SLOT, AlarmSlotIndex.key(24, 0, -1));
+        assertEquals(AlarmSlotIndex.NO_SLOT, AlarmSlotIndex.key(7, 60, -1));
+        assertEquals(AlarmSlotIndex.NO_SLOT, AlarmSlotIndex.key(-1, 0, -1));
+        assertFalse(index.isDuplicate(24, 0, 0));
+    }
+
+    @Test
+    public void put_occupiesOneSlotPerMaskDay() {
+        index.put(alarm(1, 7, 0, Alarm.WEEKDAYS, true));
+        assertTrue(index.isDuplicate(7, 0, MONDAY_MASK));
+        assertTrue(index.isDuplicate(7, 0, FRIDAY_MASK));
+        assertFalse(index.isDuplicate(7, 0, 1)); // Sunday
+        assertFalse(index.isDuplicate(7, 0, 0)); // no specific day is its own slot
+        assertFalse(index.isDuplicate(7, 1, MONDAY_MASK));
+    }
+
+    @Test
+    public void put_noSpecificDayUsesDaySlotZero() {
+        index.put(alarm(1, 6, 15, 0, true));
+        assertTrue(index.isDuplicate(6, 15, 0));
+        assertFalse(index.isDuplicate(6, 15, MONDAY_MASK));
+    }
+
+    @Test
+    public void put_disabledAlarmIsNotIndexed() {
+        index.put(alarm(1, 7, 0, MONDAY_MASK, false));
+        assertFalse(index.isDuplicate(7, 0, MONDAY_MASK));
+    }
+
+    @Test
+    public void put_againMovesTheAlarm() {
+        index.put(alarm(1, 7, 0, MONDAY_MASK, true));
+        index.put(alarm(1, 8, 0, FRIDAY_MASK, true));
+        assertFalse(index.isDuplicate(7, 0, MONDAY_MASK));
+        assertTrue(index.isDuplicate(8, 0, FRIDAY_MASK));
+
+        index.put(alarm(1, 8, 0, FRIDAY_MASK, false)); // toggled off
+        assertFalse(index.isDuplicate(8, 0, FRIDAY_MASK));
+    }
+
+    @Test
+    public void remove_leavesOtherAlarmsInTheSlot() {
+        // More alarms than the initial bucket holds, so the bucket grows
+        for (int id = 1; id <= 5; id++) index.put(alarm(id, 9, 0, MONDAY_MASK, true));
+        for (int id = 1; id <= 4; id++) {
+            index.remove(id);
+            assertTrue(index.isDuplicate(9, 0, MONDAY_MASK));
+        }
+        index.remove(5);
+        assertFalse(index.isDuplicate(9, 0, MONDAY_MASK));
+        index.remove(5); // unknown ids are ignored
+    }
+
+    @Test
+    public void firingAt_includesNoSpecificDayAlarms() {
+        index.put(alarm(1, 7, 0, MONDAY_MASK, true));
+        index.put(alarm(2, 7, 0, 0, true));
+        index.put(alarm(3, 7, 0, FRIDAY_MASK, true));
+        int[] out = new int[4];
+
+        assertEquals(2, index.firingAt(7, 0, Calendar.MONDAY, out));
+        assertEquals(1, out[0]);
+        assertEquals(2, out[1]);
+        assertEquals(1, index.firingAt(7, 0, -1, out));
+        assertEquals(0, index.firingAt(7, 1, Calendar.MONDAY, out));
+    }
+
+    @Test
+    public void firingAt_countsPastASmallBuffer() {
+        for (int id = 1; id <= 3; id++) index.put(alarm(id, 6, 0, MONDAY_MASK, true));
+        int[] out = new int[1];
+        assertEquals(3, index.firingAt(6, 0, Calendar.MONDAY, out));
+    }
+
+    @Test
+    public void conflictId_namesTheOccupyingAlarm() {
+        index.put(alarm(9, 7, 0, FRIDAY_MASK, true));
+        assertEquals(9, index.conflictId(7, 0, Alarm.WEEKDAYS));
+        assertEquals(AlarmIdAllocator.NO_ID, index.conflictId(7, 0, MONDAY_MASK));
+    }
+
+    @Test
+    public void intervalRules_areNotIndexed() {
+        Alarm rule = alarm(1, 22, 0, MONDAY_MASK, true);
+        rule.setInterval(20, 6, 0);
+        index.put(rule);
+        assertFalse(index.isDuplicate(22, 0, MONDAY_MASK));
+        assertFalse(index.isDuplicate(22, 20, MONDAY_MASK));
+
+        // Turning it into a plain alarm indexes it
+        rule.setInterval(0, 0, 0);
+        index.put(rule);
+        assertTrue(index.isDuplicate(22, 0, MONDAY_MASK));
+    }
+
+    @Test
+    public void clear_emptiesEverySlot() {
+        index.put(alarm(1, 7, 0, Alarm.EVERY_DAY, true));
+        index.put(alarm(2, 22, 30, 0, true));
+        index.clear();
+        assertFalse(index.isDuplicate(7, 0, Alarm.EVERY_DAY));
+        assertFalse(index.isDuplicate(22, 30, 0));
+
+        // Buckets are reused after a clear
+        index.put(alarm(1, 7, 0, MONDAY_MASK, true));
+        assertTrue(index.isDuplicate(7, 0, MONDAY_MASK));
+        assertFalse(index.isDuplicate(7, 0, FRIDAY_MASK));
+    }
+
+    private static Alarm alarm(int id, int hour24, int minute, int daysMask, boolean enabled) {
+        return new Alarm(id, hour24, minute, "", enabled, null, false, daysMask);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.clockandtimerapp.alarm;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link DeliveryLog}'s stored expectation format and its
+ * per-mode summary.
+ */
+public class DeliveryLogTest {
+
+    private static final long T = 1_700_000_000_000L;
+
+    @Test
+    public void expectation_packsTriggerAndMode() {
+        for (int mode = 0; mode < DeliveryLog.MODE_COUNT; mode++) {
+            long packed = DeliveryLog.expectation(T + mode, mode);
+            assertEquals(T + mode, DeliveryLog.triggerOf(packed));
+            assertEquals(mode, DeliveryLog.modeOf(packed));
+        }
+    }
+
+    @Test
+    public void summarize_groupsByModeAndCountsMissed() {
+        long[][] records = new long[22][];
+        for (int i = 0; i < 20; i++) {
+            records[i] = new long[]{T, (i + 1) * 100L, i + 1, DeliveryLog.MODE_EXACT};
+        }
+        records[20] = new long[]{T, DeliveryLog.MISSED, 7, DeliveryLog.MODE_EXACT};
+        records[21] = new long[]{T, DeliveryLog.MISSED, DeliveryLog.DISPATCH_KEY, DeliveryLog.MODE_DISPATCH_INEXACT};
+
+        String s = DeliveryLog.summarize(records);
+
+        assertTrue(s, s.startsWith("Last 22 registrations\n"));
+        assertTrue(s, s.contains("Exact, per alarm\n  p50 1000 ms, p95 1900 ms, max 2000 ms (n=20)\n  missed 1"));
+        assertTrue(s, s.contains("Inexact, dispatcher (exact alarms denied)\n  no samples\n  missed 1"));
+        assertFalse(s, s.contains("Exact, dispatcher\n"));
+        assertFalse(s, s.contains("Inexact, per alarm"));
+    }
+
+    @Test
+    public void wakeupKeys_areDistinctAndNeverAlarmIds() {
+        int snooze = DeliveryLog.wakeupKey(WakeupQueue.SNOOZE);
+        int renotify = DeliveryLog.wakeupKey(WakeupQueue.RENOTIFY);
+        assertTrue(snooze < 0 && renotify < 0);
+        assertTrue(snooze != renotify);
+        assertTrue(snooze != DeliveryLog.DISPATCH_KEY && renotify != DeliveryLog.DISPATCH_KEY);
+    }
+
+    @Test
+    public void summarize_empty() {
+        assertEquals("No alarms have been delivered yet.", DeliveryLog.summarize(new long[0][]));
+    }
+}
@@ -0,0 +1,382 @@
+package com.example.clockandtimerapp.alarm;
+
+import com.example.clockandtimerapp.alarm.model.Alarm;
+
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link NextTriggerCalculator}, including DST transition days.
+ * America/New_York 2024: spring forward 10 Mar 02:00 -> 03:00, fall back 3 Nov 02:00 -> 01:00.
+ */
+public class NextTriggerCalculatorTest {
+
+    private static final TimeZone NEW_YORK = TimeZone.getTimeZone("America/New_York");
+    private static final int SUNDAY_MASK = 1;
+    private static final int WEEKDAYS = 0x3E;
+    private static final int WEEKENDS = 0x41;
+    private final NextTriggerCalculator calc = new NextTriggerCalculator(NEW_YORK);
+
+    @Test
+    public void sameDay_whenTimeStillAhead() {
+        long now = local(2024, Calendar.JUNE, 5, 6, 0);
+        assertEquals(local(2024, Calendar.JUNE, 5, 7, 30), calc.next(now, 7, 30, -1));
+    }
+
+    @Test
+    public void nextDay_whenTimeAlreadyPassed() {
+        long now = local(2024, Calendar.JUNE, 5, 8, 0);
+        assertEquals(local(2024, Calendar.JUNE, 6, 7, 30), calc.next(now, 7, 30, -1));
+    }
+
+    @Test
+    public void exactlyNow_isNotReturned() {
+        long now = local(2024, Calendar.JUNE, 5, 7, 30);
+        assertEquals(local(2024, Calendar.JUNE, 6, 7, 30), calc.next(now, 7, 30, -1));
+    }
+
+    @Test
+    public void specificDay_laterThisWeek() {
+        // 5 June 2024 is a Wednesday
+        long now = local(2024, Calendar.JUNE, 5, 12, 0);
+        assertEquals(local(2024, Calendar.JUNE, 10, 7, 0), calc.next(now, 7, 0, Calendar.MONDAY));
+    }
+
+    @Test
+    public void specificDay_todayButPassed_movesAWeek() {
+        long now = local(2024, Calendar.JUNE, 5, 12, 0);
+        assertEquals(local(2024, Calendar.JUNE, 12, 7, 0), calc.next(now, 7, 0, Calendar.WEDNESDAY));
+    }
+
+    @Test
+    public void mask_weekdaysFromFridayEvening_isMonday() {
+        long now = local(2024, Calendar.JUNE, 7, 20, 0); // Friday
+        assertEquals(local(2024, Calendar.JUNE, 10, 6, 45), calc.nextForMask(now, 6, 45, WEEKDAYS));
+    }
+
+    @Test
+    public void mask_weekdaysMidweek_isTomorrow() {
+        long now = local(2024, Calendar.JUNE, 5, 20, 0); // Wednesday
+        assertEquals(local(2024, Calendar.JUNE, 6, 6, 45), calc.nextForMask(now, 6, 45, WEEKDAYS));
+    }
+
+    @Test
+    public void mask_weekends_fromSaturdayAfterTime_isSunday() {
+        long now = local(2024, Calendar.JUNE, 8, 10, 0); // Saturday
+        assertEquals(local(2024, Calendar.JUNE, 9, 9, 0), calc.nextForMask(now, 9, 0, WEEKENDS));
+    }
+
+    @Test
+    public void mask_wrapsAroundWeek() {
+        long now = local(2024, Calendar.JUNE, 8, 10, 0); // Saturday, only Saturday set
+        int saturday = 1 << (Calendar.SATURDAY - 1);
+        assertEquals(local(2024, Calendar.JUNE, 15, 9, 0), calc.nextForMask(now, 9, 0, saturday));
+    }
+
+    @Test
+    public void mask_zeroAndAllDaysAreDaily() {
+        long now = local(2024, Calendar.JUNE, 5, 8, 0);
+        assertEquals(calc.next(now, 7, 30, -1), calc.nextForMask(now, 7, 30, 0));
+        assertEquals(calc.next(now, 7, 30, -1), calc.nextForMask(now, 7, 30, 0x7F));
+    }
+
+    @Test
+    public void mask_matchesSingleDayLookup() {
+        long now = local(2024, Calendar.JUNE, 5, 12, 0);
+        for (int day = Calendar.SUNDAY; day <= Calendar.SATURDAY; day++) {
+            assertEquals(calc.next(now, 7, 0, day), calc.nextForMask(now, 7, 0, 1 << (day - 1)));
+        }
+    }
+
+    @Test
+    public void dayOfWeek_matchesCalendar() {
+        Calendar c = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        for (long day = -400; day < 400; day++) {
+            c.setTimeInMillis(day * NextTriggerCalculator.DAY_MS);
+            assertEquals(c.get(Calendar.DAY_OF_WEEK), NextTriggerCalculator.dayOfWeek(day));
+        }
+    }
+
+    @Test
+    public void springForward_gapTimeShiftsPastTransition() {
+        long now = local(2024, Calendar.MARCH, 9, 23, 0);
+        long expected = utc(2024, Calendar.MARCH, 10, 7, 30); // 03:30 EDT
+        assertEquals(expected, calc.next(now, 2, 30, -1));
+    }
+
+    @Test
+    public void springForward_timeAfterGapIsUnaffected() {
+        long now = local(2024, Calendar.MARCH, 9, 23, 0);
+        assertEquals(utc(2024, Calendar.MARCH, 10, 11, 0), calc.next(now, 7, 0, -1)); // 07:00 EDT
+    }
+
+    @Test
+    public void fallBack_ambiguousTimeFiresOnlyOnce() {
+        long now = local(2024, Calendar.NOVEMBER, 2, 23, 0);
+        long first = calc.next(now, 1, 30, -1);
+        assertEquals(utc(2024, Calendar.NOVEMBER, 3, 5, 30), first); // 01:30 EDT
+
+        // From the first occurrence the next one is the following day, not the repeated hour
+        long second = calc.next(first, 1, 30, -1);
+        assertEquals(utc(2024, Calendar.NOVEMBER, 4, 6, 30), second); // 01:30 EST
+    }
+
+    @Test
+    public void fallBack_dayIsTwentyFiveHoursLong() {
+        long now = local(2024, Calendar.NOVEMBER, 2, 6, 0);
+        long a = calc.next(now, 7, 0, -1);
+        long b = calc.next(a, 7, 0, -1);
+        assertEquals(25 * 60 * NextTriggerCalculator.MINUTE_MS, b - a);
+    }
+
+    @Test
+    public void springForward_dayIsTwentyThreeHoursLong() {
+        long now = local(2024, Calendar.MARCH, 9, 6, 0);
+        long a = calc.next(now, 7, 0, -1);
+        long b = calc.next(a, 7, 0, -1);
+        assertEquals(23 * 60 * NextTriggerCalculator.MINUTE_MS, b - a);
+    }
+
+    @Test
+    public void nextN_weeklyAcrossTransition() {
+        long now = local(2024, Calendar.MARCH, 1, 12, 0); // Friday
+        long[] out = new long[3];
+        assertEquals(3, calc.nextN(now, alarm(8, 15, SUNDAY_MASK), out, 3));
+        assertEquals(local(2024, Calendar.MARCH, 3, 8, 15), out[0]);
+        assertEquals(local(2024, Calendar.MARCH, 10, 8, 15), out[1]);
+        assertEquals(local(2024, Calendar.MARCH, 17, 8, 15), out[2]);
+    }
+
+    @Test
+    public void nextN_limitedByBuffer() {
+        long[] out = new long[2];
+        assertEquals(2, calc.nextN(0L, alarm(7, 0, 0), out, 5));
+    }
+
+    @Test
+    public void nextN_followsSkipsAndIntervalSteps() {
+        long now = local(2024, Calendar.JUNE, 5, 12, 0);
+        Alarm a = alarm(22, 0, 0);
+        a.setInterval(20, 6, 0);
+        a.skip(calc.epochDay(local(2024, Calendar.JUNE, 5, 22, 0)));
+        long[] out = new long[2];
+        assertEquals(2, calc.nextN(now, a, out, 2));
+        assertEquals(local(2024, Calendar.JUNE, 6, 22, 0), out[0]);
+        assertEquals(local(2024, Calendar.JUNE, 6, 22, 20), out[1]);
+    }
+
+    // Interval rule used below: every 20 min from 22:00 to 06:00 (480-minute window)
+    private static final int EVERY = 20;
+    private static final int WINDOW = 8 * 60;
+
+    @Test
+    public void interval_beforeWindow_isWindowStart() {
+        long now = local(2024, Calendar.JUNE, 5, 12, 0);
+        assertEquals(local(2024, Calendar.JUNE, 5, 22, 0), calc.nextForRule(now, 22, 0, 0, EVERY, WINDOW));
+    }
+
+    @Test
+    public void interval_insideWindow_isNextStep() {
+        long now = local(2024, Calendar.JUNE, 5, 22, 0); // exactly on a step: strictly after
+        assertEquals(local(2024, Calendar.JUNE, 5, 22, 20), calc.nextForRule(now, 22, 0, 0, EVERY, WINDOW));
+        now = local(2024, Calendar.JUNE, 5, 23, 59);
+        assertEquals(local(2024, Calendar.JUNE, 6, 0, 0), calc.nextForRule(now, 22, 0, 0, EVERY, WINDOW));
+    }
+
+    @Test
+    public void interval_pastMidnight_usesYesterdaysWindow() {
+        long now = local(2024, Calendar.JUNE, 6, 5, 50);
+        assertEquals(local(2024, Calendar.JUNE, 6, 6, 0), calc.nextForRule(now, 22, 0, 0, EVERY, WINDOW));
+    }
+
+    @Test
+    public void interval_afterWindowEnd_isNextWindow() {
+        long now = local(2024, Calendar.JUNE, 6, 6, 0);
+        assertEquals(local(2024, Calendar.JUNE, 6, 22, 0), calc.nextForRule(now, 22, 0, 0, EVERY, WINDOW));
+    }
+
+    @Test
+    public void interval_windowOnlyStartsOnMaskDays() {
+        int friday = 1 << (Calendar.FRIDAY - 1);
+        long saturdayNight = local(2024, Calendar.JUNE, 8, 23, 0);
+        assertEquals(local(2024, Calendar.JUNE, 14, 22, 0), calc.nextForRule(saturdayNight, 22, 0, friday, EVERY, WINDOW));
+        // Friday's window still runs into Saturday morning
+        long saturdayMorning = local(2024, Calendar.JUNE, 8, 1, 5);
+        assertEquals(local(2024, Calendar.JUNE, 8, 1, 20), calc.nextForRule(saturdayMorning, 22, 0, friday, EVERY, WINDOW));
+    }
+
+    @Test
+    public void interval_stepThatOvershootsEnd_skipsToNextWindow() {
+        // Every 25 min from 09:00 for 60 min: 09:00, 09:25, 09:50, then tomorrow
+        long now = local(2024, Calendar.JUNE, 5, 9, 50);
+        assertEquals(local(2024, Calendar.JUNE, 6, 9, 0), calc.nextForRule(now, 9, 0, 0, 25, 60));
+    }
+
+    @Test
+    public void interval_walkingAWindowYieldsEveryOccurrence() {
+        long t = local(2024, Calendar.JUNE, 5, 21, 0);
+        int count = 0;
+        long end = local(2024, Calendar.JUNE, 6, 6, 0);
+        while ((t = calc.nextForRule(t, 22, 0, 0, EVERY, WINDOW)) <= end) count++;
+        assertEquals(WINDOW / EVERY + 1, count); // 22:00 .. 06:00 inclusive
+    }
+
+    @Test
+    public void interval_zeroIsPlainAlarm() {
+        long now = local(2024, Calendar.JUNE, 5, 8, 0);
+        assertEquals(calc.nextForMask(now, 7, 30, WEEKDAYS), calc.nextForRule(now, 7, 30, WEEKDAYS, 0, 0));
+    }
+
+    // Skipped dates
+
+    @Test
+    public void skip_plainAlarm_passesOverSkippedDay() {
+        long now = local(2024, Calendar.JUNE, 5, 8, 0);
+        int[] skips = {day(2024, Calendar.JUNE, 6)};
+        assertEquals(local(2024, Calendar.JUNE, 7, 7, 0), calc.nextForRule(now, 7, 0, 0, 0, 0, skips));
+    }
+
+    @Test
+    public void skip_consecutiveDays_landsOnFirstFreeOne() {
+        long fridayMorning = local(2024, Calendar.JUNE, 7, 8, 0);
+        int[] skips = {day(2024, Calendar.JUNE, 10), day(2024, Calendar.JUNE, 11)};
+        assertEquals(local(2024, Calendar.JUNE, 12, 7, 0), calc.nextForRule(fridayMorning, 7, 0, WEEKDAYS, 0, 0, skips));
+    }
+
+    @Test
+    public void skip_datesAlarmDoesNotRingOn_changeNothing() {
+        long fridayMorning = local(2024, Calendar.JUNE, 7, 8, 0);
+        int[] skips = {day(2024, Calendar.JUNE, 8), day(2024, Calendar.JUNE, 9), day(2024, Calendar.JULY, 1)};
+        assertEquals(calc.nextForMask(fridayMorning, 7, 0, WEEKDAYS),
+                calc.nextForRule(fridayMorning, 7, 0, WEEKDAYS, 0, 0, skips));
+    }
+
+    @Test
+    public void skip_interval_dropsTheWholeWindow() {
+        int[] skips = {day(2024, Calendar.JUNE, 5)};
+        long before = local(2024, Calendar.JUNE, 5, 12, 0);
+        assertEquals(local(2024, Calendar.JUNE, 6, 22, 0), calc.nextForRule(before, 22, 0, 0, EVERY, WINDOW, skips));
+        // Past midnight the skipped window is still running
+        long inside = local(2024, Calendar.JUNE, 6, 1, 0);
+        assertEquals(local(2024, Calendar.JUNE, 6, 22, 0), calc.nextForRule(inside, 22, 0, 0, EVERY, WINDOW, skips));
+    }
+
+    @Test
+    public void occurrenceDay_isTheDayTheWindowStarts() {
+        Alarm a = new Alarm(1, 22, 0, "", true, null, false);
+        a.setInterval(EVERY, 6, 0);
+        assertEquals(day(2024, Calendar.JUNE, 5), calc.occurrenceDay(local(2024, Calendar.JUNE, 6, 1, 0), a));
+        Alarm plain = new Alarm(2, 7, 0, "", true, null, false);
+        assertEquals(day(2024, Calendar.JUNE, 6), calc.occurrenceDay(local(2024, Calendar.JUNE, 6, 7, 0), plain));
+    }
+
+    // One-time alarms (no repeat days)
+
+    @Test
+    public void oneTime_plainAlarm_isDoneAfterItsRing() {
+        long fired = local(2024, Calendar.JUNE, 5, 7, 0);
+        assertTrue(calc.isLastOccurrence(fired, alarm(7, 0, 0)));
+        assertFalse(calc.isLastOccurrence(fired, alarm(7, 0, WEEKDAYS)));
+        assertFalse(calc.isLastOccurrence(fired, alarm(7, 0, Alarm.EVERY_DAY)));
+    }
+
+    @Test
+    public void oneTime_interval_runsItsWholeWindow() {
+        Alarm a = alarm(22, 0, 0);
+        a.setInterval(EVERY, 6, 0);
+        assertFalse(calc.isLastOccurrence(local(2024, Calendar.JUNE, 5, 22, 0), a));
+        assertFalse(calc.isLastOccurrence(local(2024, Calendar.JUNE, 6, 5, 40), a));
+        assertTrue(calc.isLastOccurrence(local(2024, Calendar.JUNE, 6, 6, 0), a));
+    }
+
+    @Test
+    public void alarmSkips_staySortedAndPrune() {
+        Alarm a = new Alarm(1, 7, 0, "", true, null, false);
+        a.skip(30);
+        a.skip(10);
+        a.skip(20);
+        a.skip(20);
+        assertArrayEquals(new int[]{10, 20, 30}, a.skipDays);
+        assertTrue(a.isSkipped(20));
+        assertFalse(a.isSkipped(15));
+
+        assertFalse(a.pruneSkipsBefore(5));
+        assertTrue(a.pruneSkipsBefore(20));
+        assertArrayEquals(new int[]{20, 30}, a.skipDays);
+        assertTrue(a.pruneSkipsBefore(31));
+        assertSame(Alarm.NO_SKIPS, a.skipDays);
+    }
+
+    @Test
+    public void matchesCalendar_onOrdinaryDays() {
+        Calendar c = Calendar.getInstance(NEW_YORK);
+        long now = local(2024, Calendar.JANUARY, 1, 0, 17);
+        for (int i = 0; i < 500; i++) {
+            now += 7 * 60 * NextTriggerCalculator.MINUTE_MS + 13_000L;
+            int hour = i % 24;
+            int minute = (i * 7) % 60;
+            if (hour == 2) continue; // transition hour is covered separately
+            long t = calc.next(now, hour, minute, -1);
+
+            c.setTimeInMillis(t);
+            assertEquals(hour, c.get(Calendar.HOUR_OF_DAY));
+            assertEquals(minute, c.get(Calendar.MINUTE));
+            assertTrue(t > now);
+            assertTrue(t - now <= 25 * 60 * NextTriggerCalculator.MINUTE_MS);
+        }
+    }
+
+    @Test
+    public void matchesOldCalendarWalk_forDayMasks() {
+        Calendar c = Calendar.getInstance(NEW_YORK);
+        long start = local(2024, Calendar.JANUARY, 1, 0, 0);
+        // Every mask over most of a year; DST days are Sundays, so leave Sunday out of the masks
+        for (int i = 0; i < 20_000; i++) {
+            long now = start + i * 1_571_000L;
+            int mask = (i % 63 + 1) << 1;
+            assertEquals(calendarNext(c, now, i % 24, i % 60, mask), calc.nextForMask(now, i % 24, i % 60, mask));
+        }
+    }
+
+    /** The Calendar walk the scheduler used before NextTriggerCalculator, kept as a reference. */
+    private static long calendarNext(Calendar c, long now, int hour24, int minute, int daysMask) {
+        c.setTimeInMillis(now);
+        c.set(Calendar.SECOND, 0);
+        c.set(Calendar.MILLISECOND, 0);
+        c.set(Calendar.HOUR_OF_DAY, hour24);
+        c.set(Calendar.MINUTE, minute);
+        for (int i = 0; i < 8; i++) {
+            if (c.getTimeInMillis() > now && (daysMask & (1 << (c.get(Calendar.DAY_OF_WEEK) - 1))) != 0) break;
+            c.add(Calendar.DAY_OF_YEAR, 1);
+            c.set(Calendar.HOUR_OF_DAY, hour24);
+            c.set(Calendar.MINUTE, minute);
+        }
+        return c.getTimeInMillis();
+    }
+
+    private static Alarm alarm(int hour24, int minute, int daysMask) {
+        return new Alarm(1, hour24, minute, "", true, null, false, daysMask);
+    }
+
+    private static long local(int year, int month, int day, int hour, int minute) {
+        Calendar c = Calendar.getInstance(NEW_YORK);
+        c.clear();
+        c.set(year, month, day, hour, minute);
+        return c.getTimeInMillis();
+    }
+
+    private static int day(int year, int month, int day) {
+        return Math.toIntExact(Math.floorDiv(utc(year, month, day, 0, 0), NextTriggerCalculator.DAY_MS));
+    }
+
+    private static long utc(int year, int month, int day, int hour, int minute) {
+        Calendar c = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        c.clear();
+        c.set(year, month, day, hour, minute);
+        return c.getTimeInMillis();
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.clockandtimerapp.alarm;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link RingQueue}, driven the way {@link AlarmRingService} drives it
+ * when the dispatcher rings several alarms due in the same minute.
+ */
+public class RingQueueTest {
+
+    private final RingQueue<Integer> queue = new RingQueue<>();
+    private int ringing = AlarmIdAllocator.NO_ID;
+
+    @Test
+    public void twoAlarmsInTheSameMinute_ringOneAfterTheOther() {
+        // The dispatcher starts the first normally and the second after it
+        start(7, false);
+        start(8, true);
+        assertEquals(7, ringing);
+        assertEquals(1, queue.size());
+
+        finish(); // first one dismissed or snoozed
+        assertEquals(8, ringing);
+        finish();
+        assertEquals(AlarmIdAllocator.NO_ID, ringing);
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void waitingAlarmsKeepTheirOrder() {
+        start(1, false);
+        start(2, true);
+        start(3, true);
+        finish();
+        assertEquals(2, ringing);
+        finish();
+        assertEquals(3, ringing);
+    }
+
+    @Test
+    public void afterCurrent_withNothingRinging_startsAtOnce() {
+        start(4, true);
+        assertEquals(4, ringing);
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void ordinaryStart_stillReplacesTheRing() {
+        start(1, false);
+        start(2, true);
+        start(5, false); // a separate firing, e.g. a snooze coming due
+        assertEquals(5, ringing);
+        finish();
+        assertEquals(2, ringing); // the same-minute alarm is not lost
+    }
+
+    private void start(int id, boolean afterCurrent) {
+        if (queue.admit(id, ringing != AlarmIdAllocator.NO_ID, afterCurrent)) ringing = id;
+    }
+
+    private void finish() {
+        Integer next = queue.next();
+        ringing = next == null ? AlarmIdAllocator.NO_ID : next;
+    }
+}